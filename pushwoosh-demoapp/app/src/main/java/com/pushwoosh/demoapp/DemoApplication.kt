@@ -1,9 +1,23 @@
 package com.pushwoosh.demoapp
 
 import android.app.Application
+import com.pushwoosh.demoapp.events.EventSchemas
+import com.pushwoosh.demoapp.inbox.UnreadCountTracker
+import com.pushwoosh.demoapp.log.DemoLog
+import com.pushwoosh.demoapp.sdk.TagMirror
+import com.pushwoosh.demoapp.strictmode.StrictModeMonitor
 
 class DemoApplication : Application() {
     override fun onCreate() {
+        // Before anything else, so violations during startup are caught too.
+        if (BuildConfig.DEBUG) {
+            StrictModeMonitor.install(DemoApplication::class.java.name.substringBeforeLast('.'))
+        }
         super.onCreate()
+        DemoLog.init(this)
+        TagMirror.init(this)
+        EventSchemas.init(this)
+        // The one full inbox count per process; UnreadCountTracker keeps it current from here.
+        UnreadCountTracker.getInstance().refresh()
     }
 }
@@ -1,21 +1,23 @@
 package com.pushwoosh.demoapp
 
+import android.content.Intent
 import android.os.Bundle
 import androidx.activity.enableEdgeToEdge
 import androidx.appcompat.app.AppCompatActivity
 import androidx.core.view.ViewCompat
 import androidx.core.view.WindowInsetsCompat
+import androidx.lifecycle.ViewModelProvider
+import androidx.navigation.NavOptions
 import androidx.navigation.Navigation.findNavController
 import androidx.navigation.ui.NavigationUI.setupWithNavController
 import com.pushwoosh.demoapp.databinding.ActivityMainBinding
+import com.pushwoosh.demoapp.deeplink.PushRoutes
+import com.pushwoosh.demoapp.inbox.UnreadCountTracker
+import com.pushwoosh.demoapp.notification.NotificationGroupAggregator
+import com.pushwoosh.demoapp.richmedia.WebViewWarmUp
+import com.pushwoosh.demoapp.ui.notifications.NotificationsViewModel
 import com.pushwoosh.demoapp.utils.InboxStyleHelper
-import com.pushwoosh.inapp.view.config.ModalRichmediaConfig
-import com.pushwoosh.inapp.view.config.enums.ModalRichMediaDismissAnimationType
-import com.pushwoosh.inapp.view.config.enums.ModalRichMediaPresentAnimationType
-import com.pushwoosh.inapp.view.config.enums.ModalRichMediaSwipeGesture
 import com.pushwoosh.inapp.view.config.enums.ModalRichMediaViewPosition
-import com.pushwoosh.inapp.view.config.enums.ModalRichMediaWindowWidth
-import com.pushwoosh.richmedia.RichMediaManager
 
 class MainActivity : AppCompatActivity() {
     private var binding: ActivityMainBinding? = null
@@ -46,20 +48,60 @@ class MainActivity : AppCompatActivity() {
         val navController = findNavController(this, R.id.nav_host_fragment_activity_main)
         setupWithNavController(binding!!.navView, navController)
 
-        setupPushwooshSdk()
+        // Unread inbox messages as a badge on the Inbox tab.
+        UnreadCountTracker.getInstance().unreadCount.observe(this) { unread ->
+            val navView = binding?.navView ?: return@observe
+            if (unread > 0) {
+                navView.getOrCreateBadge(R.id.navigation_inbox).number = unread
+            } else {
+                navView.removeBadge(R.id.navigation_inbox)
+            }
+        }
+
+        setupPushwooshSdk(savedInstanceState != null)
+
+        if (savedInstanceState == null) {
+            NotificationGroupAggregator.onSummaryIntent(this, intent)
+            openPushDestination(intent)
+        }
+
+        // Once the first screen has settled: starts the browser engine before any rich media needs it.
+        WebViewWarmUp.getInstance().warmUpWhenIdle(this)
     }
 
-    private fun setupPushwooshSdk() {
-        // Configure Rich Media appearance
-        RichMediaManager.setDefaultRichMediaConfig(
-            ModalRichmediaConfig()
-                .setViewPosition(ModalRichMediaViewPosition.FULLSCREEN)
-                .setPresentAnimationType(ModalRichMediaPresentAnimationType.SLIDE_UP)
-                .setDismissAnimationType(ModalRichMediaDismissAnimationType.SLIDE_DOWN)
-                .setSwipeGestures(setOf(ModalRichMediaSwipeGesture.NONE))
-                .setWindowWidth(ModalRichMediaWindowWidth.FULL_SCREEN)
-                .setStatusBarCovered(true)
-                .setAnimationDuration(300))
+    override fun onNewIntent(intent: Intent) {
+        super.onNewIntent(intent)
+        NotificationGroupAggregator.onSummaryIntent(this, intent)
+        openPushDestination(intent)
+    }
+
+    /**
+     * Opens the screen a routed push asked for; see [PushRoutes]. Like a tab tap, it replaces what is
+     * above the start destination instead of stacking a screen per push.
+     */
+    private fun openPushDestination(intent: Intent) {
+        val destination = intent.getIntExtra(PushRoutes.EXTRA_DESTINATION, 0)
+        if (destination != 0) {
+            val navController = findNavController(this, R.id.nav_host_fragment_activity_main)
+            val options = NavOptions.Builder()
+                .setPopUpTo(navController.graph.startDestinationId, false)
+                .setLaunchSingleTop(true)
+                .build()
+            navController.navigate(destination, intent.getBundleExtra(PushRoutes.EXTRA_ARGUMENTS), options)
+        }
+    }
+
+    private fun setupPushwooshSdk(recreated: Boolean) {
+        // Configure Rich Media appearance. A recreated activity keeps the position chosen in
+        // Settings, which lives in the activity-scoped view model whichever tab is showing.
+        val position = if (recreated) {
+            ViewModelProvider(this, NotificationsViewModel.Factory(this))
+                .get(NotificationsViewModel::class.java)
+                .modalPosition
+        } else {
+            ModalRichMediaViewPosition.FULLSCREEN
+        }
+        NotificationsViewModel.applyModalPosition(position)
 
         // Configure Inbox style
         InboxStyleHelper.setupCustomInboxStyle(this)
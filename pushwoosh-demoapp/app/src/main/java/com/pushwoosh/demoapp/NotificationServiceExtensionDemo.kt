@@ -3,25 +3,56 @@ package com.pushwoosh.demoapp
 import android.os.Handler
 import android.util.Log
 import androidx.annotation.MainThread
-import com.pushwoosh.internal.utils.PWLog
+import com.pushwoosh.demoapp.deeplink.PushRoutes
+import com.pushwoosh.demoapp.inbox.InboxSearchIndex
+import com.pushwoosh.demoapp.inbox.UnreadCountTracker
+import com.pushwoosh.demoapp.log.DemoLog
+import com.pushwoosh.demoapp.metrics.MetricsRegistry
+import com.pushwoosh.demoapp.metrics.PushLatencyTracer
+import com.pushwoosh.demoapp.metrics.PushLatencyTracer.Stage
+import com.pushwoosh.internal.platform.AndroidPlatformModule
 import com.pushwoosh.notification.NotificationServiceExtension
 import com.pushwoosh.notification.PushMessage
 
 class NotificationServiceExtensionDemo : NotificationServiceExtension() {
     public override fun onMessageReceived(message: PushMessage): Boolean {
-        super.onMessageReceived(message)
-        PWLog.debug(TAG, "PushMessage received: " + message.toJson().toString())
-        return false
+        val tracer = PushLatencyTracer.getInstance()
+        tracer.mark(message.pushHash, Stage.RECEIVED)
+        MetricsRegistry.getInstance().meter(MetricsRegistry.PUSH_RECEIVED).mark()
+        try {
+            super.onMessageReceived(message)
+            DemoLog.debug(TAG, "PushMessage received: {}", DemoLog.Lazy { message.toJson() })
+            // Inbox pushes carry their inbox code in pw_inbox; count and index them without re-reading the inbox.
+            val inboxCode = message.toJson()?.optString("pw_inbox").orEmpty()
+            if (inboxCode.isNotEmpty()) {
+                UnreadCountTracker.getInstance().onMessageArrived(inboxCode)
+                InboxSearchIndex.getInstance().put(inboxCode, message.header, message.message)
+            }
+            // The SDK shows every push; during a campaign burst GroupingNotificationFactory groups it.
+            return false
+        } finally {
+            tracer.mark(message.pushHash, Stage.RECEIVE_DONE)
+        }
     }
 
     override fun startActivityForPushMessage(message: PushMessage) {
-        super.startActivityForPushMessage(message)
+        PushLatencyTracer.getInstance().mark(message.pushHash, Stage.OPENED)
+        val context = AndroidPlatformModule.getApplicationContext()
+        val routed = context?.let { PushRoutes.route(it, message.toJson()?.optString("l"), message.customData) }
+        if (routed != null) {
+            // The push names one of the demo's screens: open it rather than the launcher or the raw link.
+            context.startActivity(routed)
+        } else {
+            super.startActivityForPushMessage(message)
+        }
         handlePush(message)
     }
 
     @MainThread
     private fun handlePush(message: PushMessage) {
-        PWLog.debug(TAG, "PushMessage accepted: " + message.toJson().toString())
+        DemoLog.debug(TAG, "PushMessage accepted: {}", DemoLog.Lazy { message.toJson() })
+        val traceId = PushLatencyTracer.getInstance().mark(message.pushHash, Stage.HANDLED)
+        DemoLog.debug(TAG, "Push trace {} latencies:\n{}", traceId, DemoLog.Lazy { PushLatencyTracer.getInstance().summary() })
     }
 
     companion object {
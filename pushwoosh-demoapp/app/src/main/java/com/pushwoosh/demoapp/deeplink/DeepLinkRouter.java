@@ -0,0 +1,420 @@
+package com.pushwoosh.demoapp.deeplink;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Maps push links and custom data to routes, from a table declared once with {@link Builder}.
+ * <p>
+ * Link patterns are {@code /}-separated segments: literals, {@code {name}} parameters that match
+ * any one segment, and a trailing {@code *} that matches the rest of the path. They are compiled into
+ * a trie whose children are sorted arrays, so a link is matched segment by segment with a binary
+ * search per level, straight off the link's characters — nothing is split or copied. Literal segments
+ * win over parameters, and parameters over {@code *}. A link with a scheme only matches if the scheme
+ * is one declared with {@link Builder#scheme}, or {@code http(s)} with a host declared with
+ * {@link Builder#host}; anything else is not this app's link. Custom-data routes fire when the push's
+ * custom data has a given key, optionally capturing its value.
+ * <p>
+ * Matching allocates nothing: results go into a {@link Match} the caller keeps and reuses, which
+ * records where each parameter lies in the link; {@link Match#param} makes the string only when asked.
+ * A router is immutable and safe to share; a {@link Match} is not.
+ */
+public final class DeepLinkRouter {
+
+    public static final int NO_ROUTE = -1;
+
+    static final int MAX_PARAMS = 8;
+
+    private static final String WILDCARD = "*";
+    private static final String[] NO_NAMES = new String[0];
+    private static final String[] WEB_SCHEMES = {"http", "https"};
+
+    private final Node root;
+    private final String[] schemes;
+    private final String[] hosts;
+    private final String[] keys;
+    private final int[] keyRoutes;
+    private final String[][] keyParamNames;
+
+    private DeepLinkRouter(@NonNull Builder builder) {
+        root = builder.root.compile();
+        schemes = builder.schemes.toArray(new String[0]);
+        hosts = builder.hosts.toArray(new String[0]);
+        int count = builder.keys.size();
+        keys = builder.keys.toArray(new String[0]);
+        keyRoutes = new int[count];
+        keyParamNames = new String[count][];
+        for (int i = 0; i < count; i++) {
+            keyRoutes[i] = builder.keyRoutes.get(i);
+            String name = builder.keyParamNames.get(i);
+            keyParamNames[i] = name != null ? new String[]{name} : NO_NAMES;
+        }
+    }
+
+    /**
+     * Matches a link: an absolute path, an {@code http(s)} URL on a declared host whose path is
+     * matched, or a declared custom scheme URL such as {@code app://inbox/42}, whose host counts as the
+     * first segment. Query and fragment are ignored.
+     */
+    public boolean matchLink(@NonNull CharSequence link, @NonNull Match match) {
+        match.reset();
+        int end = link.length();
+        int start = 0;
+        int scheme = indexOf(link, "://", 0, end);
+        if (scheme >= 0) {
+            start = scheme + 3;
+            if (contains(WEB_SCHEMES, link, 0, scheme)) {
+                int hostStart = start;
+                while (start < end && link.charAt(start) != '/' && link.charAt(start) != '?' && link.charAt(start) != '#') {
+                    start++;
+                }
+                if (!contains(hosts, link, hostStart, start)) {
+                    return false;
+                }
+            } else if (!contains(schemes, link, 0, scheme)) {
+                return false;
+            }
+        }
+        for (int i = start; i < end; i++) {
+            char c = link.charAt(i);
+            if (c == '?' || c == '#') {
+                end = i;
+                break;
+            }
+        }
+        return matchPath(link, start, end, match);
+    }
+
+    /** Matches {@code path[start, end)} against the link patterns. */
+    public boolean matchPath(@NonNull CharSequence path, int start, int end, @NonNull Match match) {
+        match.reset();
+        return match(root, path, start, end, match, 0);
+    }
+
+    /** Matches the first declared custom-data key present in {@code customData}. */
+    public boolean matchCustomData(@NonNull JSONObject customData, @NonNull Match match) {
+        match.reset();
+        for (int i = 0; i < keys.length; i++) {
+            // optString hands back the stored instance for string values; nothing is copied.
+            String value = customData.optString(keys[i], null);
+            if (value == null) {
+                continue;
+            }
+            if (keyParamNames[i].length > 0) {
+                match.capture(0, value, 0, value.length());
+            }
+            match.set(keyRoutes[i], keyParamNames[i], keyParamNames[i].length);
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean match(@NonNull Node node, @NonNull CharSequence path, int pos, int end,
+                                 @NonNull Match match, int params) {
+        while (pos < end && path.charAt(pos) == '/') {
+            pos++;
+        }
+        if (pos == end) {
+            if (node.route != NO_ROUTE) {
+                match.set(node.route, node.paramNames, params);
+                return true;
+            }
+            return false;
+        }
+        int segmentEnd = pos;
+        while (segmentEnd < end && path.charAt(segmentEnd) != '/') {
+            segmentEnd++;
+        }
+
+        int child = node.find(path, pos, segmentEnd);
+        if (child >= 0 && match(node.children[child], path, segmentEnd, end, match, params)) {
+            return true;
+        }
+        if (node.param != null && params < MAX_PARAMS) {
+            match.capture(params, path, pos, segmentEnd);
+            if (match(node.param, path, segmentEnd, end, match, params + 1)) {
+                return true;
+            }
+        }
+        if (node.wildcardRoute != NO_ROUTE && params < MAX_PARAMS) {
+            match.capture(params, path, pos, end);
+            match.set(node.wildcardRoute, node.wildcardParamNames, params + 1);
+            return true;
+        }
+        return false;
+    }
+
+    private static int indexOf(@NonNull CharSequence text, @NonNull String needle, int from, int end) {
+        for (int i = from; i + needle.length() <= end; i++) {
+            if (regionEquals(needle, text, i, i + needle.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Whether {@code text[start, end)} is one of {@code values}, ignoring ASCII case. */
+    private static boolean contains(@NonNull String[] values, @NonNull CharSequence text, int start, int end) {
+        for (String value : values) {
+            if (value.length() == end - start && regionEqualsIgnoreCase(value, text, start)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean regionEqualsIgnoreCase(@NonNull String expected, @NonNull CharSequence text, int start) {
+        for (int i = 0; i < expected.length(); i++) {
+            char c = text.charAt(start + i);
+            if (c >= 'A' && c <= 'Z') {
+                c += 'a' - 'A';
+            }
+            if (c != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean regionEquals(@NonNull String expected, @NonNull CharSequence text, int start, int end) {
+        return compare(expected, text, start, end) == 0;
+    }
+
+    /** Orders {@code literal} against {@code text[start, end)} the way {@link String#compareTo} would. */
+    private static int compare(@NonNull String literal, @NonNull CharSequence text, int start, int end) {
+        int length = end - start;
+        int common = Math.min(literal.length(), length);
+        for (int i = 0; i < common; i++) {
+            int diff = literal.charAt(i) - text.charAt(start + i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return literal.length() - length;
+    }
+
+    /** Where the last successful match went and what it captured. Reuse one per thread. */
+    public static final class Match {
+        private final CharSequence[] sources = new CharSequence[MAX_PARAMS];
+        private final int[] starts = new int[MAX_PARAMS];
+        private final int[] ends = new int[MAX_PARAMS];
+        private String[] names = NO_NAMES;
+        private int count;
+        private int route = NO_ROUTE;
+
+        /** The matched route, or {@link #NO_ROUTE}. */
+        public int route() {
+            return route;
+        }
+
+        public int paramCount() {
+            return count;
+        }
+
+        @NonNull
+        public String paramName(int index) {
+            return names[index];
+        }
+
+        /** The value captured for {@code name}, or null if the route has no such parameter. */
+        @Nullable
+        public String param(@NonNull String name) {
+            for (int i = 0; i < count; i++) {
+                if (names[i].equals(name)) {
+                    return sources[i].subSequence(starts[i], ends[i]).toString();
+                }
+            }
+            return null;
+        }
+
+        void reset() {
+            route = NO_ROUTE;
+            count = 0;
+            names = NO_NAMES;
+        }
+
+        void capture(int index, @NonNull CharSequence source, int start, int end) {
+            sources[index] = source;
+            starts[index] = start;
+            ends[index] = end;
+        }
+
+        void set(int route, @NonNull String[] names, int count) {
+            this.route = route;
+            this.names = names;
+            this.count = count;
+        }
+    }
+
+    /** The route table. */
+    public static final class Builder {
+        private final NodeBuilder root = new NodeBuilder();
+        private final List<String> schemes = new ArrayList<>();
+        private final List<String> hosts = new ArrayList<>();
+        private final List<String> keys = new ArrayList<>();
+        private final List<Integer> keyRoutes = new ArrayList<>();
+        private final List<String> keyParamNames = new ArrayList<>();
+
+        /** Routes links matching {@code pattern}, e.g. {@code /inbox/{code}} or {@code /promo/*}. */
+        @NonNull
+        public Builder path(@NonNull String pattern, int route) {
+            if (route == NO_ROUTE) {
+                throw new IllegalArgumentException("Route id " + NO_ROUTE + " is reserved");
+            }
+            List<String> names = new ArrayList<>();
+            NodeBuilder node = root;
+            String[] segments = pattern.split("/");
+            for (int i = 0; i < segments.length; i++) {
+                String segment = segments[i];
+                if (segment.isEmpty()) {
+                    continue;
+                }
+                if (segment.equals(WILDCARD)) {
+                    if (i != segments.length - 1) {
+                        throw new IllegalArgumentException("'*' must be the last segment: " + pattern);
+                    }
+                    names.add(WILDCARD);
+                    checkParams(pattern, names);
+                    if (node.wildcardRoute != NO_ROUTE) {
+                        throw new IllegalArgumentException("Declared twice: " + pattern);
+                    }
+                    node.wildcardRoute = route;
+                    node.wildcardParamNames = names.toArray(new String[0]);
+                    return this;
+                }
+                if (segment.startsWith("{") && segment.endsWith("}")) {
+                    names.add(segment.substring(1, segment.length() - 1));
+                    checkParams(pattern, names);
+                    if (node.param == null) {
+                        node.param = new NodeBuilder();
+                    }
+                    node = node.param;
+                } else {
+                    NodeBuilder child = node.children.get(segment);
+                    if (child == null) {
+                        child = new NodeBuilder();
+                        node.children.put(segment, child);
+                    }
+                    node = child;
+                }
+            }
+            if (node.route != NO_ROUTE) {
+                throw new IllegalArgumentException("Declared twice: " + pattern);
+            }
+            node.route = route;
+            node.paramNames = names.toArray(new String[0]);
+            return this;
+        }
+
+        /** Accepts links with the custom {@code scheme}, e.g. {@code app} for {@code app://inbox/42}. */
+        @NonNull
+        public Builder scheme(@NonNull String scheme) {
+            if (scheme.equalsIgnoreCase("http") || scheme.equalsIgnoreCase("https")) {
+                throw new IllegalArgumentException("Declare a host for http(s) links instead: " + scheme);
+            }
+            schemes.add(scheme.toLowerCase(Locale.US));
+            return this;
+        }
+
+        /** Accepts {@code http(s)} links to {@code host}; without any, web links do not match. */
+        @NonNull
+        public Builder host(@NonNull String host) {
+            hosts.add(host.toLowerCase(Locale.US));
+            return this;
+        }
+
+        /**
+         * Routes pushes whose custom data has {@code key}; the value is captured as {@code param} if
+         * given. Keys are tried in the order declared, after the link.
+         */
+        @NonNull
+        public Builder customKey(@NonNull String key, int route, @Nullable String param) {
+            if (keys.contains(key)) {
+                throw new IllegalArgumentException("Declared twice: " + key);
+            }
+            keys.add(key);
+            keyRoutes.add(route);
+            keyParamNames.add(param);
+            return this;
+        }
+
+        @NonNull
+        public DeepLinkRouter build() {
+            return new DeepLinkRouter(this);
+        }
+
+        private static void checkParams(@NonNull String pattern, @NonNull List<String> names) {
+            if (names.size() > MAX_PARAMS) {
+                throw new IllegalArgumentException("More than " + MAX_PARAMS + " parameters: " + pattern);
+            }
+        }
+    }
+
+    private static final class NodeBuilder {
+        final Map<String, NodeBuilder> children = new TreeMap<>();
+        NodeBuilder param;
+        int route = NO_ROUTE;
+        String[] paramNames = NO_NAMES;
+        int wildcardRoute = NO_ROUTE;
+        String[] wildcardParamNames = NO_NAMES;
+
+        @NonNull
+        Node compile() {
+            // TreeMap order is String order, which is what Node.find's binary search expects.
+            String[] literals = children.keySet().toArray(new String[0]);
+            Node[] compiled = new Node[literals.length];
+            for (int i = 0; i < literals.length; i++) {
+                compiled[i] = children.get(literals[i]).compile();
+            }
+            return new Node(literals, compiled, param != null ? param.compile() : null,
+                    route, paramNames, wildcardRoute, wildcardParamNames);
+        }
+    }
+
+    private static final class Node {
+        final String[] literals;
+        final Node[] children;
+        @Nullable final Node param;
+        final int route;
+        final String[] paramNames;
+        final int wildcardRoute;
+        final String[] wildcardParamNames;
+
+        Node(@NonNull String[] literals, @NonNull Node[] children, @Nullable Node param, int route,
+             @NonNull String[] paramNames, int wildcardRoute, @NonNull String[] wildcardParamNames) {
+            this.literals = literals;
+            this.children = children;
+            this.param = param;
+            this.route = route;
+            this.paramNames = paramNames;
+            this.wildcardRoute = wildcardRoute;
+            this.wildcardParamNames = wildcardParamNames;
+        }
+
+        /** Index of the child for {@code path[start, end)}, or -1. */
+        int find(@NonNull CharSequence path, int start, int end) {
+            int low = 0;
+            int high = literals.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int order = compare(literals[mid], path, start, end);
+                if (order < 0) {
+                    low = mid + 1;
+                } else if (order > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.pushwoosh.demoapp.deeplink;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.Bundle;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.pushwoosh.demoapp.MainActivity;
+import com.pushwoosh.demoapp.R;
+import com.pushwoosh.demoapp.log.DemoLog;
+import com.pushwoosh.demoapp.metrics.MetricsRegistry;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * The screens a push can open, declared once: links in the push's {@code l} field such as
+ * {@code pushwoosh-demo://inbox/CODE}, or custom data such as {@code {"inbox_code": "CODE"}}. Only the
+ * demo's own scheme is routed; the demo has no web domain, so {@code http(s)} links are left to the
+ * SDK's default handling. Routes are navigation destinations, and captured parameters become the
+ * destination's arguments.
+ * <p>
+ * Matching time is recorded under {@code push.route}. Main thread only: the {@link DeepLinkRouter.Match}
+ * is shared between opens.
+ */
+public final class PushRoutes {
+
+    /** Navigation destination id for {@link MainActivity} to open. */
+    public static final String EXTRA_DESTINATION = "com.pushwoosh.demoapp.DESTINATION";
+    /** Arguments for the destination. */
+    public static final String EXTRA_ARGUMENTS = "com.pushwoosh.demoapp.DESTINATION_ARGUMENTS";
+    /** Argument of the inbox destination: the inbox code of the message to open. */
+    public static final String ARG_INBOX_CODE = "code";
+
+    private static final String TAG = "PushRoutes";
+
+    static final DeepLinkRouter ROUTER = new DeepLinkRouter.Builder()
+            .scheme("pushwoosh-demo")
+            .path("/home", R.id.navigation_home)
+            .path("/settings", R.id.navigation_notifications)
+            .path("/notifications", R.id.navigation_notifications)
+            .path("/inbox", R.id.navigation_inbox)
+            .path("/inbox/{" + ARG_INBOX_CODE + "}", R.id.navigation_inbox)
+            .path("/diagnostics", R.id.navigation_diagnostics)
+            .customKey("inbox_code", R.id.navigation_inbox, ARG_INBOX_CODE)
+            .customKey("screen_diagnostics", R.id.navigation_diagnostics, null)
+            .build();
+
+    private static final DeepLinkRouter.Match MATCH = new DeepLinkRouter.Match();
+
+    private PushRoutes() {
+    }
+
+    /**
+     * The intent that opens the push's screen, or null if neither its link nor its custom data names
+     * one.
+     */
+    @MainThread
+    @Nullable
+    public static Intent route(@NonNull Context context, @Nullable String link, @Nullable String customData) {
+        long start = System.nanoTime();
+        boolean matched = link != null && !link.isEmpty() && ROUTER.matchLink(link, MATCH);
+        if (!matched && customData != null && !customData.isEmpty()) {
+            try {
+                matched = ROUTER.matchCustomData(new JSONObject(customData), MATCH);
+            } catch (JSONException e) {
+                DemoLog.error(TAG, "Push custom data is not a JSON object", e);
+            }
+        }
+        MetricsRegistry.getInstance().histogram(MetricsRegistry.PUSH_ROUTE).recordNanos(System.nanoTime() - start);
+        if (!matched) {
+            return null;
+        }
+
+        Bundle arguments = new Bundle();
+        for (int i = 0; i < MATCH.paramCount(); i++) {
+            String name = MATCH.paramName(i);
+            arguments.putString(name, MATCH.param(name));
+        }
+        return new Intent(context, MainActivity.class)
+                .addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP | Intent.FLAG_ACTIVITY_SINGLE_TOP)
+                .putExtra(EXTRA_DESTINATION, MATCH.route())
+                .putExtra(EXTRA_ARGUMENTS, arguments);
+    }
+}
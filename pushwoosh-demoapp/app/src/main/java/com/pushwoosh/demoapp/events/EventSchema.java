@@ -0,0 +1,327 @@
+package com.pushwoosh.demoapp.events;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Event definitions compiled for fast checking before an event is posted: which names exist, and for
+ * each the attributes it takes, their types and ranges.
+ * <p>
+ * Definitions are built with {@link Builder} (see {@link EventSchemas} for the JSON form) and turned
+ * into hash lookups and plain per-attribute rules, so {@link #validate} is a few map reads per event
+ * and allocates nothing when the event is valid. Attributes beyond the declared ones are visited with
+ * {@link Map#forEach} and a reused per-thread {@link AttributeScan} rather than an iterator. Events the
+ * schema does not name are rejected, or —
+ * with {@link Builder#allowUnknownEvents} — only held to the generic limits: name length, attribute
+ * count, and attribute values the SDK can send. An attribute whose value is null counts as missing.
+ * <p>
+ * Immutable and safe to share between threads.
+ */
+public final class EventSchema {
+
+    /** Accepts every event the SDK could send; in effect until a schema is loaded. */
+    public static final EventSchema PERMISSIVE = new Builder(0).allowUnknownEvents(true).build();
+
+    static final int MAX_NAME_LENGTH = 64;
+    static final int MAX_ATTRIBUTES = 32;
+
+    private final int version;
+    private final boolean allowUnknownEvents;
+    private final Map<String, EventRule> events;
+
+    private EventSchema(@NonNull Builder builder) {
+        version = builder.version;
+        allowUnknownEvents = builder.allowUnknownEvents;
+        events = new HashMap<>(builder.events);
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Checks an event against the schema.
+     *
+     * @return null if the event may be posted, otherwise why not
+     */
+    @Nullable
+    public String validate(@NonNull String name, @Nullable Map<String, ?> attributes) {
+        if (name.isEmpty() || name.length() > MAX_NAME_LENGTH) {
+            return "Event name must be 1–" + MAX_NAME_LENGTH + " characters";
+        }
+        int count = attributes != null ? attributes.size() : 0;
+        if (count > MAX_ATTRIBUTES) {
+            return "At most " + MAX_ATTRIBUTES + " attributes, got " + count;
+        }
+        EventRule event = events.get(name);
+        if (event == null) {
+            if (!allowUnknownEvents) {
+                return "Unknown event '" + name + "'";
+            }
+            return count > 0 ? checkValuesSendable(attributes) : null;
+        }
+        return event.validate(name, attributes, count);
+    }
+
+    /** Any value the SDK can turn into an event attribute: integers, strings and booleans. */
+    @Nullable
+    private static String checkValuesSendable(@NonNull Map<String, ?> attributes) {
+        AttributeScan scan = AttributeScan.run(attributes, null, true);
+        return scan.key != null ? scan.unsupportedType() : null;
+    }
+
+    private static boolean isSendable(@NonNull Object value) {
+        return value instanceof Integer || value instanceof Long || value instanceof String || value instanceof Boolean;
+    }
+
+    /**
+     * Finds the first attribute with a value that is not declared and not allowed, or not sendable.
+     * One instance per thread, reset by every {@link #run}, so a scan allocates nothing.
+     */
+    private static final class AttributeScan implements BiConsumer<String, Object> {
+        private static final ThreadLocal<AttributeScan> PER_THREAD = new ThreadLocal<AttributeScan>() {
+            @Override
+            protected AttributeScan initialValue() {
+                return new AttributeScan();
+            }
+        };
+
+        @Nullable private Set<String> declared;
+        private boolean additionalAttributes;
+
+        /** The offending attribute, or null if there is none. */
+        @Nullable String key;
+        /** Whether {@link #key} is undeclared; otherwise its value is of an unsupported type. */
+        boolean undeclared;
+        @Nullable private Class<?> type;
+
+        @NonNull
+        static AttributeScan run(@NonNull Map<String, ?> attributes, @Nullable Set<String> declared,
+                                 boolean additionalAttributes) {
+            AttributeScan scan = PER_THREAD.get();
+            scan.declared = declared;
+            scan.additionalAttributes = additionalAttributes;
+            scan.key = null;
+            scan.undeclared = false;
+            scan.type = null;
+            attributes.forEach(scan);
+            scan.declared = null;
+            return scan;
+        }
+
+        @Override
+        public void accept(String name, Object value) {
+            if (key != null || value == null || (declared != null && declared.contains(name))) {
+                return;
+            }
+            if (!additionalAttributes) {
+                key = name;
+                undeclared = true;
+            } else if (!isSendable(value)) {
+                key = name;
+                type = value.getClass();
+            }
+        }
+
+        @NonNull
+        String unsupportedType() {
+            return "Attribute '" + key + "' has unsupported type " + type.getSimpleName();
+        }
+    }
+
+    private static final class EventRule {
+        final String[] names;
+        final AttributeRule[] rules;
+        final Set<String> declared;
+        final boolean additionalAttributes;
+
+        EventRule(@NonNull Map<String, AttributeRule> attributes, boolean additionalAttributes) {
+            this.names = attributes.keySet().toArray(new String[0]);
+            this.rules = new AttributeRule[names.length];
+            for (int i = 0; i < names.length; i++) {
+                rules[i] = attributes.get(names[i]);
+            }
+            this.declared = new HashSet<>(attributes.keySet());
+            this.additionalAttributes = additionalAttributes;
+        }
+
+        @Nullable
+        String validate(@NonNull String event, @Nullable Map<String, ?> attributes, int count) {
+            // Walk the declared attributes and look each one up, rather than iterating the event's map:
+            // no iterator, and a missing required attribute is found on the way.
+            int matched = 0;
+            for (int i = 0; i < names.length; i++) {
+                Object value = attributes != null ? attributes.get(names[i]) : null;
+                if (value == null) {
+                    if (rules[i].required) {
+                        return "'" + event + "' requires attribute '" + names[i] + "'";
+                    }
+                    continue;
+                }
+                matched++;
+                String problem = rules[i].check(value);
+                if (problem != null) {
+                    return "'" + event + "' attribute '" + names[i] + "' " + problem;
+                }
+            }
+            if (matched < count) {
+                // The map's size counts null values too, which are treated as missing.
+                AttributeScan scan = AttributeScan.run(attributes, declared, additionalAttributes);
+                if (scan.key == null) {
+                    return null;
+                }
+                return scan.undeclared
+                        ? "'" + event + "' does not take attribute '" + scan.key + "'"
+                        : scan.unsupportedType();
+            }
+            return null;
+        }
+    }
+
+    private static final class AttributeRule {
+        static final int INTEGER = 1;
+        static final int STRING = 2;
+        static final int BOOLEAN = 3;
+
+        final int type;
+        final boolean required;
+        final long min;
+        final long max;
+        final int maxLength;
+        @Nullable final Set<String> values;
+
+        AttributeRule(int type, boolean required, long min, long max, int maxLength, @Nullable Set<String> values) {
+            this.type = type;
+            this.required = required;
+            this.min = min;
+            this.max = max;
+            this.maxLength = maxLength;
+            this.values = values;
+        }
+
+        @Nullable
+        String check(@NonNull Object value) {
+            switch (type) {
+                case INTEGER:
+                    if (!(value instanceof Integer || value instanceof Long)) {
+                        return "must be an integer";
+                    }
+                    long number = ((Number) value).longValue();
+                    if (number < min || number > max) {
+                        return "must be in " + min + ".." + max + ", got " + number;
+                    }
+                    return null;
+                case STRING:
+                    if (!(value instanceof String)) {
+                        return "must be a string";
+                    }
+                    String text = (String) value;
+                    if (text.length() > maxLength) {
+                        return "must be at most " + maxLength + " characters";
+                    }
+                    if (values != null && !values.contains(text)) {
+                        return "must be one of " + values + ", got '" + text + "'";
+                    }
+                    return null;
+                default:
+                    return value instanceof Boolean ? null : "must be true or false";
+            }
+        }
+    }
+
+    /** Collects event definitions; {@link #build()} compiles them. */
+    public static final class Builder {
+        private final int version;
+        private final Map<String, EventRule> events = new HashMap<>();
+        private boolean allowUnknownEvents;
+
+        /** @param version identifies the schema in logs */
+        public Builder(int version) {
+            this.version = version;
+        }
+
+        /** Lets events the schema does not name through, held only to the generic limits. */
+        @NonNull
+        public Builder allowUnknownEvents(boolean allow) {
+            allowUnknownEvents = allow;
+            return this;
+        }
+
+        /** Starts the definition of {@code name}; call {@link EventBuilder#done()} to add it. */
+        @NonNull
+        public EventBuilder event(@NonNull String name) {
+            if (name.isEmpty() || name.length() > MAX_NAME_LENGTH) {
+                throw new IllegalArgumentException("Event name must be 1–" + MAX_NAME_LENGTH + " characters: '" + name + "'");
+            }
+            return new EventBuilder(this, name);
+        }
+
+        @NonNull
+        public EventSchema build() {
+            return new EventSchema(this);
+        }
+    }
+
+    /** The attributes of one event. */
+    public static final class EventBuilder {
+        private final Builder schema;
+        private final String name;
+        private final Map<String, AttributeRule> attributes = new HashMap<>();
+        private boolean additionalAttributes;
+
+        EventBuilder(@NonNull Builder schema, @NonNull String name) {
+            this.schema = schema;
+            this.name = name;
+        }
+
+        /** An integer attribute in {@code [min, max]}. */
+        @NonNull
+        public EventBuilder integer(@NonNull String attribute, boolean required, long min, long max) {
+            if (min > max) {
+                throw new IllegalArgumentException(name + "." + attribute + ": min " + min + " > max " + max);
+            }
+            return put(attribute, new AttributeRule(AttributeRule.INTEGER, required, min, max, 0, null));
+        }
+
+        /** A string attribute of at most {@code maxLength} characters, one of {@code values} if given. */
+        @NonNull
+        public EventBuilder string(@NonNull String attribute, boolean required, int maxLength,
+                                   @Nullable Collection<String> values) {
+            Set<String> allowed = values != null ? new HashSet<>(values) : null;
+            return put(attribute, new AttributeRule(AttributeRule.STRING, required, 0, 0, maxLength, allowed));
+        }
+
+        @NonNull
+        public EventBuilder bool(@NonNull String attribute, boolean required) {
+            return put(attribute, new AttributeRule(AttributeRule.BOOLEAN, required, 0, 0, 0, null));
+        }
+
+        /** Lets the event carry attributes beyond the declared ones, as long as the SDK can send them. */
+        @NonNull
+        public EventBuilder additionalAttributes(boolean allow) {
+            additionalAttributes = allow;
+            return this;
+        }
+
+        @NonNull
+        public Builder done() {
+            schema.events.put(name, new EventRule(attributes, additionalAttributes));
+            return schema;
+        }
+
+        @NonNull
+        private EventBuilder put(@NonNull String attribute, @NonNull AttributeRule rule) {
+            if (attributes.put(attribute, rule) != null) {
+                throw new IllegalArgumentException(name + "." + attribute + " is declared twice");
+            }
+            return this;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.pushwoosh.demoapp.events;
+
+import android.content.Context;
+
+import androidx.annotation.AnyThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.pushwoosh.demoapp.log.DemoLog;
+import com.pushwoosh.demoapp.metrics.MetricsRegistry;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * The app's current {@link EventSchema}, compiled from the bundled {@value #ASSET} asset, which is
+ * JSON of this shape:
+ * <pre>
+ * {
+ *   "version": 3,
+ *   "unknownEvents": "allow" | "reject",
+ *   "events": {
+ *     "purchase": {
+ *       "additionalAttributes": false,
+ *       "attributes": {
+ *         "price":    {"type": "integer", "required": true, "min": 0, "max": 1000000},
+ *         "currency": {"type": "string", "required": true, "maxLength": 3, "values": ["USD", "EUR"]},
+ *         "gift":     {"type": "boolean"}
+ *       }
+ *     }
+ *   }
+ * }
+ * </pre>
+ * The schema is loaded and compiled on a background thread; until then every event passes
+ * ({@link EventSchema#PERMISSIVE}). Validation time is recorded under {@code events.validate} and
+ * rejected events are counted in {@code events.rejected}.
+ */
+public final class EventSchemas {
+
+    static final String ASSET = "event-schemas.json";
+
+    private static final String TAG = "EventSchemas";
+
+    private static EventSchemas instance;
+
+    private final Executor io = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, TAG));
+
+    private volatile EventSchema schema = EventSchema.PERMISSIVE;
+
+    /** Creates the shared registry and starts loading the bundled schema. */
+    @NonNull
+    public static synchronized EventSchemas init(@NonNull Context context) {
+        if (instance == null) {
+            instance = new EventSchemas(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    @NonNull
+    public static synchronized EventSchemas getInstance() {
+        if (instance == null) {
+            throw new IllegalStateException("EventSchemas.init() has not been called");
+        }
+        return instance;
+    }
+
+    private EventSchemas(@NonNull Context context) {
+        io.execute(() -> load(context));
+    }
+
+    /**
+     * Checks an event against the current schema.
+     *
+     * @return null if the event may be posted, otherwise why not
+     */
+    @AnyThread
+    @Nullable
+    public String validate(@NonNull String name, @Nullable Map<String, ?> attributes) {
+        long start = System.nanoTime();
+        String problem = schema.validate(name, attributes);
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        metrics.histogram(MetricsRegistry.EVENTS_VALIDATE).recordNanos(System.nanoTime() - start);
+        if (problem != null) {
+            metrics.counter(MetricsRegistry.EVENTS_REJECTED).increment();
+        }
+        return problem;
+    }
+
+    @WorkerThread
+    private void load(@NonNull Context context) {
+        try (InputStream in = context.getAssets().open(ASSET)) {
+            EventSchema bundled = parse(read(in));
+            schema = bundled;
+            DemoLog.info(TAG, "Event schema version {} in effect", bundled.getVersion());
+        } catch (IOException | JSONException | IllegalArgumentException e) {
+            DemoLog.error(TAG, "Bundled event schema is unusable", e);
+        }
+    }
+
+    /** Compiles the JSON form described on the class. */
+    @NonNull
+    static EventSchema parse(@NonNull String json) throws JSONException {
+        JSONObject root = new JSONObject(json);
+        EventSchema.Builder builder = new EventSchema.Builder(root.getInt("version"))
+                .allowUnknownEvents("allow".equals(root.optString("unknownEvents", "reject")));
+        JSONObject events = root.getJSONObject("events");
+        for (Iterator<String> names = events.keys(); names.hasNext(); ) {
+            String name = names.next();
+            JSONObject event = events.getJSONObject(name);
+            EventSchema.EventBuilder definition = builder.event(name)
+                    .additionalAttributes(event.optBoolean("additionalAttributes", false));
+            JSONObject attributes = event.optJSONObject("attributes");
+            if (attributes != null) {
+                for (Iterator<String> keys = attributes.keys(); keys.hasNext(); ) {
+                    String key = keys.next();
+                    addAttribute(definition, key, attributes.getJSONObject(key));
+                }
+            }
+            definition.done();
+        }
+        return builder.build();
+    }
+
+    private static void addAttribute(@NonNull EventSchema.EventBuilder event, @NonNull String key,
+                                     @NonNull JSONObject rule) throws JSONException {
+        boolean required = rule.optBoolean("required", false);
+        String type = rule.getString("type");
+        switch (type) {
+            case "integer":
+                event.integer(key, required, rule.optLong("min", Long.MIN_VALUE), rule.optLong("max", Long.MAX_VALUE));
+                break;
+            case "string":
+                List<String> values = null;
+                JSONArray allowed = rule.optJSONArray("values");
+                if (allowed != null) {
+                    values = new ArrayList<>(allowed.length());
+                    for (int i = 0; i < allowed.length(); i++) {
+                        values.add(allowed.getString(i));
+                    }
+                }
+                event.string(key, required, rule.optInt("maxLength", 256), values);
+                break;
+            case "boolean":
+                event.bool(key, required);
+                break;
+            default:
+                throw new JSONException("Unknown attribute type '" + type + "' for " + key);
+        }
+    }
+
+    @NonNull
+    private static String read(@NonNull InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,433 @@
+package com.pushwoosh.demoapp.inbox;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * In-memory inverted index over inbox message titles and bodies, kept current one message at a time:
+ * {@link #put} when a message arrives or changes, and {@link #retainAll} with the codes of a full inbox
+ * load to drop deleted ones — the SDK's inbox UI reports deletes to no one, so a load is the only way
+ * to learn of them.
+ * <p>
+ * A query matches messages that contain every one of its terms; the last term also matches as a
+ * prefix once it is {@link #MIN_PREFIX_LENGTH} characters long, so results follow the user's typing.
+ * Matches are scored tf-idf style, with title occurrences weighted {@link #TITLE_WEIGHT} times body
+ * ones and prefix expansions slightly below exact terms; ties go to the message indexed last.
+ * {@link #search} keeps its working arrays between calls and only allocates the hits it returns.
+ * <p>
+ * Thread-safe; searches are meant for a background thread.
+ */
+public final class InboxSearchIndex {
+
+    /** One search result, with what is needed to show it. */
+    public static final class Hit {
+        @NonNull public final String code;
+        @NonNull public final String title;
+        @NonNull public final String body;
+        public final float score;
+
+        Hit(@NonNull String code, @NonNull String title, @NonNull String body, float score) {
+            this.code = code;
+            this.title = title;
+            this.body = body;
+            this.score = score;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return code + "=" + score;
+        }
+    }
+
+    static final float TITLE_WEIGHT = 3f;
+    static final int MIN_PREFIX_LENGTH = 2;
+
+    // Prefix expansions score a little below the exact term so "pro" ranks "pro" above "promo".
+    private static final float PREFIX_EXPANSION_WEIGHT = 0.8f;
+
+    private static InboxSearchIndex instance;
+
+    private final Map<String, Integer> slotsByCode = new HashMap<>();
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+
+    // Per-slot document data; freed slots are reused so the arrays stay as large as the live set.
+    private String[] codes = new String[64];
+    private String[] titles = new String[64];
+    private String[] bodies = new String[64];
+    private String[][] slotTerms = new String[64][];
+    private long[] sequences = new long[64];
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    private int slotCount;
+    private long nextSequence;
+
+    // Search scratch, valid for one search generation.
+    private float[] scores = new float[64];
+    private int[] matchedTerms = new int[64];
+    private int[] stamps = new int[64];
+    private int[] candidates = new int[64];
+    private int candidateCount;
+    private int generation;
+
+    @NonNull
+    public static synchronized InboxSearchIndex getInstance() {
+        if (instance == null) {
+            instance = new InboxSearchIndex();
+        }
+        return instance;
+    }
+
+    /** A private index, e.g. for a benchmark; the app shares {@link #getInstance()}. */
+    @VisibleForTesting
+    public InboxSearchIndex() {
+    }
+
+    /**
+     * Adds a message, or re-indexes it if its title or body changed.
+     *
+     * @return true if the index changed
+     */
+    public synchronized boolean put(@NonNull String code, @Nullable String title, @Nullable String body) {
+        title = title != null ? title : "";
+        body = body != null ? body : "";
+        long sequence;
+        Integer existing = slotsByCode.get(code);
+        if (existing != null) {
+            if (titles[existing].equals(title) && bodies[existing].equals(body)) {
+                return false;
+            }
+            sequence = sequences[existing];
+            removeSlot(existing);
+        } else {
+            sequence = nextSequence++;
+        }
+
+        Map<String, Float> weights = new HashMap<>();
+        addTokens(title, TITLE_WEIGHT, weights);
+        addTokens(body, 1f, weights);
+
+        int slot = allocateSlot();
+        String[] docTerms = new String[weights.size()];
+        int i = 0;
+        for (Map.Entry<String, Float> entry : weights.entrySet()) {
+            String term = entry.getKey();
+            Postings postings = terms.get(term);
+            if (postings == null) {
+                postings = new Postings();
+                terms.put(term, postings);
+            }
+            // Dampened so a word repeated ten times does not outweigh ten different matching words.
+            postings.add(slot, (float) (1 + Math.log(entry.getValue())));
+            docTerms[i++] = term;
+        }
+        codes[slot] = code;
+        titles[slot] = title;
+        bodies[slot] = body;
+        slotTerms[slot] = docTerms;
+        sequences[slot] = sequence;
+        slotsByCode.put(code, slot);
+        return true;
+    }
+
+    /** Removes every message whose code is not in {@code codes}, e.g. after a full inbox load. */
+    public synchronized int retainAll(@NonNull Collection<String> codes) {
+        Set<String> keep = new HashSet<>(codes);
+        int removed = 0;
+        Iterator<Map.Entry<String, Integer>> it = slotsByCode.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Integer> entry = it.next();
+            if (!keep.contains(entry.getKey())) {
+                int slot = entry.getValue();
+                it.remove();
+                unindexSlot(slot);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public synchronized int size() {
+        return slotsByCode.size();
+    }
+
+    @VisibleForTesting
+    synchronized int termCount() {
+        return terms.size();
+    }
+
+    /**
+     * @return up to {@code limit} best matches for {@code query}, best first; empty if nothing
+     *         matches or the query has no terms
+     */
+    @NonNull
+    public synchronized List<Hit> search(@NonNull String query, int limit) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty() || limit <= 0 || slotsByCode.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // Exact terms rarest first so the candidate set starts small; the prefix term goes last.
+        String last = tokens.get(tokens.size() - 1);
+        boolean prefix = last.length() >= MIN_PREFIX_LENGTH;
+        List<String> exact = prefix ? tokens.subList(0, tokens.size() - 1) : tokens;
+        List<Postings> exactPostings = new ArrayList<>(exact.size());
+        for (String token : exact) {
+            Postings postings = terms.get(token);
+            if (postings == null) {
+                return Collections.emptyList();
+            }
+            exactPostings.add(postings);
+        }
+        Collections.sort(exactPostings, (a, b) -> Integer.compare(a.size, b.size));
+
+        beginGeneration();
+        int step = 0;
+        for (Postings postings : exactPostings) {
+            accumulate(postings, step++, 1f);
+        }
+        if (prefix) {
+            String end = last + Character.MAX_VALUE;
+            for (Map.Entry<String, Postings> entry : terms.subMap(last, true, end, false).entrySet()) {
+                accumulate(entry.getValue(), step, entry.getKey().equals(last) ? 1f : PREFIX_EXPANSION_WEIGHT);
+            }
+            step++;
+        }
+        return topHits(step, limit);
+    }
+
+    /** Adds {@code postings}' score to candidates that matched all {@code step} earlier terms. */
+    private void accumulate(@NonNull Postings postings, int step, float weight) {
+        float idf = (float) Math.log(1 + (double) slotsByCode.size() / postings.size) * weight;
+        int gen = generation;
+        for (int i = 0; i < postings.size; i++) {
+            int slot = postings.slots[i];
+            if (stamps[slot] != gen) {
+                if (step != 0) {
+                    continue;
+                }
+                stamps[slot] = gen;
+                matchedTerms[slot] = 0;
+                scores[slot] = 0;
+                candidates[candidateCount++] = slot;
+            }
+            int matched = matchedTerms[slot];
+            if (matched == step) {
+                matchedTerms[slot] = step + 1;
+            } else if (matched != step + 1) {
+                // Missed an earlier term.
+                continue;
+            }
+            scores[slot] += postings.weights[i] * idf;
+        }
+    }
+
+    @NonNull
+    private List<Hit> topHits(int required, int limit) {
+        // Min-heap of the best `limit` slots, worst on top.
+        int[] heap = new int[Math.min(limit, candidateCount)];
+        int heapSize = 0;
+        for (int i = 0; i < candidateCount; i++) {
+            int slot = candidates[i];
+            if (matchedTerms[slot] != required) {
+                continue;
+            }
+            if (heapSize < heap.length) {
+                heap[heapSize] = slot;
+                siftUp(heap, heapSize++);
+            } else if (better(slot, heap[0])) {
+                heap[0] = slot;
+                siftDown(heap, heapSize);
+            }
+        }
+
+        Hit[] hits = new Hit[heapSize];
+        for (int i = heapSize - 1; i >= 0; i--) {
+            int slot = heap[0];
+            hits[i] = new Hit(codes[slot], titles[slot], bodies[slot], scores[slot]);
+            heap[0] = heap[i];
+            siftDown(heap, i);
+        }
+        return Arrays.asList(hits);
+    }
+
+    private boolean better(int a, int b) {
+        if (scores[a] != scores[b]) {
+            return scores[a] > scores[b];
+        }
+        return sequences[a] > sequences[b];
+    }
+
+    private void siftUp(int[] heap, int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (!better(heap[parent], heap[i])) {
+                break;
+            }
+            swap(heap, parent, i);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int[] heap, int size) {
+        int i = 0;
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) {
+                break;
+            }
+            int worst = left;
+            int right = left + 1;
+            if (right < size && better(heap[left], heap[right])) {
+                worst = right;
+            }
+            if (!better(heap[i], heap[worst])) {
+                break;
+            }
+            swap(heap, i, worst);
+            i = worst;
+        }
+    }
+
+    private static void swap(int[] heap, int a, int b) {
+        int t = heap[a];
+        heap[a] = heap[b];
+        heap[b] = t;
+    }
+
+    private void beginGeneration() {
+        candidateCount = 0;
+        if (++generation == 0) {
+            // Wrapped: stale stamps could collide with the new generation.
+            Arrays.fill(stamps, 0);
+            generation = 1;
+        }
+    }
+
+    private void removeSlot(int slot) {
+        slotsByCode.remove(codes[slot]);
+        unindexSlot(slot);
+    }
+
+    private void unindexSlot(int slot) {
+        for (String term : slotTerms[slot]) {
+            Postings postings = terms.get(term);
+            if (postings != null && postings.remove(slot) && postings.size == 0) {
+                terms.remove(term);
+            }
+        }
+        codes[slot] = null;
+        titles[slot] = null;
+        bodies[slot] = null;
+        slotTerms[slot] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (slotCount == codes.length) {
+            int capacity = slotCount * 2;
+            codes = Arrays.copyOf(codes, capacity);
+            titles = Arrays.copyOf(titles, capacity);
+            bodies = Arrays.copyOf(bodies, capacity);
+            slotTerms = Arrays.copyOf(slotTerms, capacity);
+            sequences = Arrays.copyOf(sequences, capacity);
+            scores = Arrays.copyOf(scores, capacity);
+            matchedTerms = Arrays.copyOf(matchedTerms, capacity);
+            stamps = Arrays.copyOf(stamps, capacity);
+            candidates = Arrays.copyOf(candidates, capacity);
+        }
+        return slotCount++;
+    }
+
+    private static void addTokens(@NonNull String text, float weight, @NonNull Map<String, Float> weights) {
+        scan(text, token -> {
+            Float current = weights.get(token);
+            weights.put(token, current != null ? current + weight : weight);
+        });
+    }
+
+    /** Distinct query terms, in order of appearance. */
+    @NonNull
+    static List<String> tokenize(@NonNull String text) {
+        List<String> tokens = new ArrayList<>();
+        scan(text, token -> {
+            if (!tokens.contains(token)) {
+                tokens.add(token);
+            }
+        });
+        return tokens;
+    }
+
+    /** Splits {@code text} into lower-cased runs of letters and digits. */
+    private static void scan(@NonNull String text, @NonNull TokenSink sink) {
+        StringBuilder token = new StringBuilder();
+        for (int i = 0, n = text.length(); i <= n; i++) {
+            char c = i < n ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                token.append(Character.toLowerCase(c));
+            } else if (token.length() > 0) {
+                sink.accept(token.toString());
+                token.setLength(0);
+            }
+        }
+    }
+
+    private interface TokenSink {
+        void accept(@NonNull String token);
+    }
+
+    /** Slots containing one term, ascending, with the term's weight in each. */
+    private static final class Postings {
+        int[] slots = new int[4];
+        float[] weights = new float[4];
+        int size;
+
+        void add(int slot, float weight) {
+            int at = Arrays.binarySearch(slots, 0, size, slot);
+            if (at >= 0) {
+                weights[at] = weight;
+                return;
+            }
+            at = -at - 1;
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            System.arraycopy(slots, at, slots, at + 1, size - at);
+            System.arraycopy(weights, at, weights, at + 1, size - at);
+            slots[at] = slot;
+            weights[at] = weight;
+            size++;
+        }
+
+        boolean remove(int slot) {
+            int at = Arrays.binarySearch(slots, 0, size, slot);
+            if (at < 0) {
+                return false;
+            }
+            System.arraycopy(slots, at + 1, slots, at, size - at - 1);
+            System.arraycopy(weights, at + 1, weights, at, size - at - 1);
+            size--;
+            return true;
+        }
+    }
+}
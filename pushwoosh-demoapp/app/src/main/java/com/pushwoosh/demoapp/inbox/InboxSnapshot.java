@@ -0,0 +1,198 @@
+package com.pushwoosh.demoapp.inbox;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * The first {@link #MAX_MESSAGES} inbox messages as a small binary file, so the Inbox tab can show
+ * rows before the inbox itself has loaded.
+ * <p>
+ * Layout, big-endian:
+ * <pre>
+ *   int    magic 'PWIS'
+ *   int    version
+ *   long   written at, epoch millis
+ *   int    count
+ *   int[]  count record offsets from the start of the file
+ *   record count times: code, title, body, each an int byte length and UTF-8 bytes
+ * </pre>
+ * {@link #read} memory-maps the file and checks that every record's fields fit in it, but decodes a
+ * row only when it is asked for, so {@link #get} cannot fail on a damaged file. {@link #write} goes to a temporary file that
+ * is synced and renamed over the old one: a reader sees the previous snapshot or the new one, never a
+ * torn write.
+ */
+public final class InboxSnapshot {
+
+    /** One message as stored in the snapshot. */
+    public static final class Row {
+        @NonNull public final String code;
+        @NonNull public final String title;
+        @NonNull public final String body;
+
+        public Row(@NonNull String code, @Nullable String title, @Nullable String body) {
+            this.code = code;
+            this.title = title != null ? title : "";
+            this.body = body != null ? body : "";
+        }
+    }
+
+    static final int MAX_MESSAGES = 50;
+
+    private static final int MAGIC = 0x50574953; // "PWIS"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 4;
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final long writtenAtMillis;
+
+    private InboxSnapshot(@NonNull ByteBuffer buffer, int count, long writtenAtMillis) {
+        this.buffer = buffer;
+        this.count = count;
+        this.writtenAtMillis = writtenAtMillis;
+    }
+
+    /**
+     * @return the snapshot in {@code file}, or null if there is none yet
+     * @throws IOException if the file cannot be read or is not a valid snapshot
+     */
+    @WorkerThread
+    @Nullable
+    public static InboxSnapshot read(@NonNull File file) throws IOException {
+        if (!file.isFile()) {
+            return null;
+        }
+        ByteBuffer buffer;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            // The mapping stays valid after the channel is closed.
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not an inbox snapshot: " + file);
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported inbox snapshot version " + buffer.getInt(4));
+        }
+        long writtenAt = buffer.getLong(8);
+        int count = buffer.getInt(16);
+        if (count < 0 || count > MAX_MESSAGES || HEADER_BYTES + 4L * count > buffer.capacity()) {
+            throw new IOException("Corrupt inbox snapshot: " + count + " rows in " + buffer.capacity() + " bytes");
+        }
+        for (int i = 0; i < count; i++) {
+            int offset = buffer.getInt(HEADER_BYTES + 4 * i);
+            if (offset < HEADER_BYTES + 4 * count || offset >= buffer.capacity()) {
+                throw new IOException("Corrupt inbox snapshot: row " + i + " at " + offset);
+            }
+            checkRecord(buffer, i, offset);
+        }
+        return new InboxSnapshot(buffer, count, writtenAt);
+    }
+
+    /**
+     * Atomically replaces {@code file} with the first {@link #MAX_MESSAGES} of {@code rows}.
+     *
+     * @return the size of the written file in bytes
+     */
+    @WorkerThread
+    public static int write(@NonNull File file, @NonNull List<Row> rows, long nowMillis) throws IOException {
+        int count = Math.min(rows.size(), MAX_MESSAGES);
+        byte[][] fields = new byte[count * 3][];
+        int size = HEADER_BYTES + 4 * count;
+        for (int i = 0; i < count; i++) {
+            Row row = rows.get(i);
+            fields[3 * i] = row.code.getBytes(StandardCharsets.UTF_8);
+            fields[3 * i + 1] = row.title.getBytes(StandardCharsets.UTF_8);
+            fields[3 * i + 2] = row.body.getBytes(StandardCharsets.UTF_8);
+            size += 12 + fields[3 * i].length + fields[3 * i + 1].length + fields[3 * i + 2].length;
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(size);
+        out.putInt(MAGIC).putInt(VERSION).putLong(nowMillis).putInt(count);
+        int offset = HEADER_BYTES + 4 * count;
+        for (int i = 0; i < count; i++) {
+            out.putInt(offset);
+            offset += 12 + fields[3 * i].length + fields[3 * i + 1].length + fields[3 * i + 2].length;
+        }
+        for (byte[] field : fields) {
+            out.putInt(field.length).put(field);
+        }
+
+        File dir = file.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        File tmp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(tmp)) {
+            stream.write(out.array());
+            stream.getFD().sync();
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Cannot replace " + file);
+        }
+        return size;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /** Size of the file in bytes. */
+    public int bytes() {
+        return buffer.capacity();
+    }
+
+    public long getWrittenAtMillis() {
+        return writtenAtMillis;
+    }
+
+    @NonNull
+    public Row get(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Row " + index + " of " + count);
+        }
+        // Reading through a duplicate keeps concurrent get() calls from sharing a position.
+        ByteBuffer record = buffer.duplicate();
+        record.position(buffer.getInt(HEADER_BYTES + 4 * index));
+        String code = readString(record);
+        String title = readString(record);
+        String body = readString(record);
+        return new Row(code, title, body);
+    }
+
+    /** Walks the code, title and body of the record at {@code offset} without decoding them. */
+    private static void checkRecord(@NonNull ByteBuffer buffer, int row, int offset) throws IOException {
+        long position = offset;
+        for (int field = 0; field < 3; field++) {
+            if (position + 4 > buffer.capacity()) {
+                throw new IOException("Corrupt inbox snapshot: row " + row + " is cut short");
+            }
+            int length = buffer.getInt((int) position);
+            position += 4L + length;
+            if (length < 0 || position > buffer.capacity()) {
+                throw new IOException("Corrupt inbox snapshot: row " + row + " has a field of " + length + " bytes");
+            }
+        }
+    }
+
+    @NonNull
+    private static String readString(@NonNull ByteBuffer record) {
+        int length = record.getInt();
+        if (length < 0 || length > record.remaining()) {
+            throw new IllegalStateException("Corrupt inbox snapshot row");
+        }
+        byte[] bytes = new byte[length];
+        record.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,185 @@
+package com.pushwoosh.demoapp.inbox;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.AnyThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.pushwoosh.badge.PushwooshBadge;
+import com.pushwoosh.inbox.PushwooshInbox;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the inbox unread count current without re-reading the inbox on every push: one full count
+ * from {@link PushwooshInbox} to start from, then +1 per inbox push that arrives. Published through
+ * {@link #getUnreadCount()}; the launcher badge follows at most once per {@link #BADGE_WINDOW_MS}.
+ * <p>
+ * Reads and deletes happen inside the SDK's inbox UI, and the public {@link PushwooshInbox} API has no
+ * observer that reports them, so they are only picked up by a {@link #refresh()} once the inbox screen
+ * is left. Arrivals are deduplicated by id, so a redelivered push counts once. A {@link #refresh()}
+ * result is authoritative: changes recorded while it was in flight are assumed to be part of it and
+ * are dropped. Every method may be called from any thread; state is only touched on the main thread.
+ */
+public final class UnreadCountTracker {
+
+    /** Reads the full unread count; the callback may arrive on any thread. */
+    interface CountSource {
+        void unreadCount(@NonNull CountCallback callback);
+    }
+
+    interface CountCallback {
+        /** @param count the unread count, or null if it could not be read */
+        void onCount(@Nullable Integer count);
+    }
+
+    interface Badge {
+        void set(int count);
+    }
+
+    /** Main-thread delayed execution; a seam so tests can drive time by hand. */
+    interface Scheduler {
+        void postDelayed(@NonNull Runnable task, long delayMs);
+    }
+
+    static final long BADGE_WINDOW_MS = 1_000;
+
+    // Ids remembered for deduplication; older ones are forgotten first.
+    private static final int MAX_REMEMBERED_IDS = 512;
+
+    private static UnreadCountTracker instance;
+
+    private final CountSource source;
+    private final Badge badge;
+    private final Scheduler scheduler;
+    private final MutableLiveData<Integer> unread = new MutableLiveData<>();
+    private final Map<String, Boolean> arrived = boundedIdSet();
+    private final Runnable updateBadge = this::updateBadge;
+
+    private int count;
+    private boolean known;
+    private int refreshGeneration;
+    private boolean badgeScheduled;
+    private int badgeCount = -1;
+    private int refreshCount;
+
+    @NonNull
+    public static synchronized UnreadCountTracker getInstance() {
+        if (instance == null) {
+            instance = new UnreadCountTracker(new InboxCountSource(), PushwooshBadge::setBadgeNumber, new HandlerScheduler());
+        }
+        return instance;
+    }
+
+    @VisibleForTesting
+    UnreadCountTracker(@NonNull CountSource source, @NonNull Badge badge, @NonNull Scheduler scheduler) {
+        this.source = source;
+        this.badge = badge;
+        this.scheduler = scheduler;
+    }
+
+    /** Unread count; empty until the first {@link #refresh()} completes. */
+    @NonNull
+    public LiveData<Integer> getUnreadCount() {
+        return unread;
+    }
+
+    /** Re-reads the full count from the inbox. Needed once at start and after the inbox UI was used. */
+    @AnyThread
+    public void refresh() {
+        onMain(() -> {
+            int generation = ++refreshGeneration;
+            refreshCount++;
+            source.unreadCount(result -> onMain(() -> {
+                if (generation != refreshGeneration || result == null) {
+                    return;
+                }
+                set(result);
+            }));
+        });
+    }
+
+    /** An inbox message arrived by push; {@code id} is its push hash or inbox code, if known. */
+    @AnyThread
+    public void onMessageArrived(@Nullable String id) {
+        onMain(() -> {
+            if (id != null && arrived.put(id, Boolean.TRUE) != null) {
+                return;
+            }
+            adjust(+1);
+        });
+    }
+
+    /** Number of full inbox counts requested so far. */
+    @VisibleForTesting
+    int getRefreshCount() {
+        return refreshCount;
+    }
+
+    private void adjust(int delta) {
+        if (!known) {
+            // No baseline yet: the pending refresh result will include this change.
+            return;
+        }
+        set(count + delta);
+    }
+
+    private void set(int newCount) {
+        newCount = Math.max(0, newCount);
+        boolean changed = !known || newCount != count;
+        known = true;
+        count = newCount;
+        if (!changed) {
+            return;
+        }
+        unread.setValue(newCount);
+        if (!badgeScheduled) {
+            badgeScheduled = true;
+            scheduler.postDelayed(updateBadge, BADGE_WINDOW_MS);
+        }
+    }
+
+    private void updateBadge() {
+        badgeScheduled = false;
+        if (count != badgeCount) {
+            badgeCount = count;
+            badge.set(count);
+        }
+    }
+
+    private void onMain(@NonNull Runnable task) {
+        scheduler.postDelayed(task, 0);
+    }
+
+    @NonNull
+    private static Map<String, Boolean> boundedIdSet() {
+        return new LinkedHashMap<String, Boolean>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > MAX_REMEMBERED_IDS;
+            }
+        };
+    }
+
+    private static class InboxCountSource implements CountSource {
+        @Override
+        public void unreadCount(@NonNull CountCallback callback) {
+            PushwooshInbox.unreadMessagesCount(result -> callback.onCount(result.isSuccess() ? result.getData() : null));
+        }
+    }
+
+    private static class HandlerScheduler implements Scheduler {
+        private final Handler handler = new Handler(Looper.getMainLooper());
+
+        @Override
+        public void postDelayed(@NonNull Runnable task, long delayMs) {
+            handler.postDelayed(task, delayMs);
+        }
+    }
+}
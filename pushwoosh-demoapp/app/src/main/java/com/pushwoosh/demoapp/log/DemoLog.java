@@ -0,0 +1,280 @@
+package com.pushwoosh.demoapp.log;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.os.Bundle;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.pushwoosh.internal.utils.PWLog;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Structured logging for the demo's own code.
+ * <p>
+ * Messages are SLF4J-style templates ({@code "caller={}, video={}"}); arguments are only turned into
+ * a string when the level is enabled, so a disabled call costs a comparison. Arguments that are
+ * expensive to build can be passed as a {@link Lazy}. The threshold comes from the same
+ * {@code com.pushwoosh.log_level} manifest value the SDK reads.
+ * <p>
+ * Each enabled message is forwarded to {@link PWLog} (logcat) and written to a lock-free in-memory
+ * ring of the last {@link #RING_CAPACITY} entries. A background thread appends new ring entries to a
+ * rotating file under {@code files/logs/} every {@link #FLUSH_INTERVAL_MS}; the calling thread never
+ * touches disk. {@link #dump()} returns the ring for bug reports; the diagnostics screen's export
+ * includes it.
+ */
+public final class DemoLog {
+
+    /** Same names and order as the SDK's {@code com.pushwoosh.log_level} values. */
+    public enum Level {
+        NONE('-'),
+        ERROR('E'),
+        WARN('W'),
+        INFO('I'),
+        DEBUG('D'),
+        NOISE('V');
+
+        final char code;
+
+        Level(char code) {
+            this.code = code;
+        }
+    }
+
+    /** Argument whose value is only computed if the message is actually formatted. */
+    public interface Lazy {
+        Object get();
+    }
+
+    static final int RING_CAPACITY = 1024;
+    static final long FLUSH_INTERVAL_MS = 2_000;
+    private static final long MAX_FILE_BYTES = 256 * 1024;
+
+    private static final LogRingBuffer ring = new LogRingBuffer(RING_CAPACITY);
+    private static volatile Level level = Level.INFO;
+
+    @Nullable private static ScheduledExecutorService flusher;
+    @Nullable private static RotatingLogFile file;
+    // Flusher-thread state only.
+    private static long flushedSeq;
+    private static long droppedEntries;
+
+    private DemoLog() {
+    }
+
+    /** Reads the level from the manifest and starts the background file flusher. Call once from the Application. */
+    public static synchronized void init(@NonNull Context context) {
+        level = readManifestLevel(context);
+        if (flusher != null) {
+            return;
+        }
+        Context app = context.getApplicationContext();
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "DemoLog-flusher");
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        // Looking up the files directory touches the disk, so it happens on the flusher too.
+        flusher.execute(() -> file = new RotatingLogFile(new File(app.getFilesDir(), "logs"), "demo.log", MAX_FILE_BYTES));
+        flusher.scheduleWithFixedDelay(DemoLog::flushToFile, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public static boolean isEnabled(@NonNull Level messageLevel) {
+        return messageLevel != Level.NONE && messageLevel.ordinal() <= level.ordinal();
+    }
+
+    public static void debug(@NonNull String tag, @NonNull String message) {
+        if (isEnabled(Level.DEBUG)) {
+            log(Level.DEBUG, tag, message, null);
+        }
+    }
+
+    public static void debug(@NonNull String tag, @NonNull String template, @Nullable Object arg) {
+        if (isEnabled(Level.DEBUG)) {
+            log(Level.DEBUG, tag, format(template, arg), null);
+        }
+    }
+
+    public static void debug(@NonNull String tag, @NonNull String template, @Nullable Object arg1, @Nullable Object arg2) {
+        if (isEnabled(Level.DEBUG)) {
+            log(Level.DEBUG, tag, format(template, arg1, arg2), null);
+        }
+    }
+
+    public static void info(@NonNull String tag, @NonNull String message) {
+        if (isEnabled(Level.INFO)) {
+            log(Level.INFO, tag, message, null);
+        }
+    }
+
+    public static void info(@NonNull String tag, @NonNull String template, @Nullable Object arg) {
+        if (isEnabled(Level.INFO)) {
+            log(Level.INFO, tag, format(template, arg), null);
+        }
+    }
+
+    public static void info(@NonNull String tag, @NonNull String template, @Nullable Object arg1, @Nullable Object arg2) {
+        if (isEnabled(Level.INFO)) {
+            log(Level.INFO, tag, format(template, arg1, arg2), null);
+        }
+    }
+
+    public static void info(@NonNull String tag, @NonNull String template, Object... args) {
+        if (isEnabled(Level.INFO)) {
+            log(Level.INFO, tag, format(template, args), null);
+        }
+    }
+
+    public static void warn(@NonNull String tag, @NonNull String message) {
+        if (isEnabled(Level.WARN)) {
+            log(Level.WARN, tag, message, null);
+        }
+    }
+
+    public static void warn(@NonNull String tag, @NonNull String template, @Nullable Object arg) {
+        if (isEnabled(Level.WARN)) {
+            log(Level.WARN, tag, format(template, arg), null);
+        }
+    }
+
+    public static void warn(@NonNull String tag, @NonNull String template, @Nullable Object arg1, @Nullable Object arg2) {
+        if (isEnabled(Level.WARN)) {
+            log(Level.WARN, tag, format(template, arg1, arg2), null);
+        }
+    }
+
+    public static void error(@NonNull String tag, @NonNull String message, @Nullable Throwable throwable) {
+        if (isEnabled(Level.ERROR)) {
+            log(Level.ERROR, tag, message, throwable);
+        }
+    }
+
+    public static void error(@NonNull String tag, @NonNull String template, @Nullable Object arg, @Nullable Throwable throwable) {
+        if (isEnabled(Level.ERROR)) {
+            log(Level.ERROR, tag, format(template, arg), throwable);
+        }
+    }
+
+    public static void error(@NonNull String tag, @NonNull String template, @Nullable Object arg1, @Nullable Object arg2,
+                             @Nullable Throwable throwable) {
+        if (isEnabled(Level.ERROR)) {
+            log(Level.ERROR, tag, format(template, arg1, arg2), throwable);
+        }
+    }
+
+    /** The ring's current contents, oldest first, one line per entry. Safe to call from any thread. */
+    @NonNull
+    public static String dump() {
+        List<LogRingBuffer.Entry> entries = ring.read(0);
+        StringBuilder out = new StringBuilder(entries.size() * 96);
+        SimpleDateFormat timeFormat = new SimpleDateFormat("MM-dd HH:mm:ss.SSS", Locale.US);
+        for (LogRingBuffer.Entry entry : entries) {
+            appendLine(out, entry, timeFormat);
+        }
+        return out.toString();
+    }
+
+    /** Substitutes each {@code {}} in {@code template} with the next argument. */
+    @NonNull
+    @VisibleForTesting
+    static String format(@NonNull String template, Object... args) {
+        StringBuilder out = new StringBuilder(template.length() + 16 * args.length);
+        int argIndex = 0;
+        int start = 0;
+        int at;
+        while (argIndex < args.length && (at = template.indexOf("{}", start)) >= 0) {
+            out.append(template, start, at);
+            Object arg = args[argIndex++];
+            out.append(arg instanceof Lazy ? ((Lazy) arg).get() : arg);
+            start = at + 2;
+        }
+        out.append(template, start, template.length());
+        return out.toString();
+    }
+
+    private static void log(@NonNull Level messageLevel, @NonNull String tag, @NonNull String message, @Nullable Throwable throwable) {
+        ring.write(System.currentTimeMillis(), messageLevel.code, tag, message, throwable);
+        switch (messageLevel) {
+            case ERROR:
+                PWLog.error(tag, message, throwable);
+                break;
+            case WARN:
+                PWLog.warn(tag, message);
+                break;
+            case INFO:
+                PWLog.info(tag, message);
+                break;
+            default:
+                PWLog.debug(tag, message);
+                break;
+        }
+    }
+
+    private static void flushToFile() {
+        long head = ring.head();
+        if (head == flushedSeq || file == null) {
+            return;
+        }
+        // Stops at an entry that is claimed but not yet published; the next flush resumes from it.
+        List<LogRingBuffer.Entry> entries = ring.readPublished(flushedSeq);
+        StringBuilder out = new StringBuilder(entries.size() * 96);
+        SimpleDateFormat timeFormat = new SimpleDateFormat("MM-dd HH:mm:ss.SSS", Locale.US);
+        for (LogRingBuffer.Entry entry : entries) {
+            if (entry.seq > flushedSeq) {
+                droppedEntries += entry.seq - flushedSeq;
+                out.append("--- ").append(entry.seq - flushedSeq).append(" entries overwritten before flush (")
+                        .append(droppedEntries).append(" total) ---\n");
+            }
+            appendLine(out, entry, timeFormat);
+            flushedSeq = entry.seq + 1;
+        }
+        try {
+            file.append(out);
+        } catch (IOException e) {
+            PWLog.error("DemoLog", "Failed to write log file", e);
+        }
+    }
+
+    private static void appendLine(@NonNull StringBuilder out, @NonNull LogRingBuffer.Entry entry, @NonNull SimpleDateFormat timeFormat) {
+        out.append(timeFormat.format(new Date(entry.timeMs)))
+                .append(' ').append(entry.level)
+                .append(' ').append(entry.tag)
+                .append(": ").append(entry.message)
+                .append('\n');
+        if (entry.throwable != null) {
+            StringWriter trace = new StringWriter();
+            entry.throwable.printStackTrace(new PrintWriter(trace));
+            out.append(trace);
+        }
+    }
+
+    @NonNull
+    private static Level readManifestLevel(@NonNull Context context) {
+        try {
+            ApplicationInfo info = context.getPackageManager()
+                    .getApplicationInfo(context.getPackageName(), PackageManager.GET_META_DATA);
+            Bundle metaData = info.metaData;
+            String value = metaData != null ? metaData.getString("com.pushwoosh.log_level") : null;
+            if (value != null) {
+                return Level.valueOf(value.trim().toUpperCase(Locale.US));
+            }
+        } catch (PackageManager.NameNotFoundException | IllegalArgumentException e) {
+            PWLog.warn("DemoLog", "Unrecognized com.pushwoosh.log_level, using " + Level.INFO);
+        }
+        return Level.INFO;
+    }
+}
@@ -0,0 +1,112 @@
+package com.pushwoosh.demoapp.log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-size in-memory log, safe for any number of concurrent writers without locks.
+ * <p>
+ * A writer claims a sequence number with one atomic increment and publishes its entry into slot
+ * {@code seq % capacity}; once the buffer wraps, new entries overwrite the oldest. Readers never
+ * block writers: {@link #read} walks a sequence range and skips slots that were overwritten (their
+ * entry carries a newer sequence) or not yet published; {@link #readPublished} stops at the first
+ * unpublished one instead.
+ */
+final class LogRingBuffer {
+
+    static final class Entry {
+        final long seq;
+        final long timeMs;
+        final char level;
+        final String tag;
+        final String message;
+        @Nullable final Throwable throwable;
+
+        Entry(long seq, long timeMs, char level, String tag, String message, @Nullable Throwable throwable) {
+            this.seq = seq;
+            this.timeMs = timeMs;
+            this.level = level;
+            this.tag = tag;
+            this.message = message;
+            this.throwable = throwable;
+        }
+    }
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+
+    /** @param capacity rounded up to a power of two */
+    LogRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        slots = new AtomicReferenceArray<>(size);
+        mask = size - 1;
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    void write(long timeMs, char level, @NonNull String tag, @NonNull String message, @Nullable Throwable throwable) {
+        publish(claim(), timeMs, level, tag, message, throwable);
+    }
+
+    /** Claims the next sequence number; the entry becomes readable once {@link #publish}ed. */
+    long claim() {
+        return head.getAndIncrement();
+    }
+
+    void publish(long seq, long timeMs, char level, @NonNull String tag, @NonNull String message, @Nullable Throwable throwable) {
+        slots.set((int) (seq & mask), new Entry(seq, timeMs, level, tag, message, throwable));
+    }
+
+    /** Sequence number the next write will get. */
+    long head() {
+        return head.get();
+    }
+
+    /**
+     * Entries with sequence numbers in {@code [fromSeq, head())} that are still in the buffer,
+     * oldest first.
+     */
+    @NonNull
+    List<Entry> read(long fromSeq) {
+        long end = head.get();
+        long start = Math.max(fromSeq, end - capacity());
+        List<Entry> entries = new ArrayList<>((int) Math.max(0, end - start));
+        for (long seq = start; seq < end; seq++) {
+            Entry entry = slots.get((int) (seq & mask));
+            if (entry != null && entry.seq == seq) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Like {@link #read}, but stops at the first slot whose writer has claimed its sequence number
+     * and not yet published the entry, so a reader that resumes from the returned entries never
+     * steps past one. Overwritten slots are still skipped.
+     */
+    @NonNull
+    List<Entry> readPublished(long fromSeq) {
+        long end = head.get();
+        long start = Math.max(fromSeq, end - capacity());
+        List<Entry> entries = new ArrayList<>((int) Math.max(0, end - start));
+        for (long seq = start; seq < end; seq++) {
+            Entry entry = slots.get((int) (seq & mask));
+            if (entry == null || entry.seq < seq) {
+                break;
+            }
+            if (entry.seq == seq) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,44 @@
+package com.pushwoosh.demoapp.log;
+
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Append-only log file that rolls over to {@code <name>.1} once it passes {@code maxBytes}, keeping
+ * at most two files on disk. Not thread-safe: only the {@link DemoLog} flusher thread touches it.
+ */
+final class RotatingLogFile {
+
+    private final File current;
+    private final File previous;
+    private final long maxBytes;
+
+    RotatingLogFile(@NonNull File dir, @NonNull String name, long maxBytes) {
+        this.current = new File(dir, name);
+        this.previous = new File(dir, name + ".1");
+        this.maxBytes = maxBytes;
+    }
+
+    void append(@NonNull CharSequence text) throws IOException {
+        File dir = current.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        if (current.length() >= maxBytes) {
+            if (previous.exists() && !previous.delete()) {
+                throw new IOException("Cannot delete " + previous);
+            }
+            if (!current.renameTo(previous)) {
+                throw new IOException("Cannot rotate " + current);
+            }
+        }
+        try (OutputStream out = new FileOutputStream(current, true)) {
+            out.write(text.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.pushwoosh.demoapp.metrics;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide named metrics for the diagnostics screen: {@link LongAdder} counters,
+ * {@link LatencyHistogram}s, {@link RateMeter}s and gauges — {@link AtomicLong}s holding a current
+ * value such as a file size. Metrics are created on first use and never removed,
+ * so callers may keep the returned instances; updating them takes no locks.
+ * <p>
+ * Caches report through {@link #cacheHit} / {@link #cacheMiss}, which keep a {@code cache.<name>.hit}
+ * and {@code cache.<name>.miss} counter pair; the snapshot derives each cache's hit rate from them.
+ */
+public final class MetricsRegistry {
+
+    public static final String SDK_SET_TAGS = "sdk.setTags";
+    public static final String SDK_SET_USER_ID = "sdk.setUserId";
+    public static final String SDK_POST_EVENT = "sdk.postEvent";
+    public static final String PUSH_RECEIVED = "push.received";
+    public static final String PUSH_ROUTE = "push.route";
+    public static final String INAPP_PRESENT = "inapp.present";
+    public static final String HOME_FIRST_FRAME = "home.firstFrame";
+    public static final String INBOX_SEARCH = "inbox.search";
+    public static final String INBOX_FIRST_ROW = "inbox.firstRow";
+    public static final String INBOX_LOAD = "inbox.load";
+    public static final String INBOX_SNAPSHOT_BYTES = "inbox.snapshot.bytes";
+    public static final String INBOX_STYLE_RESOLVE = "inbox.style.resolve";
+    public static final String STORIES_FRAMES = "stories.frames";
+    public static final String STORIES_DOWNLOAD = "stories.download";
+    public static final String VIEW_INFLATE = "views.inflate";
+    public static final String TAGS_READ = "tags.read";
+    public static final String TAGS_CACHE = "tags";
+    public static final String TAGS_RECONCILE = "tags.reconcile";
+    public static final String EVENTS_VALIDATE = "events.validate";
+    public static final String EVENTS_REJECTED = "events.rejected";
+    public static final String PUSH_PROBE = "push.probe";
+    public static final String PUSH_PROBE_CACHED = "push.probe.cached";
+    public static final String PUSH_PROBE_CACHE = "pushProvider";
+    public static final String WEBVIEW_CREATE_COLD = "webview.create.cold";
+
+    private static final String CACHE_PREFIX = "cache.";
+    private static final String HIT_SUFFIX = ".hit";
+    private static final String MISS_SUFFIX = ".miss";
+
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, RateMeter> meters = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> gauges = new ConcurrentHashMap<>();
+
+    @NonNull
+    public static MetricsRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    @VisibleForTesting
+    MetricsRegistry() {
+    }
+
+    @NonNull
+    public LongAdder counter(@NonNull String name) {
+        return counters.computeIfAbsent(name, n -> new LongAdder());
+    }
+
+    @NonNull
+    public LatencyHistogram histogram(@NonNull String name) {
+        return histograms.computeIfAbsent(name, n -> new LatencyHistogram());
+    }
+
+    @NonNull
+    public RateMeter meter(@NonNull String name) {
+        return meters.computeIfAbsent(name, n -> new RateMeter());
+    }
+
+    @NonNull
+    public AtomicLong gauge(@NonNull String name) {
+        return gauges.computeIfAbsent(name, n -> new AtomicLong());
+    }
+
+    public void cacheHit(@NonNull String cache) {
+        counter(CACHE_PREFIX + cache + HIT_SUFFIX).increment();
+    }
+
+    public void cacheMiss(@NonNull String cache) {
+        counter(CACHE_PREFIX + cache + MISS_SUFFIX).increment();
+    }
+
+    @NonNull
+    public Snapshot snapshot() {
+        return new Snapshot(this);
+    }
+
+    /** Point-in-time copy of every metric, sorted by name. */
+    public static final class Snapshot {
+        public final Map<String, Long> counters;
+        public final Map<String, HistogramValue> histograms;
+        public final Map<String, MeterValue> meters;
+        public final Map<String, Long> gauges;
+        /** Hit rate in [0, 1] per cache that has seen at least one lookup. */
+        public final Map<String, Double> cacheHitRates;
+
+        Snapshot(@NonNull MetricsRegistry registry) {
+            Map<String, Long> counters = new TreeMap<>();
+            for (Map.Entry<String, LongAdder> entry : registry.counters.entrySet()) {
+                counters.put(entry.getKey(), entry.getValue().sum());
+            }
+            Map<String, HistogramValue> histograms = new TreeMap<>();
+            for (Map.Entry<String, LatencyHistogram> entry : registry.histograms.entrySet()) {
+                histograms.put(entry.getKey(), new HistogramValue(entry.getValue()));
+            }
+            Map<String, MeterValue> meters = new TreeMap<>();
+            for (Map.Entry<String, RateMeter> entry : registry.meters.entrySet()) {
+                meters.put(entry.getKey(), new MeterValue(entry.getValue()));
+            }
+            Map<String, Long> gauges = new TreeMap<>();
+            for (Map.Entry<String, AtomicLong> entry : registry.gauges.entrySet()) {
+                gauges.put(entry.getKey(), entry.getValue().get());
+            }
+            Map<String, Double> cacheHitRates = new TreeMap<>();
+            for (String name : counters.keySet()) {
+                String cache = cacheName(name);
+                if (cache != null && !cacheHitRates.containsKey(cache)) {
+                    long hits = valueOf(counters, CACHE_PREFIX + cache + HIT_SUFFIX);
+                    long lookups = hits + valueOf(counters, CACHE_PREFIX + cache + MISS_SUFFIX);
+                    if (lookups > 0) {
+                        cacheHitRates.put(cache, (double) hits / lookups);
+                    }
+                }
+            }
+            this.counters = Collections.unmodifiableMap(counters);
+            this.histograms = Collections.unmodifiableMap(histograms);
+            this.meters = Collections.unmodifiableMap(meters);
+            this.gauges = Collections.unmodifiableMap(gauges);
+            this.cacheHitRates = Collections.unmodifiableMap(cacheHitRates);
+        }
+
+        /** {@code cache.<name>.hit} or {@code cache.<name>.miss} to {@code <name>}, anything else to null. */
+        @Nullable
+        private static String cacheName(@NonNull String counter) {
+            if (!counter.startsWith(CACHE_PREFIX)) {
+                return null;
+            }
+            if (counter.endsWith(HIT_SUFFIX)) {
+                return counter.substring(CACHE_PREFIX.length(), counter.length() - HIT_SUFFIX.length());
+            }
+            if (counter.endsWith(MISS_SUFFIX)) {
+                return counter.substring(CACHE_PREFIX.length(), counter.length() - MISS_SUFFIX.length());
+            }
+            return null;
+        }
+
+        private static long valueOf(@NonNull Map<String, Long> counters, @NonNull String name) {
+            Long value = counters.get(name);
+            return value != null ? value : 0;
+        }
+
+        @NonNull
+        public JSONObject toJson() throws JSONException {
+            JSONObject counters = new JSONObject();
+            for (Map.Entry<String, Long> entry : this.counters.entrySet()) {
+                counters.put(entry.getKey(), entry.getValue());
+            }
+            JSONObject histograms = new JSONObject();
+            for (Map.Entry<String, HistogramValue> entry : this.histograms.entrySet()) {
+                HistogramValue value = entry.getValue();
+                histograms.put(entry.getKey(), new JSONObject()
+                        .put("count", value.count)
+                        .put("mean_us", value.meanMicros)
+                        .put("p50_us", value.p50Micros)
+                        .put("p90_us", value.p90Micros)
+                        .put("p99_us", value.p99Micros)
+                        .put("max_us", value.maxMicros));
+            }
+            JSONObject meters = new JSONObject();
+            for (Map.Entry<String, MeterValue> entry : this.meters.entrySet()) {
+                meters.put(entry.getKey(), new JSONObject()
+                        .put("count", entry.getValue().count)
+                        .put("per_second", entry.getValue().ratePerSecond));
+            }
+            JSONObject gauges = new JSONObject();
+            for (Map.Entry<String, Long> entry : this.gauges.entrySet()) {
+                gauges.put(entry.getKey(), entry.getValue());
+            }
+            JSONObject caches = new JSONObject();
+            for (Map.Entry<String, Double> entry : cacheHitRates.entrySet()) {
+                caches.put(entry.getKey(), entry.getValue());
+            }
+            return new JSONObject()
+                    .put("counters", counters)
+                    .put("histograms", histograms)
+                    .put("meters", meters)
+                    .put("gauges", gauges)
+                    .put("cache_hit_rates", caches);
+        }
+    }
+
+    public static final class HistogramValue {
+        public final long count;
+        public final long meanMicros;
+        public final long p50Micros;
+        public final long p90Micros;
+        public final long p99Micros;
+        public final long maxMicros;
+
+        HistogramValue(@NonNull LatencyHistogram histogram) {
+            count = histogram.count();
+            meanMicros = histogram.meanMicros();
+            p50Micros = histogram.percentileMicros(50);
+            p90Micros = histogram.percentileMicros(90);
+            p99Micros = histogram.percentileMicros(99);
+            maxMicros = histogram.maxMicros();
+        }
+    }
+
+    public static final class MeterValue {
+        public final long count;
+        public final double ratePerSecond;
+
+        MeterValue(@NonNull RateMeter meter) {
+            count = meter.count();
+            ratePerSecond = meter.ratePerSecond();
+        }
+    }
+}
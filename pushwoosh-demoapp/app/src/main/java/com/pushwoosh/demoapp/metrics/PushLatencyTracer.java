@@ -0,0 +1,177 @@
+package com.pushwoosh.demoapp.metrics;
+
+import android.os.Build;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.text.TextUtils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Follows each push from the moment it reaches the app to the moment the app has handled its open.
+ * <p>
+ * Every push gets a trace id; {@link #mark} stamps it with {@link SystemClock#elapsedRealtimeNanos()}
+ * at each {@link Stage}. The time between consecutive stages (and the end-to-end time) goes into a
+ * per-{@link Segment} {@link LatencyHistogram}, and each segment is also emitted as an
+ * {@code android.os.Trace} async section named {@code push.<segment>} with the trace id as cookie, so
+ * a Perfetto/systrace capture shows the same spans the histograms count.
+ * <p>
+ * Stages are correlated across callbacks by the push hash, since {@code startActivityForPushMessage}
+ * gets a different {@code PushMessage} instance than {@code onMessageReceived}.
+ */
+public final class PushLatencyTracer {
+
+    /** Points in a push's life, in order. */
+    public enum Stage {
+        /** {@code NotificationServiceExtension.onMessageReceived} entered. */
+        RECEIVED,
+        /** {@code onMessageReceived} returned. */
+        RECEIVE_DONE,
+        /** {@code startActivityForPushMessage} entered (the user opened the push). */
+        OPENED,
+        /** {@code handlePush} finished on the main thread. */
+        HANDLED
+    }
+
+    /** Spans between stages. */
+    public enum Segment {
+        RECEIVE(Stage.RECEIVED, Stage.RECEIVE_DONE),
+        AWAIT_OPEN(Stage.RECEIVE_DONE, Stage.OPENED),
+        OPEN_TO_HANDLED(Stage.OPENED, Stage.HANDLED),
+        END_TO_END(Stage.RECEIVED, Stage.HANDLED);
+
+        final Stage from;
+        final Stage to;
+        final String sectionName;
+
+        Segment(Stage from, Stage to) {
+            this.from = from;
+            this.to = to;
+            this.sectionName = "push." + name().toLowerCase(Locale.US);
+        }
+    }
+
+    // Pushes that are never opened would otherwise accumulate forever.
+    private static final int MAX_OPEN_TRACES = 256;
+
+    private static final PushLatencyTracer instance = new PushLatencyTracer();
+
+    private final EnumMap<Segment, LatencyHistogram> histograms = new EnumMap<>(Segment.class);
+    private final LinkedHashMap<String, PushTrace> traces = new LinkedHashMap<>();
+    private final AtomicInteger nextTraceId = new AtomicInteger(1);
+
+    @NonNull
+    public static PushLatencyTracer getInstance() {
+        return instance;
+    }
+
+    private PushLatencyTracer() {
+        for (Segment segment : Segment.values()) {
+            histograms.put(segment, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Stamps {@code stage} for the push identified by {@code pushHash}.
+     *
+     * @return the push's trace id
+     */
+    public int mark(@Nullable String pushHash, @NonNull Stage stage) {
+        long now = SystemClock.elapsedRealtimeNanos();
+        PushTrace trace;
+        synchronized (traces) {
+            trace = TextUtils.isEmpty(pushHash) ? null : traces.get(pushHash);
+            if (trace == null || trace.at(stage) != 0) {
+                // Unknown push, or the same push delivered again: start a fresh trace.
+                trace = new PushTrace(nextTraceId.getAndIncrement());
+                if (!TextUtils.isEmpty(pushHash)) {
+                    traces.put(pushHash, trace);
+                    evictOldest();
+                }
+            }
+            trace.stamp(stage, now);
+            if (stage == Stage.HANDLED && !TextUtils.isEmpty(pushHash)) {
+                traces.remove(pushHash);
+            }
+        }
+
+        for (Segment segment : Segment.values()) {
+            if (segment.to == stage) {
+                long start = trace.at(segment.from);
+                if (start != 0) {
+                    histograms.get(segment).recordNanos(now - start);
+                    endSection(segment, trace.id);
+                }
+            }
+            if (segment.from == stage) {
+                beginSection(segment, trace.id);
+            }
+        }
+        return trace.id;
+    }
+
+    @NonNull
+    public LatencyHistogram getHistogram(@NonNull Segment segment) {
+        return histograms.get(segment);
+    }
+
+    /** One line per segment with its percentiles. */
+    @NonNull
+    public String summary() {
+        StringBuilder out = new StringBuilder();
+        for (Map.Entry<Segment, LatencyHistogram> entry : histograms.entrySet()) {
+            out.append(entry.getKey().sectionName).append(": ").append(entry.getValue().summary()).append('\n');
+        }
+        return out.toString();
+    }
+
+    private void evictOldest() {
+        Iterator<PushTrace> it = traces.values().iterator();
+        while (traces.size() > MAX_OPEN_TRACES && it.hasNext()) {
+            PushTrace stale = it.next();
+            it.remove();
+            for (Segment segment : Segment.values()) {
+                if (stale.at(segment.from) != 0 && stale.at(segment.to) == 0) {
+                    endSection(segment, stale.id);
+                }
+            }
+        }
+    }
+
+    private static void beginSection(@NonNull Segment segment, int traceId) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && Trace.isEnabled()) {
+            Trace.beginAsyncSection(segment.sectionName, traceId);
+        }
+    }
+
+    private static void endSection(@NonNull Segment segment, int traceId) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && Trace.isEnabled()) {
+            Trace.endAsyncSection(segment.sectionName, traceId);
+        }
+    }
+
+    private static final class PushTrace {
+        final int id;
+        final long[] stamps = new long[Stage.values().length];
+
+        PushTrace(int id) {
+            this.id = id;
+        }
+
+        void stamp(@NonNull Stage stage, long nanos) {
+            stamps[stage.ordinal()] = nanos;
+        }
+
+        long at(@NonNull Stage stage) {
+            return stamps[stage.ordinal()];
+        }
+    }
+}
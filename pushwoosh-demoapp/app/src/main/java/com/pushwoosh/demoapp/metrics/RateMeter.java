@@ -0,0 +1,80 @@
+package com.pushwoosh.demoapp.metrics;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free event counter with a per-second rate over the last {@link #WINDOW_SECONDS} seconds.
+ * <p>
+ * Each second of the window has a slot stamped with the second it counts. A slot is reclaimed by
+ * whichever thread first marks it in a new second; a mark racing that reset can be lost, which is an
+ * acceptable error for a diagnostics rate. The total is exact.
+ */
+public final class RateMeter {
+
+    public static final int WINDOW_SECONDS = 60;
+
+    /** Monotonic time source, in nanoseconds. */
+    interface Clock {
+        long nanoTime();
+    }
+
+    private final Clock clock;
+    private final long origin;
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLongArray stamps = new AtomicLongArray(WINDOW_SECONDS);
+    private final AtomicLongArray counts = new AtomicLongArray(WINDOW_SECONDS);
+
+    public RateMeter() {
+        this(System::nanoTime);
+    }
+
+    @VisibleForTesting
+    RateMeter(@NonNull Clock clock) {
+        this.clock = clock;
+        this.origin = clock.nanoTime();
+        for (int i = 0; i < WINDOW_SECONDS; i++) {
+            stamps.set(i, -1);
+        }
+    }
+
+    public void mark() {
+        total.incrementAndGet();
+        long second = currentSecond();
+        int slot = (int) (second % WINDOW_SECONDS);
+        long stamp = stamps.get(slot);
+        if (stamp != second && stamps.compareAndSet(slot, stamp, second)) {
+            counts.set(slot, 0);
+        }
+        counts.incrementAndGet(slot);
+    }
+
+    public long count() {
+        return total.get();
+    }
+
+    /**
+     * Events per second over the completed part of the window. The current second is excluded so the
+     * rate does not dip every time a new second starts.
+     */
+    public double ratePerSecond() {
+        long second = currentSecond();
+        long events = 0;
+        for (int slot = 0; slot < WINDOW_SECONDS; slot++) {
+            long stamp = stamps.get(slot);
+            if (stamp < second && stamp >= second - WINDOW_SECONDS + 1) {
+                events += counts.get(slot);
+            }
+        }
+        long elapsed = Math.min(second, WINDOW_SECONDS - 1);
+        return elapsed > 0 ? (double) events / elapsed : 0;
+    }
+
+    private long currentSecond() {
+        return TimeUnit.NANOSECONDS.toSeconds(clock.nanoTime() - origin);
+    }
+}
@@ -0,0 +1,219 @@
+package com.pushwoosh.demoapp.notification;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bookkeeping behind {@link NotificationGroupAggregator}, free of Android types so it can be unit
+ * tested: which pushes join a group, which children get evicted or regrouped, and what the summary
+ * says. The children themselves are the SDK's notifications; the {@link Sink} lists them and does the
+ * cancelling and posting.
+ * <p>
+ * A group starts aggregating once {@code burstThreshold} pushes for it arrive within
+ * {@code burstWindowMs}, and keeps aggregating until {@link #summaryRemoved} reports its summary gone
+ * from the shade. That state is this class's own, so {@link #offer} never asks the notification
+ * manager. The pushes that started the burst were already posted on their own; they count toward
+ * the summary and the next flush moves them into the group.
+ * <p>
+ * {@link #flush} reads the shade once and turns everything offered since the previous flush into one
+ * summary update per group, after cancelling the oldest children beyond {@code maxChildren}. Groups
+ * with no summary showing that are quiet for {@code idleResetMs} are forgotten.
+ */
+final class GroupBatcher {
+
+    /** Where the batched notification work goes. */
+    interface Sink {
+        /**
+         * The children in the shade, by group and oldest first, including pushes that have a group
+         * but were posted before it started aggregating; dismissed ones are not listed.
+         */
+        @NonNull
+        Map<String, List<Child>> activeChildren();
+
+        void cancelChild(@NonNull Child child);
+
+        /** Re-posts a child that was shown on its own with {@code group}'s key. */
+        void regroupChild(@NonNull String group, @NonNull Child child);
+
+        void postSummary(@NonNull String group, int total, @NonNull List<Item> recent);
+    }
+
+    static final class Item {
+        final String title;
+        final String text;
+
+        Item(@NonNull String title, @NonNull String text) {
+            this.title = title;
+            this.text = text;
+        }
+    }
+
+    /** A posted child notification, as the notification manager reports it. */
+    static final class Child {
+        final int id;
+        @Nullable final String tag;
+        /** Whether it was posted with its group's key. */
+        final boolean grouped;
+
+        Child(int id, @Nullable String tag, boolean grouped) {
+            this.id = id;
+            this.tag = tag;
+            this.grouped = grouped;
+        }
+    }
+
+    /** Lines kept for the summary's inbox style. */
+    static final int SUMMARY_LINES = 5;
+
+    private final int burstThreshold;
+    private final long burstWindowMs;
+    private final long idleResetMs;
+    private final int maxChildren;
+
+    private final Map<String, Group> groups = new HashMap<>();
+
+    GroupBatcher(int burstThreshold, long burstWindowMs, long idleResetMs, int maxChildren) {
+        this.burstThreshold = burstThreshold;
+        this.burstWindowMs = burstWindowMs;
+        this.idleResetMs = idleResetMs;
+        this.maxChildren = maxChildren;
+    }
+
+    /**
+     * Records a push for {@code groupKey} at {@code nowMs}.
+     *
+     * @return true if the push joins the group; false if it should be shown on its own
+     */
+    synchronized boolean offer(@NonNull String groupKey, @NonNull Item item, long nowMs) {
+        prune(nowMs);
+        Group group = groups.get(groupKey);
+        if (group == null) {
+            group = new Group();
+            groups.put(groupKey, group);
+        }
+        group.lastArrivalMs = nowMs;
+        while (!group.arrivals.isEmpty() && nowMs - group.arrivals.peekFirst().atMs > burstWindowMs) {
+            group.arrivals.removeFirst();
+        }
+
+        if (group.aggregating) {
+            group.pending.add(item);
+            return true;
+        }
+        if (group.arrivals.size() + 1 < burstThreshold) {
+            group.arrivals.addLast(new Arrival(nowMs, item));
+            return false;
+        }
+        // The burst starts here; the pushes before this one are in the shade on their own.
+        group.aggregating = true;
+        for (Arrival arrival : group.arrivals) {
+            group.pending.add(arrival.item);
+        }
+        group.arrivals.clear();
+        group.pending.add(item);
+        return true;
+    }
+
+    /**
+     * The group's summary left the shade: swiped away, or opened and cancelled together with its
+     * children. The next push for it is shown on its own again and a later burst starts a fresh count.
+     */
+    synchronized void summaryRemoved(@NonNull String groupKey) {
+        Group group = groups.get(groupKey);
+        if (group != null && group.pending.isEmpty()) {
+            group.aggregating = false;
+            group.total = 0;
+            group.recent.clear();
+        }
+    }
+
+    synchronized boolean hasPending() {
+        for (Group group : groups.values()) {
+            if (!group.pending.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Evicts, regroups and summarizes everything offered since the last flush. */
+    synchronized void flush(@NonNull Sink sink) {
+        Map<String, List<Child>> shade = null;
+        for (Map.Entry<String, Group> entry : groups.entrySet()) {
+            Group group = entry.getValue();
+            if (group.pending.isEmpty()) {
+                continue;
+            }
+            if (shade == null) {
+                shade = sink.activeChildren();
+            }
+            for (Item item : group.pending) {
+                group.recent.addLast(item);
+                if (group.recent.size() > SUMMARY_LINES) {
+                    group.recent.removeFirst();
+                }
+            }
+            group.total += group.pending.size();
+            group.pending.clear();
+
+            List<Child> active = shade.get(entry.getKey());
+            if (active == null) {
+                active = Collections.emptyList();
+            }
+            int excess = Math.max(0, active.size() - maxChildren);
+            for (int i = 0; i < excess; i++) {
+                sink.cancelChild(active.get(i));
+            }
+            for (int i = excess; i < active.size(); i++) {
+                if (!active.get(i).grouped) {
+                    sink.regroupChild(entry.getKey(), active.get(i));
+                }
+            }
+            sink.postSummary(entry.getKey(), group.total, new ArrayList<>(group.recent));
+        }
+    }
+
+    @VisibleForTesting
+    synchronized int groupCount() {
+        return groups.size();
+    }
+
+    private void prune(long nowMs) {
+        Iterator<Group> it = groups.values().iterator();
+        while (it.hasNext()) {
+            Group group = it.next();
+            if (!group.aggregating && group.pending.isEmpty() && nowMs - group.lastArrivalMs > idleResetMs) {
+                it.remove();
+            }
+        }
+    }
+
+    private static final class Arrival {
+        final long atMs;
+        final Item item;
+
+        Arrival(long atMs, @NonNull Item item) {
+            this.atMs = atMs;
+            this.item = item;
+        }
+    }
+
+    private static final class Group {
+        // Pushes shown on their own within the burst window, while the group is not aggregating.
+        final ArrayDeque<Arrival> arrivals = new ArrayDeque<>();
+        final ArrayDeque<Item> recent = new ArrayDeque<>();
+        final List<Item> pending = new ArrayList<>();
+        long lastArrivalMs;
+        int total;
+        boolean aggregating;
+    }
+}
@@ -0,0 +1,27 @@
+package com.pushwoosh.demoapp.notification;
+
+import android.app.Notification;
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+import com.pushwoosh.notification.PushMessage;
+import com.pushwoosh.notification.PushwooshNotificationFactory;
+
+/**
+ * The SDK's own notification, put into its campaign's group during a burst by
+ * {@link NotificationGroupAggregator}. Registered via manifest meta-data
+ * ({@code com.pushwoosh.notification_factory}).
+ */
+public class GroupingNotificationFactory extends PushwooshNotificationFactory {
+
+    @Override
+    public Notification onGenerateNotification(@NonNull PushMessage data) {
+        Notification notification = super.onGenerateNotification(data);
+        Context context = getApplicationContext();
+        if (notification == null || context == null) {
+            return notification;
+        }
+        return NotificationGroupAggregator.getInstance(context).group(data, notification);
+    }
+}
@@ -0,0 +1,285 @@
+package com.pushwoosh.demoapp.notification;
+
+import android.Manifest;
+import android.annotation.SuppressLint;
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.net.Uri;
+import android.os.Build;
+import android.os.SystemClock;
+import android.service.notification.StatusBarNotification;
+import android.text.TextUtils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.NotificationManagerCompat;
+import androidx.core.content.ContextCompat;
+
+import com.pushwoosh.demoapp.MainActivity;
+import com.pushwoosh.demoapp.R;
+import com.pushwoosh.notification.PushMessage;
+
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collapses campaign bursts into one notification group per campaign (or channel) while
+ * {@code com.pushwoosh.multi_notification_mode} is on.
+ * <p>
+ * Every push is still built and posted by the SDK, so opening one goes through the SDK's open
+ * handling, statistics and {@code startActivityForPushMessage}, and keeps its channel, images and
+ * custom data. {@link GroupingNotificationFactory} hands each notification the SDK builds to
+ * {@link #group}: outside a burst it comes back unchanged apart from a group extra. Once a group sees
+ * {@link #BURST_THRESHOLD} pushes within {@link #BURST_WINDOW_MS}, further notifications for it get the
+ * group's key, and within {@link #BATCH_WINDOW_MS} of them a single summary is updated, the pushes
+ * that started the burst are re-posted into the group and the oldest children beyond
+ * {@link #MAX_CHILDREN} are cancelled.
+ * <p>
+ * {@link #group} only does bookkeeping; the shade is read once per batch, so children the user
+ * dismissed do not count. The summary is the demo's own notification, not a push, posted under the
+ * group key as its tag, and opens {@link MainActivity}. Dismissing or opening it ends the group
+ * ({@link SummaryRemovedReceiver}, {@link #onSummaryIntent}).
+ */
+public final class NotificationGroupAggregator {
+
+    static final int BURST_THRESHOLD = 3;
+    static final long BURST_WINDOW_MS = 10_000;
+    static final long BATCH_WINDOW_MS = 250;
+    static final int MAX_CHILDREN = 8;
+
+    // A group with no summary showing that has been quiet this long is forgotten.
+    private static final long IDLE_RESET_MS = 10 * 60_000;
+
+    private static final String CHANNEL_ID = "demo_grouped_pushes";
+    // Every summary is posted with its group key as the tag, so one id serves all of them.
+    private static final int SUMMARY_ID = 0x50570001;
+    private static final String EXTRA_GROUP = "com.pushwoosh.demoapp.GROUP";
+    private static final String SUMMARY_SCHEME = "pushwoosh-demo-group";
+
+    private static NotificationGroupAggregator instance;
+
+    private final Context context;
+    private final NotificationManagerCompat notificationManager;
+    private final NotificationManager systemNotificationManager;
+    private final GroupBatcher batcher =
+            new GroupBatcher(BURST_THRESHOLD, BURST_WINDOW_MS, IDLE_RESET_MS, MAX_CHILDREN);
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            runnable -> new Thread(runnable, "NotificationGroupAggregator"));
+    private final Runnable flush = this::flush;
+
+    private boolean flushScheduled;
+    // Flush thread only: the notifications behind the ungrouped children of the last shade read.
+    private final Map<GroupBatcher.Child, Notification> ungrouped = new IdentityHashMap<>();
+
+    @NonNull
+    public static synchronized NotificationGroupAggregator getInstance(@NonNull Context context) {
+        if (instance == null) {
+            instance = new NotificationGroupAggregator(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private NotificationGroupAggregator(@NonNull Context context) {
+        this.context = context;
+        this.notificationManager = NotificationManagerCompat.from(context);
+        this.systemNotificationManager = context.getSystemService(NotificationManager.class);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            NotificationChannel channel = new NotificationChannel(
+                    CHANNEL_ID, "Grouped campaign pushes", NotificationManager.IMPORTANCE_DEFAULT);
+            systemNotificationManager.createNotificationChannel(channel);
+        }
+    }
+
+    /**
+     * The notification the SDK built for {@code message}, put into its campaign's group if the
+     * campaign is bursting; otherwise {@code notification} itself.
+     */
+    @NonNull
+    public Notification group(@NonNull PushMessage message, @NonNull Notification notification) {
+        String key = groupKey(message);
+        String title = firstNonEmpty(message.getHeader(), context.getString(R.string.app_name));
+        String text = firstNonEmpty(message.getMessage(), "");
+        // Lets a later flush find this push again if its group starts aggregating after it was shown.
+        notification.extras.putString(EXTRA_GROUP, key);
+        if (!batcher.offer(key, new GroupBatcher.Item(title, text), SystemClock.elapsedRealtime())) {
+            return notification;
+        }
+        synchronized (this) {
+            if (!flushScheduled) {
+                flushScheduled = true;
+                executor.schedule(flush, BATCH_WINDOW_MS, TimeUnit.MILLISECONDS);
+            }
+        }
+        return inGroup(notification, key).build();
+    }
+
+    private void flush() {
+        synchronized (this) {
+            flushScheduled = false;
+        }
+        if (batcher.hasPending()) {
+            batcher.flush(sink);
+        }
+    }
+
+    /**
+     * Ends {@code intent}'s group if it came from a summary tap: the tap cancelled the summary and
+     * its children without sending the delete intent. Call with every intent that starts or reaches
+     * {@link MainActivity}.
+     */
+    public static void onSummaryIntent(@NonNull Context context, @NonNull Intent intent) {
+        String group = intent.getStringExtra(EXTRA_GROUP);
+        if (group != null) {
+            getInstance(context).batcher.summaryRemoved(group);
+        }
+    }
+
+    /** Ends the group of a summary the user swiped away; registered as its delete intent. */
+    public static class SummaryRemovedReceiver extends BroadcastReceiver {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            onSummaryIntent(context, intent);
+        }
+    }
+
+    private final GroupBatcher.Sink sink = new GroupBatcher.Sink() {
+        @NonNull
+        @Override
+        public Map<String, List<GroupBatcher.Child>> activeChildren() {
+            StatusBarNotification[] active = systemNotificationManager.getActiveNotifications();
+            Arrays.sort(active, Comparator.comparingLong(StatusBarNotification::getPostTime));
+            ungrouped.clear();
+            Map<String, List<GroupBatcher.Child>> children = new HashMap<>();
+            for (StatusBarNotification posted : active) {
+                Notification notification = posted.getNotification();
+                String group = notification.extras.getString(EXTRA_GROUP);
+                if (group == null || (notification.flags & Notification.FLAG_GROUP_SUMMARY) != 0) {
+                    continue;
+                }
+                boolean grouped = group.equals(notification.getGroup());
+                GroupBatcher.Child child = new GroupBatcher.Child(posted.getId(), posted.getTag(), grouped);
+                if (!grouped) {
+                    ungrouped.put(child, notification);
+                }
+                List<GroupBatcher.Child> list = children.get(group);
+                if (list == null) {
+                    list = new ArrayList<>();
+                    children.put(group, list);
+                }
+                list.add(child);
+            }
+            return children;
+        }
+
+        @Override
+        public void cancelChild(@NonNull GroupBatcher.Child child) {
+            notificationManager.cancel(child.tag, child.id);
+        }
+
+        @SuppressLint("MissingPermission") // canPost() checks POST_NOTIFICATIONS
+        @Override
+        public void regroupChild(@NonNull String group, @NonNull GroupBatcher.Child child) {
+            Notification notification = ungrouped.remove(child);
+            if (notification == null || !canPost()) {
+                return;
+            }
+            notificationManager.notify(child.tag, child.id, inGroup(notification, group)
+                    .setOnlyAlertOnce(true)
+                    .build());
+        }
+
+        @SuppressLint("MissingPermission") // canPost() checks POST_NOTIFICATIONS
+        @Override
+        public void postSummary(@NonNull String group, int total, @NonNull List<GroupBatcher.Item> recent) {
+            if (!canPost()) {
+                return;
+            }
+            NotificationCompat.InboxStyle style = new NotificationCompat.InboxStyle();
+            for (GroupBatcher.Item item : recent) {
+                style.addLine(item.title + " — " + item.text);
+            }
+            String summary = total + " new messages";
+            style.setSummaryText(summary);
+            notificationManager.notify(group, SUMMARY_ID, new NotificationCompat.Builder(context, CHANNEL_ID)
+                    .setSmallIcon(R.drawable.ic_notifications_black_24dp)
+                    .setContentTitle(recent.isEmpty() ? summary : recent.get(recent.size() - 1).title)
+                    .setContentText(summary)
+                    .setStyle(style)
+                    .setNumber(total)
+                    .setGroup(group)
+                    .setGroupSummary(true)
+                    .setOnlyAlertOnce(true)
+                    .setAutoCancel(true)
+                    .setContentIntent(PendingIntent.getActivity(context, 0,
+                            new Intent(context, MainActivity.class)
+                                    .setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP)
+                                    .setData(summaryUri(group))
+                                    .putExtra(EXTRA_GROUP, group),
+                            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE))
+                    .setDeleteIntent(PendingIntent.getBroadcast(context, 0,
+                            new Intent(context, SummaryRemovedReceiver.class)
+                                    .setData(summaryUri(group))
+                                    .putExtra(EXTRA_GROUP, group),
+                            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE))
+                    .build());
+        }
+    };
+
+    private boolean canPost() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU
+                && ContextCompat.checkSelfPermission(context, Manifest.permission.POST_NOTIFICATIONS)
+                        != PackageManager.PERMISSION_GRANTED) {
+            return false;
+        }
+        return notificationManager.areNotificationsEnabled();
+    }
+
+    @NonNull
+    private Notification.Builder inGroup(@NonNull Notification notification, @NonNull String group) {
+        Notification.Builder builder = Notification.Builder.recoverBuilder(context, notification).setGroup(group);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            builder.setGroupAlertBehavior(Notification.GROUP_ALERT_SUMMARY);
+        }
+        return builder;
+    }
+
+    /** Keeps each group's pending intents apart; extras alone do not make them distinct. */
+    @NonNull
+    private static Uri summaryUri(@NonNull String group) {
+        return Uri.fromParts(SUMMARY_SCHEME, group, null);
+    }
+
+    /** Campaign first, then the payload's Android channel ({@code pw_channel}), then one shared group. */
+    @NonNull
+    private static String groupKey(@NonNull PushMessage message) {
+        long campaignId = message.getCampaignId();
+        if (campaignId > 0) {
+            return "campaign:" + campaignId;
+        }
+        JSONObject payload = message.toJson();
+        String channel = payload != null ? payload.optString("pw_channel") : "";
+        return TextUtils.isEmpty(channel) ? "pushes" : "channel:" + channel;
+    }
+
+    @NonNull
+    private static String firstNonEmpty(@Nullable String value, @NonNull String fallback) {
+        return TextUtils.isEmpty(value) ? fallback : value;
+    }
+}
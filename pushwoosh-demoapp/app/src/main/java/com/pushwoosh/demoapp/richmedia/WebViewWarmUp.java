@@ -0,0 +1,64 @@
+package com.pushwoosh.demoapp.richmedia;
+
+import android.content.Context;
+import android.os.Looper;
+import android.webkit.WebView;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import com.pushwoosh.demoapp.metrics.MetricsRegistry;
+
+/**
+ * Loads the browser engine while the main thread is idle after launch, so the first rich media or
+ * in-app page does not pay for it.
+ * <p>
+ * The first WebView in a process loads and starts the engine, which takes long enough to drop frames;
+ * every WebView after it is much cheaper. The SDK creates its own WebViews and takes none from the
+ * app, so {@link #warmUpWhenIdle} creates one throwaway WebView in the first idle moment and destroys
+ * it straight away: the engine stays loaded, and no WebView is kept alive. Its creation time is
+ * reported as {@code webview.create.cold}. Main thread only.
+ */
+public final class WebViewWarmUp {
+
+    private static final WebViewWarmUp INSTANCE = new WebViewWarmUp();
+
+    private boolean warm;
+    private boolean scheduled;
+
+    @NonNull
+    public static WebViewWarmUp getInstance() {
+        return INSTANCE;
+    }
+
+    @VisibleForTesting
+    WebViewWarmUp() {
+    }
+
+    /** Whether the engine has been loaded in this process, so the next WebView starts warm. */
+    @VisibleForTesting
+    @MainThread
+    boolean isWarm() {
+        return warm;
+    }
+
+    /** Creates and destroys one WebView the next time the main thread runs out of work; once per process. */
+    @MainThread
+    public void warmUpWhenIdle(@NonNull Context context) {
+        if (warm || scheduled) {
+            return;
+        }
+        scheduled = true;
+        Context app = context.getApplicationContext();
+        Looper.myQueue().addIdleHandler(() -> {
+            long start = System.nanoTime();
+            WebView webView = new WebView(app);
+            MetricsRegistry.getInstance().histogram(MetricsRegistry.WEBVIEW_CREATE_COLD)
+                    .recordNanos(System.nanoTime() - start);
+            webView.destroy();
+            warm = true;
+            return false;
+        });
+    }
+}
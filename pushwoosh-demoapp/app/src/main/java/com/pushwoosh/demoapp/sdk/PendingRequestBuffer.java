@@ -0,0 +1,299 @@
+package com.pushwoosh.demoapp.sdk;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Front door for the tag, user and event calls the demo makes, with a bounded buffer for the time
+ * server communication is stopped.
+ * <p>
+ * While communication runs, calls pass straight through to the {@link SdkBackend}. After
+ * {@link #stopServerCommunication()} — or from the start, when the SDK comes up with communication
+ * still stopped from an earlier launch — they are held here instead, so what happens to them is explicit:
+ * <ul>
+ *   <li>tag writes are compacted by key — only the last value per key is kept;</li>
+ *   <li>{@code setUserId} is last-wins;</li>
+ *   <li>events are kept in order, and are the first thing dropped (oldest first) when the buffer
+ *       hits {@link #MAX_ENTRIES} or {@link #MAX_BYTES}.</li>
+ * </ul>
+ * {@link #startServerCommunication()} flushes everything in one pipelined batch — user id, one
+ * merged {@code setTags}, then the events — without waiting for each response before sending the
+ * next. Buffered calls do not keep their callbacks: a long offline session would otherwise pin
+ * fragments that are long gone.
+ */
+public class PendingRequestBuffer {
+
+    /** What happened to a call. */
+    public enum Outcome {
+        SENT,
+        QUEUED,
+        DROPPED
+    }
+
+    /** Reports the merged flush once every request in it has completed. */
+    public interface FlushListener {
+        void onFlushed(@NonNull Stats stats, int failed);
+    }
+
+    static final int MAX_ENTRIES = 500;
+    static final int MAX_BYTES = 64 * 1024;
+
+    // Rough per-entry bookkeeping cost (object headers, map node, references) on top of the chars.
+    private static final int ENTRY_OVERHEAD_BYTES = 48;
+
+    private static PendingRequestBuffer instance;
+
+    private final SdkBackend backend;
+
+    private final Map<String, String> tags = new LinkedHashMap<>();
+    private final ArrayDeque<PendingEvent> events = new ArrayDeque<>();
+    @Nullable private String userId;
+
+    private boolean stopped;
+    private int bytes;
+    private int submitted;
+    private int dropped;
+    private long lastFlushMs = -1;
+    @Nullable private FlushListener flushListener;
+
+    @NonNull
+    public static synchronized PendingRequestBuffer getInstance() {
+        if (instance == null) {
+            instance = new PendingRequestBuffer(new PushwooshBackend());
+        }
+        return instance;
+    }
+
+    @VisibleForTesting
+    PendingRequestBuffer(@NonNull SdkBackend backend) {
+        this.backend = backend;
+        // The SDK keeps a stop across launches; calls made before the user restarts it are buffered too.
+        this.stopped = !backend.isServerCommunicationEnabled();
+    }
+
+    public synchronized void setFlushListener(@Nullable FlushListener listener) {
+        flushListener = listener;
+    }
+
+    public synchronized boolean isServerCommunicationStopped() {
+        return stopped;
+    }
+
+    @NonNull
+    public synchronized Outcome setTag(@NonNull String key, @NonNull String value, @NonNull SdkBackend.Callback callback) {
+        if (!stopped) {
+            backend.setTags(Collections.singletonMap(key, value), callback);
+            return Outcome.SENT;
+        }
+        submitted++;
+        String previous = tags.get(key);
+        int delta = previous != null ? sizeOf(value) - sizeOf(previous) : entrySize(key, value);
+        if (!makeRoom(previous != null ? 0 : 1, delta)) {
+            dropped++;
+            return Outcome.DROPPED;
+        }
+        tags.put(key, value);
+        bytes += delta;
+        return Outcome.QUEUED;
+    }
+
+    @NonNull
+    public synchronized Outcome setUserId(@NonNull String userId, @NonNull SdkBackend.Callback callback) {
+        if (!stopped) {
+            backend.setUserId(userId, callback);
+            return Outcome.SENT;
+        }
+        submitted++;
+        int delta = entrySize(userId, null) - (this.userId != null ? entrySize(this.userId, null) : 0);
+        if (!makeRoom(this.userId != null ? 0 : 1, delta)) {
+            dropped++;
+            return Outcome.DROPPED;
+        }
+        this.userId = userId;
+        bytes += delta;
+        return Outcome.QUEUED;
+    }
+
+    @NonNull
+    public synchronized Outcome postEvent(
+            @NonNull String event, @Nullable Map<String, Object> attributes, @NonNull SdkBackend.Callback callback) {
+        if (!stopped) {
+            backend.postEvent(event, attributes, callback);
+            return Outcome.SENT;
+        }
+        submitted++;
+        PendingEvent pending = new PendingEvent(event, attributes);
+        if (!makeRoom(1, pending.size)) {
+            dropped++;
+            return Outcome.DROPPED;
+        }
+        events.addLast(pending);
+        bytes += pending.size;
+        return Outcome.QUEUED;
+    }
+
+    /** Stops server communication; subsequent calls are buffered until {@link #startServerCommunication()}. */
+    public synchronized void stopServerCommunication() {
+        stopped = true;
+        backend.setServerCommunicationEnabled(false);
+    }
+
+    /** Resumes server communication and flushes the buffer as one batch. */
+    public void startServerCommunication() {
+        Map<String, String> tagsToSend;
+        String userIdToSend;
+        PendingEvent[] eventsToSend;
+        Stats stats;
+        synchronized (this) {
+            stopped = false;
+            backend.setServerCommunicationEnabled(true);
+
+            stats = getStats();
+            tagsToSend = new LinkedHashMap<>(tags);
+            userIdToSend = userId;
+            eventsToSend = events.toArray(new PendingEvent[0]);
+            tags.clear();
+            events.clear();
+            userId = null;
+            bytes = 0;
+            submitted = 0;
+            dropped = 0;
+        }
+
+        int requests = (userIdToSend != null ? 1 : 0) + (tagsToSend.isEmpty() ? 0 : 1) + eventsToSend.length;
+        if (requests == 0) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        AtomicInteger remaining = new AtomicInteger(requests);
+        AtomicInteger failed = new AtomicInteger();
+        SdkBackend.Callback batchCallback = (success, error) -> {
+            if (!success) {
+                failed.incrementAndGet();
+            }
+            if (remaining.decrementAndGet() == 0) {
+                onFlushed(stats, failed.get(), (System.nanoTime() - start) / 1_000_000);
+            }
+        };
+
+        // User id first so the tags and events that follow are attributed to it.
+        if (userIdToSend != null) {
+            backend.setUserId(userIdToSend, batchCallback);
+        }
+        if (!tagsToSend.isEmpty()) {
+            backend.setTags(tagsToSend, batchCallback);
+        }
+        for (PendingEvent event : eventsToSend) {
+            backend.postEvent(event.name, event.attributes, batchCallback);
+        }
+    }
+
+    @NonNull
+    public synchronized Stats getStats() {
+        int entries = tags.size() + events.size() + (userId != null ? 1 : 0);
+        return new Stats(entries, bytes, submitted, dropped, lastFlushMs);
+    }
+
+    private void onFlushed(@NonNull Stats queued, int failed, long flushMs) {
+        FlushListener listener;
+        Stats stats;
+        synchronized (this) {
+            lastFlushMs = flushMs;
+            listener = flushListener;
+            stats = new Stats(queued.entries, queued.bytes, queued.submitted, queued.dropped, flushMs);
+        }
+        if (listener != null) {
+            listener.onFlushed(stats, failed);
+        }
+    }
+
+    /** Evicts the oldest events until {@code newEntries} more entries and {@code newBytes} more bytes fit. */
+    private boolean makeRoom(int newEntries, int newBytes) {
+        while (entryCount() + newEntries > MAX_ENTRIES || bytes + newBytes > MAX_BYTES) {
+            PendingEvent oldest = events.pollFirst();
+            if (oldest == null) {
+                return false;
+            }
+            bytes -= oldest.size;
+            dropped++;
+        }
+        return true;
+    }
+
+    private int entryCount() {
+        return tags.size() + events.size() + (userId != null ? 1 : 0);
+    }
+
+    private static int entrySize(@NonNull String key, @Nullable String value) {
+        return ENTRY_OVERHEAD_BYTES + sizeOf(key) + (value != null ? sizeOf(value) : 0);
+    }
+
+    private static int sizeOf(@NonNull String s) {
+        return s.length() * 2;
+    }
+
+    private static final class PendingEvent {
+        final String name;
+        @Nullable final Map<String, Object> attributes;
+        final int size;
+
+        PendingEvent(@NonNull String name, @Nullable Map<String, Object> attributes) {
+            this.name = name;
+            this.attributes = attributes != null ? new LinkedHashMap<>(attributes) : null;
+            int size = entrySize(name, null);
+            if (attributes != null) {
+                for (Map.Entry<String, Object> attribute : attributes.entrySet()) {
+                    size += entrySize(attribute.getKey(), String.valueOf(attribute.getValue()));
+                }
+            }
+            this.size = size;
+        }
+    }
+
+    /** Snapshot of the buffer. */
+    public static final class Stats {
+        /** Entries held after compaction. */
+        public final int entries;
+        /** Estimated heap held by the entries. */
+        public final int bytes;
+        /** Calls buffered since the last flush, before compaction. */
+        public final int submitted;
+        /** Calls dropped to stay within limits since the last flush. */
+        public final int dropped;
+        /** Duration of the last flush from first send to last response, or -1 if none yet. */
+        public final long flushMs;
+
+        Stats(int entries, int bytes, int submitted, int dropped, long flushMs) {
+            this.entries = entries;
+            this.bytes = bytes;
+            this.submitted = submitted;
+            this.dropped = dropped;
+            this.flushMs = flushMs;
+        }
+
+        /** Fraction of buffered calls removed by compaction, 0 when nothing was buffered. */
+        public float compactionRatio() {
+            int kept = submitted - dropped;
+            return kept > 0 ? 1f - (float) entries / kept : 0f;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "entries=" + entries
+                    + ", bytes=" + bytes
+                    + ", submitted=" + submitted
+                    + ", dropped=" + dropped
+                    + ", compaction=" + Math.round(compactionRatio() * 100) + "%"
+                    + ", flushMs=" + flushMs;
+        }
+    }
+}
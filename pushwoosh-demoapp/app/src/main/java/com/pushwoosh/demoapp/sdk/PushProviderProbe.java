@@ -0,0 +1,293 @@
+package com.pushwoosh.demoapp.sdk;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.os.Build;
+
+import androidx.annotation.AnyThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+import androidx.core.content.pm.PackageInfoCompat;
+
+import com.google.android.gms.common.ConnectionResult;
+import com.google.android.gms.common.GoogleApiAvailability;
+import com.pushwoosh.demoapp.BuildConfig;
+import com.pushwoosh.demoapp.log.DemoLog;
+import com.pushwoosh.demoapp.metrics.MetricsRegistry;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Works out which push transport this device can use — Firebase, Huawei or Amazon, in that order of
+ * preference — and remembers the answer.
+ * <p>
+ * The answer is stored with a fingerprint of the device, OS build, app version and the installed
+ * Play services and HMS Core versions, and reused on every launch until the fingerprint changes (an
+ * OS update, a new app build, either service installed or updated). Only then are the transports
+ * probed: all at once, each on its own thread and each given {@link #PROBE_TIMEOUT_MS}. A probe that
+ * has not answered in time counts as unavailable, and once a transport is known to be available the
+ * less preferred ones are not waited for. An answer is only stored if every probe ahead of it
+ * actually answered; one that rests on a timeout or an error holds for this launch only.
+ * <p>
+ * Probes are timed under {@code push.probe} and cached answers under {@code push.probe.cached}, so
+ * the two do not blur into one number; the lookups are also reported as the {@code pushProvider}
+ * cache. The SDK still picks the transport it registers with; this is what the demo shows, so the
+ * probe is created by the diagnostics screen the first time it is shown rather than at app startup,
+ * and a launch that never opens it spends no threads or package manager calls on it.
+ */
+public final class PushProviderProbe {
+
+    /** Push transports, most preferred first. */
+    public enum Provider {
+        FCM,
+        HMS,
+        ADM,
+        NONE
+    }
+
+    /** Answers whether one transport can be used; may block, and runs on a probe thread. */
+    interface Check {
+        boolean isAvailable() throws Exception;
+    }
+
+    static final long PROBE_TIMEOUT_MS = 1_500;
+
+    private static final String TAG = "PushProviderProbe";
+    private static final String PREFS = "push_provider";
+    private static final String KEY_FINGERPRINT = "fingerprint";
+    private static final String KEY_PROVIDER = "provider";
+
+    private static PushProviderProbe instance;
+
+    // Opened on the resolving thread: getSharedPreferences touches the disk, and the fingerprint asks
+    // the package manager.
+    private final Supplier<SharedPreferences> prefs;
+    private final Supplier<String> fingerprint;
+    private final Map<Provider, Check> checks;
+    private final ExecutorService probes;
+    private final long timeoutMs;
+
+    @Nullable private volatile Provider provider;
+
+    /** Creates the shared probe on first use and resolves the provider in the background. */
+    @NonNull
+    public static synchronized PushProviderProbe init(@NonNull Context context) {
+        if (instance == null) {
+            Context app = context.getApplicationContext();
+            instance = new PushProviderProbe(() -> app.getSharedPreferences(PREFS, Context.MODE_PRIVATE),
+                    () -> deviceFingerprint(app.getPackageManager()), deviceChecks(app), newProbeThreads(), PROBE_TIMEOUT_MS);
+            // Runs once per process, so a plain thread that ends with it.
+            new Thread(instance::resolve, TAG).start();
+        }
+        return instance;
+    }
+
+    @NonNull
+    public static synchronized PushProviderProbe getInstance() {
+        if (instance == null) {
+            throw new IllegalStateException("PushProviderProbe.init() has not been called");
+        }
+        return instance;
+    }
+
+    @VisibleForTesting
+    PushProviderProbe(@NonNull Supplier<SharedPreferences> prefs, @NonNull Supplier<String> fingerprint,
+                      @NonNull Map<Provider, Check> checks, @NonNull ExecutorService probes, long timeoutMs) {
+        this.prefs = prefs;
+        this.fingerprint = fingerprint;
+        this.checks = new EnumMap<>(checks);
+        this.probes = probes;
+        this.timeoutMs = timeoutMs;
+    }
+
+    /** The resolved provider, or null while the first {@link #resolve()} is still running. */
+    @AnyThread
+    @Nullable
+    public Provider getProvider() {
+        return provider;
+    }
+
+    /**
+     * The stored provider if it was found on this fingerprint, otherwise a fresh probe whose answer is
+     * stored if it is conclusive.
+     */
+    @WorkerThread
+    @NonNull
+    public Provider resolve() {
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        long start = System.nanoTime();
+        String fingerprint = this.fingerprint.get();
+        Provider cached = cached(fingerprint);
+        if (cached != null) {
+            metrics.histogram(MetricsRegistry.PUSH_PROBE_CACHED).recordNanos(System.nanoTime() - start);
+            metrics.cacheHit(MetricsRegistry.PUSH_PROBE_CACHE);
+            provider = cached;
+            return cached;
+        }
+        metrics.cacheMiss(MetricsRegistry.PUSH_PROBE_CACHE);
+
+        start = System.nanoTime();
+        Probed probed = probe();
+        metrics.histogram(MetricsRegistry.PUSH_PROBE).recordNanos(System.nanoTime() - start);
+        if (probed.conclusive) {
+            prefs.get().edit()
+                    .putString(KEY_FINGERPRINT, fingerprint)
+                    .putString(KEY_PROVIDER, probed.provider.name())
+                    .apply();
+            DemoLog.info(TAG, "Push provider: {}", probed.provider);
+        } else {
+            DemoLog.info(TAG, "Push provider: {} (not stored, a preferred probe did not answer)", probed.provider);
+        }
+        provider = probed.provider;
+        return probed.provider;
+    }
+
+    @Nullable
+    private Provider cached(@NonNull String fingerprint) {
+        SharedPreferences stored = prefs.get();
+        if (!fingerprint.equals(stored.getString(KEY_FINGERPRINT, null))) {
+            return null;
+        }
+        String name = stored.getString(KEY_PROVIDER, null);
+        if (name == null) {
+            return null;
+        }
+        try {
+            return Provider.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            // Written by a build with a different set of providers.
+            return null;
+        }
+    }
+
+    @NonNull
+    private Probed probe() {
+        Map<Provider, Future<Boolean>> running = new EnumMap<>(Provider.class);
+        for (Map.Entry<Provider, Check> check : checks.entrySet()) {
+            running.put(check.getKey(), probes.submit((Callable<Boolean>) check.getValue()::isAvailable));
+        }
+
+        // Every probe started together, so one deadline covers them all.
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        Provider chosen = Provider.NONE;
+        boolean conclusive = true;
+        for (Map.Entry<Provider, Future<Boolean>> probe : running.entrySet()) {
+            Boolean available = await(probe.getKey(), probe.getValue(), deadline);
+            if (available == null) {
+                conclusive = false;
+            } else if (available) {
+                chosen = probe.getKey();
+                break;
+            }
+        }
+        for (Future<Boolean> probe : running.values()) {
+            probe.cancel(true);
+        }
+        return new Probed(chosen, conclusive);
+    }
+
+    /** The probe's answer, or null if it timed out or failed. */
+    @Nullable
+    private Boolean await(@NonNull Provider provider, @NonNull Future<Boolean> probe, long deadline) {
+        try {
+            return probe.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            MetricsRegistry.getInstance().counter(MetricsRegistry.PUSH_PROBE + ".timeouts").increment();
+            DemoLog.info(TAG, "{} probe timed out", provider);
+            return null;
+        } catch (ExecutionException e) {
+            MetricsRegistry.getInstance().counter(MetricsRegistry.PUSH_PROBE + ".errors").increment();
+            DemoLog.error(TAG, "{} probe failed", provider, e.getCause());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Identifies the device, its OS build, this app build and the installed push services; a change
+     * to any of them re-probes.
+     */
+    @NonNull
+    private static String deviceFingerprint(@NonNull PackageManager packageManager) {
+        return Build.FINGERPRINT + '|' + Build.VERSION.SDK_INT + '|' + BuildConfig.VERSION_CODE
+                + '|' + packageStamp(packageManager, "com.google.android.gms")
+                + '|' + packageStamp(packageManager, "com.huawei.hwid");
+    }
+
+    @NonNull
+    private static String packageStamp(@NonNull PackageManager packageManager, @NonNull String packageName) {
+        try {
+            PackageInfo info = packageManager.getPackageInfo(packageName, 0);
+            return PackageInfoCompat.getLongVersionCode(info) + "@" + info.lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            return "-";
+        }
+    }
+
+    @NonNull
+    private static Map<Provider, Check> deviceChecks(@NonNull Context context) {
+        Map<Provider, Check> checks = new EnumMap<>(Provider.class);
+        checks.put(Provider.FCM, () -> GoogleApiAvailability.getInstance()
+                .isGooglePlayServicesAvailable(context) == ConnectionResult.SUCCESS);
+        checks.put(Provider.HMS, () -> isEnabled(context.getPackageManager(), "com.huawei.hwid"));
+        // The ADM classes ship in the firmware of Amazon devices only.
+        checks.put(Provider.ADM, () -> {
+            try {
+                Class.forName("com.amazon.device.messaging.ADM");
+                return true;
+            } catch (ClassNotFoundException e) {
+                return false;
+            }
+        });
+        return checks;
+    }
+
+    private static boolean isEnabled(@NonNull PackageManager packageManager, @NonNull String packageName) {
+        try {
+            ApplicationInfo info = packageManager.getApplicationInfo(packageName, 0);
+            return info.enabled;
+        } catch (PackageManager.NameNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static final class Probed {
+        final Provider provider;
+        // Every probe ahead of the provider answered, so the answer can be stored.
+        final boolean conclusive;
+
+        Probed(@NonNull Provider provider, boolean conclusive) {
+            this.provider = provider;
+            this.conclusive = conclusive;
+        }
+    }
+
+    @NonNull
+    private static ExecutorService newProbeThreads() {
+        // One thread per transport, let go once the probe is over: it runs at most once per fingerprint.
+        int threads = Provider.values().length - 1;
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 5, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> new Thread(runnable, TAG + "-" + count.incrementAndGet()));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -0,0 +1,93 @@
+package com.pushwoosh.demoapp.sdk;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.pushwoosh.Pushwoosh;
+import com.pushwoosh.demoapp.metrics.MetricsRegistry;
+import com.pushwoosh.inapp.InAppManager;
+import com.pushwoosh.tags.TagsBundle;
+
+import java.util.Map;
+
+/**
+ * {@link SdkBackend} backed by the real Pushwoosh SDK. Each call's time from request to callback is
+ * recorded in {@link MetricsRegistry} under the call's name, with failures counted in {@code <name>.errors}.
+ * Accepted tags are written through to the {@link TagMirror}.
+ */
+class PushwooshBackend implements SdkBackend {
+
+    @Override
+    public void setTags(@NonNull Map<String, String> tags, @NonNull Callback callback) {
+        TagsBundle.Builder builder = new TagsBundle.Builder();
+        for (Map.Entry<String, String> tag : tags.entrySet()) {
+            builder.putString(tag.getKey(), tag.getValue());
+        }
+        Callback timed = timed(MetricsRegistry.SDK_SET_TAGS, callback);
+        Pushwoosh.getInstance().setTags(builder.build(), result -> {
+            if (result.isSuccess()) {
+                TagMirror.getInstance().onTagsSet(tags);
+            }
+            timed.onResult(result.isSuccess(), result.getException());
+        });
+    }
+
+    @Override
+    public void setUserId(@NonNull String userId, @NonNull Callback callback) {
+        Callback timed = timed(MetricsRegistry.SDK_SET_USER_ID, callback);
+        Pushwoosh.getInstance().setUserId(userId, result -> timed.onResult(result.isSuccess(), result.getException()));
+    }
+
+    @Override
+    public void postEvent(@NonNull String event, @Nullable Map<String, Object> attributes, @NonNull Callback callback) {
+        Callback timed = timed(MetricsRegistry.SDK_POST_EVENT, callback);
+        InAppManager.getInstance().postEvent(event, toTagsBundle(attributes),
+                result -> timed.onResult(result.isSuccess(), result.getException()));
+    }
+
+    @Override
+    public void setServerCommunicationEnabled(boolean enabled) {
+        if (enabled) {
+            Pushwoosh.getInstance().startServerCommunication();
+        } else {
+            Pushwoosh.getInstance().stopServerCommunication();
+        }
+    }
+
+    @Override
+    public boolean isServerCommunicationEnabled() {
+        return Pushwoosh.getInstance().isServerCommunicationAllowed();
+    }
+
+    @NonNull
+    private static Callback timed(@NonNull String metric, @NonNull Callback callback) {
+        long start = System.nanoTime();
+        return (success, error) -> {
+            MetricsRegistry metrics = MetricsRegistry.getInstance();
+            metrics.histogram(metric).recordNanos(System.nanoTime() - start);
+            if (!success) {
+                metrics.counter(metric + ".errors").increment();
+            }
+            callback.onResult(success, error);
+        };
+    }
+
+    @Nullable
+    private static TagsBundle toTagsBundle(@Nullable Map<String, Object> attributes) {
+        if (attributes == null) {
+            return null;
+        }
+        TagsBundle.Builder builder = new TagsBundle.Builder();
+        for (Map.Entry<String, Object> attribute : attributes.entrySet()) {
+            Object value = attribute.getValue();
+            if (value instanceof Integer) {
+                builder.putInt(attribute.getKey(), (Integer) value);
+            } else if (value instanceof Long) {
+                builder.putLong(attribute.getKey(), (Long) value);
+            } else {
+                builder.putString(attribute.getKey(), String.valueOf(value));
+            }
+        }
+        return builder.build();
+    }
+}
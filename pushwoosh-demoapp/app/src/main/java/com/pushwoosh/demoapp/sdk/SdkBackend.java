@@ -0,0 +1,28 @@
+package com.pushwoosh.demoapp.sdk;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Map;
+
+/**
+ * The SDK calls {@link PendingRequestBuffer} forwards to. Plain maps instead of {@code TagsBundle}
+ * keep buffered entries cheap to size and compact, and keep this seam free of SDK types.
+ */
+public interface SdkBackend {
+
+    interface Callback {
+        void onResult(boolean success, @Nullable Exception error);
+    }
+
+    void setTags(@NonNull Map<String, String> tags, @NonNull Callback callback);
+
+    void setUserId(@NonNull String userId, @NonNull Callback callback);
+
+    void postEvent(@NonNull String event, @Nullable Map<String, Object> attributes, @NonNull Callback callback);
+
+    void setServerCommunicationEnabled(boolean enabled);
+
+    /** Whether server communication is on right now; the SDK persists a stop across launches. */
+    boolean isServerCommunicationEnabled();
+}
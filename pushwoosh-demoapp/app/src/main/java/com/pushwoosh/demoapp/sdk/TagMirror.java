@@ -0,0 +1,340 @@
+package com.pushwoosh.demoapp.sdk;
+
+import android.content.Context;
+
+import androidx.annotation.AnyThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.pushwoosh.Pushwoosh;
+import com.pushwoosh.demoapp.log.DemoLog;
+import com.pushwoosh.demoapp.metrics.MetricsRegistry;
+
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Local copy of the device's tags, so the app can read them without a {@code getTags} round trip.
+ * <p>
+ * Every successful {@code setTags} is written through with {@link #onTagsSet}, and the mirror is
+ * persisted to {@link #FILE_NAME} in the app's files. Reads come from an immutable in-memory map and
+ * never wait, so they are safe on the main thread: until the load from disk after {@link #init}
+ * finishes they only see this session's writes. {@link #getTags()} delivers the map again whenever it
+ * changes, including when that load completes, for screens that show a tag.
+ * <p>
+ * {@link #reconcile()} replaces the mirror with the server's tags in the background. Each local write
+ * bumps a version, and a reconcile notes the version it started at: keys written after that keep their
+ * local value, because the server's answer may predate them. {@link #init} reconciles when the last
+ * reconcile is older than {@link #RECONCILE_INTERVAL_MS}. Values are kept as strings, the way the demo
+ * writes them.
+ * <p>
+ * Reports read latency under {@code tags.read}, lookups as the {@code tags} cache, reconciles under
+ * {@code tags.reconcile} and the keys they corrected under {@code tags.reconcile.changed}.
+ */
+public final class TagMirror {
+
+    /** Reads every tag from the server; the callback may arrive on any thread. */
+    interface TagSource {
+        void fetch(@NonNull TagCallback callback);
+    }
+
+    interface TagCallback {
+        /** @param tags the server's tags, or null if they could not be read */
+        void onTags(@Nullable Map<String, String> tags, @Nullable Exception error);
+    }
+
+    static final String FILE_NAME = "tag-mirror.bin";
+    static final long RECONCILE_INTERVAL_MS = TimeUnit.HOURS.toMillis(6);
+
+    private static final String TAG = "TagMirror";
+    private static final int MAGIC = 0x50575447; // "PWTG"
+    private static final int FORMAT_VERSION = 1;
+
+    private static TagMirror instance;
+
+    // Resolved on the io thread: looking up the files directory touches the disk.
+    private final Supplier<File> file;
+    private final TagSource source;
+    private final Executor io;
+    private final MutableLiveData<Map<String, String>> published = new MutableLiveData<>();
+
+    private volatile Map<String, String> tags = Collections.emptyMap();
+
+    // Guarded by this. Version of the last local write per key, for keys written since a reconcile began.
+    private final Map<String, Long> writtenAt = new HashMap<>();
+    private long version;
+    private long reconciledAtMillis;
+    private boolean reconciling;
+
+    /** Creates the shared mirror, loads it from disk and reconciles it if it is stale. */
+    @NonNull
+    public static synchronized TagMirror init(@NonNull Context context) {
+        if (instance == null) {
+            Executor io = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, TAG));
+            Context app = context.getApplicationContext();
+            instance = new TagMirror(() -> new File(app.getFilesDir(), FILE_NAME), new PushwooshTagSource(), io);
+            instance.start();
+        }
+        return instance;
+    }
+
+    @NonNull
+    public static synchronized TagMirror getInstance() {
+        if (instance == null) {
+            throw new IllegalStateException("TagMirror.init() has not been called");
+        }
+        return instance;
+    }
+
+    @VisibleForTesting
+    TagMirror(@NonNull Supplier<File> file, @NonNull TagSource source, @NonNull Executor io) {
+        this.file = file;
+        this.source = source;
+        this.io = io;
+    }
+
+    @VisibleForTesting
+    void start() {
+        io.execute(() -> {
+            load();
+            boolean stale;
+            synchronized (this) {
+                stale = System.currentTimeMillis() - reconciledAtMillis >= RECONCILE_INTERVAL_MS;
+            }
+            if (stale) {
+                reconcile();
+            }
+        });
+    }
+
+    /** The mirrored value of {@code key}, or null if the device has no such tag. */
+    @AnyThread
+    @Nullable
+    public String get(@NonNull String key) {
+        Map<String, String> current = tags;
+        long start = System.nanoTime();
+        String value = current.get(key);
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        metrics.histogram(MetricsRegistry.TAGS_READ).recordNanos(System.nanoTime() - start);
+        if (value != null) {
+            metrics.cacheHit(MetricsRegistry.TAGS_CACHE);
+        } else {
+            metrics.cacheMiss(MetricsRegistry.TAGS_CACHE);
+        }
+        return value;
+    }
+
+    /** Every mirrored tag; the map is immutable. */
+    @AnyThread
+    @NonNull
+    public Map<String, String> getAll() {
+        return tags;
+    }
+
+    /** Every mirrored tag, posted again each time the mirror changes; the maps are immutable. */
+    @NonNull
+    public LiveData<Map<String, String>> getTags() {
+        return published;
+    }
+
+    /** Records tags the server has accepted. */
+    @AnyThread
+    public void onTagsSet(@NonNull Map<String, String> written) {
+        synchronized (this) {
+            version++;
+            Map<String, String> next = new HashMap<>(tags);
+            for (Map.Entry<String, String> tag : written.entrySet()) {
+                next.put(tag.getKey(), tag.getValue());
+                writtenAt.put(tag.getKey(), version);
+            }
+            tags = Collections.unmodifiableMap(next);
+            published.postValue(tags);
+        }
+        io.execute(this::persist);
+    }
+
+    /** Fetches the server's tags and replaces the mirror with them; a no-op while one is running. */
+    @AnyThread
+    public void reconcile() {
+        long startVersion;
+        synchronized (this) {
+            if (reconciling) {
+                return;
+            }
+            reconciling = true;
+            startVersion = version;
+        }
+        source.fetch((server, error) -> io.execute(() -> onReconciled(startVersion, server, error)));
+    }
+
+    @WorkerThread
+    private void onReconciled(long startVersion, @Nullable Map<String, String> server, @Nullable Exception error) {
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        metrics.counter(MetricsRegistry.TAGS_RECONCILE).increment();
+        if (server == null) {
+            synchronized (this) {
+                reconciling = false;
+            }
+            metrics.counter(MetricsRegistry.TAGS_RECONCILE + ".errors").increment();
+            DemoLog.error(TAG, "Tag reconcile failed, keeping the mirror", error);
+            return;
+        }
+
+        int changed = 0;
+        synchronized (this) {
+            Map<String, String> next = new HashMap<>(server);
+            Iterator<Map.Entry<String, Long>> writes = writtenAt.entrySet().iterator();
+            while (writes.hasNext()) {
+                Map.Entry<String, Long> write = writes.next();
+                if (write.getValue() > startVersion) {
+                    next.put(write.getKey(), tags.get(write.getKey()));
+                } else {
+                    // The server has seen this write; nothing left to protect.
+                    writes.remove();
+                }
+            }
+            for (Map.Entry<String, String> tag : next.entrySet()) {
+                if (!tag.getValue().equals(tags.get(tag.getKey()))) {
+                    changed++;
+                }
+            }
+            for (String key : tags.keySet()) {
+                if (!next.containsKey(key)) {
+                    changed++;
+                }
+            }
+            tags = Collections.unmodifiableMap(next);
+            published.postValue(tags);
+            reconciledAtMillis = System.currentTimeMillis();
+            reconciling = false;
+        }
+        metrics.counter(MetricsRegistry.TAGS_RECONCILE + ".changed").add(changed);
+        if (changed > 0) {
+            DemoLog.info(TAG, "Reconcile corrected {} tags", changed);
+        }
+        persist();
+    }
+
+    @WorkerThread
+    private void load() {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file.get()))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IOException("Not a tag mirror");
+            }
+            long reconciledAt = in.readLong();
+            int count = in.readInt();
+            Map<String, String> stored = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                stored.put(readString(in), readString(in));
+            }
+            synchronized (this) {
+                // Writes that landed before the load finished are newer than the file.
+                for (String key : writtenAt.keySet()) {
+                    stored.put(key, tags.get(key));
+                }
+                tags = Collections.unmodifiableMap(stored);
+                published.postValue(tags);
+                reconciledAtMillis = reconciledAt;
+            }
+        } catch (FileNotFoundException e) {
+            // First run: start empty and let the reconcile fill it in.
+        } catch (IOException e) {
+            DemoLog.error(TAG, "Discarding unreadable tag mirror", e);
+            file.get().delete();
+        }
+    }
+
+    @WorkerThread
+    private void persist() {
+        Map<String, String> current;
+        long reconciledAt;
+        synchronized (this) {
+            current = tags;
+            reconciledAt = reconciledAtMillis;
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(reconciledAt);
+            out.writeInt(current.size());
+            for (Map.Entry<String, String> tag : current.entrySet()) {
+                writeString(out, tag.getKey());
+                writeString(out, tag.getValue());
+            }
+
+            File target = file.get();
+            File tmp = new File(target.getPath() + ".tmp");
+            try (FileOutputStream stream = new FileOutputStream(tmp)) {
+                bytes.writeTo(stream);
+                stream.getFD().sync();
+            }
+            if (!tmp.renameTo(target)) {
+                tmp.delete();
+                throw new IOException("Cannot replace " + target);
+            }
+        } catch (IOException e) {
+            DemoLog.error(TAG, "Failed to persist the tag mirror", e);
+        }
+    }
+
+    private static void writeString(@NonNull DataOutputStream out, @NonNull String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    @NonNull
+    private static String readString(@NonNull DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > in.available()) {
+            throw new EOFException("Corrupt tag mirror entry");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static class PushwooshTagSource implements TagSource {
+        @Override
+        public void fetch(@NonNull TagCallback callback) {
+            Pushwoosh.getInstance().getTags(result -> {
+                if (!result.isSuccess() || result.getData() == null) {
+                    callback.onTags(null, result.getException());
+                    return;
+                }
+                JSONObject json = result.getData().toJson();
+                Map<String, String> tags = new HashMap<>();
+                Iterator<String> keys = json.keys();
+                while (keys.hasNext()) {
+                    String key = keys.next();
+                    tags.put(key, String.valueOf(json.opt(key)));
+                }
+                callback.onTags(tags, null);
+            });
+        }
+    }
+}
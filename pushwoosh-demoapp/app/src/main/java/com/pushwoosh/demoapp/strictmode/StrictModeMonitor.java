@@ -0,0 +1,81 @@
+package com.pushwoosh.demoapp.strictmode;
+
+import android.os.Build;
+import android.os.StrictMode;
+import android.os.strictmode.Violation;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+
+import com.pushwoosh.demoapp.log.DemoLog;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Debug-build StrictMode setup: main-thread disk reads and writes, network, and leaked closeables,
+ * collected into a {@link ViolationAggregator} instead of flooding logcat.
+ * <p>
+ * Violations are delivered through {@code penaltyListener}, which needs API 28; on older devices
+ * StrictMode only logs. Each distinct stack signature is logged once, when first seen; after that
+ * it is only counted. Tests read the results via {@link #getAggregator()}.
+ */
+public final class StrictModeMonitor {
+
+    private static final String TAG = "StrictModeMonitor";
+
+    @Nullable private static ViolationAggregator aggregator;
+    @Nullable private static ExecutorService listenerExecutor;
+
+    private StrictModeMonitor() {
+    }
+
+    /** Enables the policies; call first thing in {@code Application.onCreate()}, debug builds only. */
+    public static synchronized void install(@NonNull String appPackage) {
+        if (aggregator != null) {
+            return;
+        }
+        aggregator = new ViolationAggregator(appPackage);
+
+        StrictMode.ThreadPolicy.Builder thread = new StrictMode.ThreadPolicy.Builder()
+                .detectDiskReads()
+                .detectDiskWrites()
+                .detectNetwork();
+        StrictMode.VmPolicy.Builder vm = new StrictMode.VmPolicy.Builder()
+                .detectLeakedClosableObjects();
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            // Violations arrive on the violating thread; hand them off so recording stays off it.
+            listenerExecutor = Executors.newSingleThreadExecutor(
+                    runnable -> new Thread(runnable, TAG));
+            thread.penaltyListener(listenerExecutor, StrictModeMonitor::onViolation);
+            vm.penaltyListener(listenerExecutor, StrictModeMonitor::onViolation);
+        } else {
+            thread.penaltyLog();
+            vm.penaltyLog();
+        }
+
+        StrictMode.setThreadPolicy(thread.build());
+        StrictMode.setVmPolicy(vm.build());
+    }
+
+    /** The violations seen so far, or null if {@link #install} was not called (release builds). */
+    @Nullable
+    public static synchronized ViolationAggregator getAggregator() {
+        return aggregator;
+    }
+
+    @RequiresApi(Build.VERSION_CODES.P)
+    private static void onViolation(@NonNull Violation violation) {
+        ViolationAggregator target = getAggregator();
+        if (target == null) {
+            return;
+        }
+        String type = violation.getClass().getSimpleName();
+        StackTraceElement[] stack = violation.getStackTrace();
+        if (target.record(type, stack)) {
+            DemoLog.warn(TAG, "New StrictMode violation {} at {}", type, stack.length > 0 ? stack[0] : "<no stack>");
+        }
+    }
+}
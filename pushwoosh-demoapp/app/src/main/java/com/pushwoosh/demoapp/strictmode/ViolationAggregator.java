@@ -0,0 +1,160 @@
+package com.pushwoosh.demoapp.strictmode;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Deduplicates StrictMode violations by stack signature and counts them per call site. Free of
+ * Android types so the bookkeeping can be unit tested; {@link StrictModeMonitor} feeds it.
+ * <p>
+ * The <em>signature</em> of a violation is its type plus the frames from the top of the stack down to
+ * its call site, so the same path reported a thousand times is one entry with a count. The
+ * <em>call site</em> is the first frame in {@code appPackage} outside this package — the line of
+ * demo code that led into the SDK or framework call that violated — and is reported as
+ * {@code <type> <class>.<method>}, without line numbers so that unrelated edits do not move it.
+ */
+public final class ViolationAggregator {
+
+    // Frames kept in a signature; deeper stacks are truncated, as the top is what tells paths apart.
+    private static final int MAX_SIGNATURE_FRAMES = 24;
+
+    private final String appPackage;
+    private final String ownPackage = ViolationAggregator.class.getPackage().getName() + ".";
+
+    private final Map<String, Entry> bySignature = new HashMap<>();
+
+    public ViolationAggregator(@NonNull String appPackage) {
+        this.appPackage = appPackage + ".";
+    }
+
+    /**
+     * Records one violation of {@code type} (e.g. {@code DiskReadViolation}) with its stack.
+     *
+     * @return true if this is the first violation with this signature
+     */
+    public synchronized boolean record(@NonNull String type, @NonNull StackTraceElement[] stack) {
+        int callSiteIndex = callSiteIndex(stack);
+        String callSite = type + " " + (callSiteIndex >= 0 ? methodOf(stack[callSiteIndex]) : "<outside app code>");
+        String signature = signature(type, stack, callSiteIndex);
+        Entry entry = bySignature.get(signature);
+        boolean first = entry == null;
+        if (first) {
+            entry = new Entry(signature, callSite, stack);
+            bySignature.put(signature, entry);
+        }
+        entry.count++;
+        return first;
+    }
+
+    /** Violation count per call site, sorted by call site. */
+    @NonNull
+    public synchronized Map<String, Integer> countsByCallSite() {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (Entry entry : bySignature.values()) {
+            Integer count = counts.get(entry.callSite);
+            counts.put(entry.callSite, (count != null ? count : 0) + entry.count);
+        }
+        return counts;
+    }
+
+    /** Call sites seen that are not in {@code baseline}, sorted. */
+    @NonNull
+    public synchronized Set<String> newCallSites(@NonNull Set<String> baseline) {
+        Set<String> fresh = new TreeSet<>(countsByCallSite().keySet());
+        fresh.removeAll(baseline);
+        return fresh;
+    }
+
+    /** One entry per distinct signature, most frequent first. */
+    @NonNull
+    public synchronized List<Report> reports() {
+        List<Report> reports = new ArrayList<>(bySignature.size());
+        for (Entry entry : bySignature.values()) {
+            reports.add(new Report(entry));
+        }
+        Collections.sort(reports, (a, b) -> Integer.compare(b.count, a.count));
+        return reports;
+    }
+
+    public synchronized void clear() {
+        bySignature.clear();
+    }
+
+    private int callSiteIndex(@NonNull StackTraceElement[] stack) {
+        for (int i = 0; i < stack.length; i++) {
+            String className = stack[i].getClassName();
+            if (className.startsWith(appPackage) && !className.startsWith(ownPackage)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @NonNull
+    private static String signature(@NonNull String type, @NonNull StackTraceElement[] stack, int callSiteIndex) {
+        int last = callSiteIndex >= 0 ? callSiteIndex : stack.length - 1;
+        StringBuilder signature = new StringBuilder(type);
+        for (int i = 0; i <= last && i < MAX_SIGNATURE_FRAMES; i++) {
+            signature.append('|').append(methodOf(stack[i]));
+        }
+        return signature.toString();
+    }
+
+    @NonNull
+    private static String methodOf(@NonNull StackTraceElement frame) {
+        String className = frame.getClassName();
+        // Lambdas and anonymous classes get compiler-generated names that change between builds.
+        int synthetic = className.indexOf('$');
+        if (synthetic > 0 && synthetic + 1 < className.length() && Character.isDigit(className.charAt(synthetic + 1))) {
+            className = className.substring(0, synthetic);
+        }
+        String method = frame.getMethodName();
+        if (method.startsWith("lambda$")) {
+            int end = method.indexOf('$', "lambda$".length());
+            method = end > 0 ? method.substring("lambda$".length(), end) : method;
+        }
+        return className + "." + method;
+    }
+
+    /** A distinct violation path and how often it was hit. */
+    public static final class Report {
+        @NonNull public final String signature;
+        @NonNull public final String callSite;
+        @NonNull public final StackTraceElement[] sampleStack;
+        public final int count;
+
+        Report(@NonNull Entry entry) {
+            this.signature = entry.signature;
+            this.callSite = entry.callSite;
+            this.sampleStack = entry.sampleStack;
+            this.count = entry.count;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return count + "x " + callSite;
+        }
+    }
+
+    private static final class Entry {
+        final String signature;
+        final String callSite;
+        final StackTraceElement[] sampleStack;
+        int count;
+
+        Entry(@NonNull String signature, @NonNull String callSite, @NonNull StackTraceElement[] sampleStack) {
+            this.signature = signature;
+            this.callSite = callSite;
+            this.sampleStack = sampleStack;
+        }
+    }
+}
@@ -8,7 +8,7 @@ import android.widget.TextView
 import androidx.appcompat.app.AppCompatActivity
 import com.google.android.material.button.MaterialButton
 import com.pushwoosh.demoapp.R
-import com.pushwoosh.internal.utils.PWLog
+import com.pushwoosh.demoapp.log.DemoLog
 
 class CallCancelledActivity : AppCompatActivity() {
     companion object {
@@ -30,7 +30,7 @@ class CallCancelledActivity : AppCompatActivity() {
         val callId = intent.getStringExtra("call_id") ?: "N/A"
         val hasVideo = intent.getBooleanExtra("has_video", false)
 
-        PWLog.info(TAG, "Showing call cancelled screen: caller=$callerName, callId=$callId, video=$hasVideo")
+        DemoLog.info(TAG, "Showing call cancelled screen: caller={}, callId={}, video={}", callerName, callId, hasVideo)
 
         // Setup views
         val textCallerName = findViewById<TextView>(R.id.textCallerName)
@@ -9,15 +9,15 @@ import android.widget.Toast;
 
 import com.pushwoosh.calls.PushwooshVoIPMessage;
 import com.pushwoosh.calls.listener.CallEventListener;
+import com.pushwoosh.demoapp.log.DemoLog;
 import com.pushwoosh.internal.platform.AndroidPlatformModule;
-import com.pushwoosh.internal.utils.PWLog;
 
 public class DemoCallEventListener implements CallEventListener {
     private static final String TAG = "DemoCallEventListener";
 
     @Override
     public void onAnswer(PushwooshVoIPMessage voIPMessage, int videoState) {
-        PWLog.info(TAG, "onAnswer: caller=" + voIPMessage.getCallerName() + ", video=" + voIPMessage.getHasVideo());
+        DemoLog.info(TAG, "onAnswer: caller={}, video={}", voIPMessage.getCallerName(), voIPMessage.getHasVideo());
 
         Context context = AndroidPlatformModule.getApplicationContext();
         if (context != null) {
@@ -27,7 +27,7 @@ public class DemoCallEventListener implements CallEventListener {
 
     @Override
     public void onReject(PushwooshVoIPMessage voIPMessage) {
-        PWLog.info(TAG, "onReject: caller=" + voIPMessage.getCallerName());
+        DemoLog.info(TAG, "onReject: caller={}", voIPMessage.getCallerName());
 
         Context context = AndroidPlatformModule.getApplicationContext();
         if (context != null) {
@@ -37,7 +37,7 @@ public class DemoCallEventListener implements CallEventListener {
 
     @Override
     public void onDisconnect(PushwooshVoIPMessage voIPMessage) {
-        PWLog.info(TAG, "onDisconnect: caller=" + voIPMessage.getCallerName());
+        DemoLog.info(TAG, "onDisconnect: caller={}", voIPMessage.getCallerName());
 
         Context context = AndroidPlatformModule.getApplicationContext();
         if (context != null) {
@@ -47,22 +47,22 @@ public class DemoCallEventListener implements CallEventListener {
 
     @Override
     public void onCreateIncomingConnection(Bundle payload) {
-        PWLog.info(TAG, "onCreateIncomingConnection");
+        DemoLog.info(TAG, "onCreateIncomingConnection");
     }
 
     @Override
     public void onCallAdded(PushwooshVoIPMessage voIPMessage) {
-        PWLog.info(TAG, "onCallAdded: caller=" + voIPMessage.getCallerName());
+        DemoLog.info(TAG, "onCallAdded: caller={}", voIPMessage.getCallerName());
     }
 
     @Override
     public void onCallRemoved(PushwooshVoIPMessage voIPMessage) {
-        PWLog.info(TAG, "onCallRemoved: caller=" + voIPMessage.getCallerName());
+        DemoLog.info(TAG, "onCallRemoved: caller={}", voIPMessage.getCallerName());
     }
 
     @Override
     public void onCallCancelled(PushwooshVoIPMessage voIPMessage) {
-        PWLog.info(TAG, "onCallCancelled: caller=" + voIPMessage.getCallerName() + ", callId=" + voIPMessage.getCallId());
+        DemoLog.info(TAG, "onCallCancelled: caller={}, callId={}", voIPMessage.getCallerName(), voIPMessage.getCallId());
 
         Context context = AndroidPlatformModule.getApplicationContext();
         if (context != null) {
@@ -79,9 +79,9 @@ public class DemoCallEventListener implements CallEventListener {
 
             try {
                 context.startActivity(intent);
-                PWLog.info(TAG, "Launched CallCancelledActivity");
+                DemoLog.info(TAG, "Launched CallCancelledActivity");
             } catch (Exception e) {
-                PWLog.error(TAG, "Failed to launch CallCancelledActivity", e);
+                DemoLog.error(TAG, "Failed to launch CallCancelledActivity", e);
                 Toast.makeText(context, "Call cancelled from " + callerName, Toast.LENGTH_LONG).show();
             }
         }
@@ -89,7 +89,7 @@ public class DemoCallEventListener implements CallEventListener {
 
     @Override
     public void onCallCancellationFailed(String callId, String reason) {
-        PWLog.warn(TAG, "onCallCancellationFailed: callId=" + callId + ", reason=" + reason);
+        DemoLog.warn(TAG, "onCallCancellationFailed: callId={}, reason={}", callId, reason);
 
         Context context = AndroidPlatformModule.getApplicationContext();
         if (context != null) {
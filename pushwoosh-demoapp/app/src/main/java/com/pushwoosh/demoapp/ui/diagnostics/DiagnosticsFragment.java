@@ -0,0 +1,199 @@
+package com.pushwoosh.demoapp.ui.diagnostics;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.fragment.app.Fragment;
+
+import com.google.android.material.snackbar.Snackbar;
+import com.pushwoosh.demoapp.databinding.FragmentDiagnosticsBinding;
+import com.pushwoosh.demoapp.log.DemoLog;
+import com.pushwoosh.demoapp.metrics.MetricsRegistry;
+import com.pushwoosh.demoapp.sdk.PushProviderProbe;
+
+import org.json.JSONException;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Shows the {@link MetricsRegistry} live: SDK call latencies, event schema checks, push receive rate
+ * and routing, the push provider probe, in-app present latency, WebView warm-up, stories frame
+ * preloading, inbox load and search timings, tag mirror reads and reconciles, row inflations, and
+ * cache hit rates.
+ * <p>
+ * The text is rebuilt at most once per {@link #REFRESH_INTERVAL_MS} and only while the screen is
+ * resumed, so watching the numbers does not itself show up in them. "Export report" hands the current
+ * snapshot as JSON, followed by {@link DemoLog}'s recent entries, to any app that accepts text, so
+ * measurements and the log around them can be taken off a device without adb.
+ */
+public class DiagnosticsFragment extends Fragment {
+
+    private static final String TAG = "DiagnosticsFragment";
+
+    static final long REFRESH_INTERVAL_MS = 1_000;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final StringBuilder text = new StringBuilder(1024);
+
+    private FragmentDiagnosticsBinding binding;
+
+    private final Runnable refresh = new Runnable() {
+        @Override
+        public void run() {
+            render(MetricsRegistry.getInstance().snapshot());
+            handler.postDelayed(this, REFRESH_INTERVAL_MS);
+        }
+    };
+
+    @Override
+    public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
+        binding = FragmentDiagnosticsBinding.inflate(inflater, container, false);
+        binding.buttonExportMetrics.setOnClickListener(v -> export());
+        // Only this screen shows the provider, so the first visit is what starts resolving it.
+        PushProviderProbe.init(requireContext());
+        return binding.getRoot();
+    }
+
+    @Override
+    public void onResume() {
+        super.onResume();
+        handler.post(refresh);
+    }
+
+    @Override
+    public void onPause() {
+        super.onPause();
+        handler.removeCallbacks(refresh);
+    }
+
+    private void render(@NonNull MetricsRegistry.Snapshot snapshot) {
+        if (binding == null) {
+            return;
+        }
+        text.setLength(0);
+
+        text.append("SDK calls (request → callback)\n");
+        appendHistogram(snapshot, MetricsRegistry.SDK_SET_TAGS, "setTags");
+        appendHistogram(snapshot, MetricsRegistry.SDK_POST_EVENT, "postEvent");
+        appendHistogram(snapshot, MetricsRegistry.SDK_SET_USER_ID, "setUserId");
+
+        text.append("\nEvents (local schema check)\n");
+        MetricsRegistry.HistogramValue validations = snapshot.histograms.get(MetricsRegistry.EVENTS_VALIDATE);
+        text.append(String.format(Locale.US, "  %-10s n=%d p50=%dµs p99=%dµs, %d rejected\n", "validate",
+                validations != null ? validations.count : 0,
+                validations != null ? validations.p50Micros : 0, validations != null ? validations.p99Micros : 0,
+                valueOf(snapshot.counters, MetricsRegistry.EVENTS_REJECTED)));
+
+        text.append("\nPushes\n");
+        MetricsRegistry.MeterValue pushes = snapshot.meters.get(MetricsRegistry.PUSH_RECEIVED);
+        text.append(String.format(Locale.US, "  received   %d total, %.2f/s (last minute)\n",
+                pushes != null ? pushes.count : 0, pushes != null ? pushes.ratePerSecond : 0));
+        appendHistogram(snapshot, MetricsRegistry.PUSH_ROUTE, "route");
+
+        text.append("\nPush provider (").append(providerName()).append(")\n");
+        appendHistogram(snapshot, MetricsRegistry.PUSH_PROBE, "probe");
+        appendHistogram(snapshot, MetricsRegistry.PUSH_PROBE_CACHED, "cached");
+
+        text.append("\nIn-app (tap → first frame)\n");
+        appendHistogram(snapshot, MetricsRegistry.INAPP_PRESENT, "present");
+
+        text.append("\nWebView warm-up\n");
+        appendHistogram(snapshot, MetricsRegistry.WEBVIEW_CREATE_COLD, "engine");
+
+        text.append("\nStories (preloaded frames, estimated timeline)\n");
+        appendHistogram(snapshot, MetricsRegistry.STORIES_DOWNLOAD, "download");
+        text.append(String.format(Locale.US, "  %-10s %d advanced\n", "frames",
+                valueOf(snapshot.counters, MetricsRegistry.STORIES_FRAMES)));
+
+        text.append("\nScreens (onCreateView → first draw)\n");
+        appendHistogram(snapshot, MetricsRegistry.HOME_FIRST_FRAME, "home");
+
+        text.append("\nInbox\n");
+        appendHistogram(snapshot, MetricsRegistry.INBOX_FIRST_ROW, "first row");
+        appendHistogram(snapshot, MetricsRegistry.INBOX_LOAD, "load");
+        appendHistogram(snapshot, MetricsRegistry.INBOX_SEARCH, "search");
+        Long snapshotBytes = snapshot.gauges.get(MetricsRegistry.INBOX_SNAPSHOT_BYTES);
+        text.append(String.format(Locale.US, "  %-10s %s\n", "snapshot",
+                snapshotBytes != null ? snapshotBytes + " bytes" : "—"));
+
+        text.append("\nTags (local mirror)\n");
+        MetricsRegistry.HistogramValue tagReads = snapshot.histograms.get(MetricsRegistry.TAGS_READ);
+        text.append(String.format(Locale.US, "  %-10s n=%d p50=%dµs p99=%dµs\n", "read",
+                tagReads != null ? tagReads.count : 0,
+                tagReads != null ? tagReads.p50Micros : 0, tagReads != null ? tagReads.p99Micros : 0));
+        text.append(String.format(Locale.US, "  %-10s %d runs, %d failed, %d tags corrected\n", "reconcile",
+                valueOf(snapshot.counters, MetricsRegistry.TAGS_RECONCILE),
+                valueOf(snapshot.counters, MetricsRegistry.TAGS_RECONCILE + ".errors"),
+                valueOf(snapshot.counters, MetricsRegistry.TAGS_RECONCILE + ".changed")));
+
+        text.append("\nMessage rows (inbox preview and search)\n");
+        appendHistogram(snapshot, MetricsRegistry.VIEW_INFLATE, "inflate");
+
+        text.append("\nCache hit rates\n");
+        if (snapshot.cacheHitRates.isEmpty()) {
+            text.append("  no lookups yet\n");
+        }
+        for (Map.Entry<String, Double> cache : snapshot.cacheHitRates.entrySet()) {
+            text.append(String.format(Locale.US, "  %-10s %5.1f%%\n", cache.getKey(), cache.getValue() * 100));
+        }
+
+        binding.metricsText.setText(text);
+    }
+
+    private void appendHistogram(@NonNull MetricsRegistry.Snapshot snapshot, @NonNull String metric, @NonNull String label) {
+        MetricsRegistry.HistogramValue value = snapshot.histograms.get(metric);
+        if (value == null || value.count == 0) {
+            text.append(String.format(Locale.US, "  %-10s —\n", label));
+            return;
+        }
+        Long errors = snapshot.counters.get(metric + ".errors");
+        text.append(String.format(Locale.US, "  %-10s n=%d p50=%.1fms p90=%.1fms p99=%.1fms max=%.1fms",
+                label, value.count,
+                value.p50Micros / 1000.0, value.p90Micros / 1000.0, value.p99Micros / 1000.0, value.maxMicros / 1000.0));
+        if (errors != null && errors > 0) {
+            text.append(" errors=").append(errors);
+        }
+        text.append('\n');
+    }
+
+    @NonNull
+    private static String providerName() {
+        PushProviderProbe.Provider provider = PushProviderProbe.getInstance().getProvider();
+        return provider != null ? provider.name() : "resolving";
+    }
+
+    private static long valueOf(@NonNull Map<String, Long> counters, @NonNull String name) {
+        Long value = counters.get(name);
+        return value != null ? value : 0;
+    }
+
+    private void export() {
+        String json;
+        try {
+            json = MetricsRegistry.getInstance().snapshot().toJson().toString(2);
+        } catch (JSONException e) {
+            DemoLog.error(TAG, "Failed to export metrics", e);
+            Snackbar.make(binding.getRoot(), "Export failed: " + e.getMessage(), Snackbar.LENGTH_SHORT).show();
+            return;
+        }
+        Intent send = new Intent(Intent.ACTION_SEND)
+                .setType("text/plain")
+                .putExtra(Intent.EXTRA_SUBJECT, "Pushwoosh demo metrics and log")
+                .putExtra(Intent.EXTRA_TEXT, json + "\n\n--- Recent log ---\n" + DemoLog.dump());
+        startActivity(Intent.createChooser(send, "Export report"));
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        handler.removeCallbacks(refresh);
+        binding = null;
+    }
+}
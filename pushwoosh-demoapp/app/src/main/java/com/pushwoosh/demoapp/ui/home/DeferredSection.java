@@ -0,0 +1,93 @@
+package com.pushwoosh.demoapp.ui.home;
+
+import android.view.Choreographer;
+import android.view.View;
+import android.view.ViewParent;
+import android.view.ViewStub;
+import android.widget.ScrollView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * A {@link ViewStub}-backed section of a scrolling screen that is inflated, and bound, only once it
+ * comes within {@code prefetchPx} of the viewport.
+ * <p>
+ * Nothing is checked before the screen's first frame, so the section never costs first-frame time
+ * even when it would be visible straight away; in that case it inflates on the following frame.
+ */
+final class DeferredSection {
+
+    /** Wires up a freshly inflated section. */
+    interface Binder {
+        void bind(@NonNull View section);
+    }
+
+    private final ScrollView scrollView;
+    private final ViewStub stub;
+    private final int prefetchPx;
+    private final Binder binder;
+
+    @Nullable private View section;
+    private boolean attached;
+
+    private final Runnable check = this::inflateIfNear;
+    // Frame callbacks run before that frame's layout; a post from inside one runs after the whole
+    // frame, when the stub has a position to check.
+    private final Choreographer.FrameCallback afterFirstFrame = frameTimeNanos -> scrollView.post(check);
+
+    DeferredSection(@NonNull ScrollView scrollView, @NonNull ViewStub stub, int prefetchPx, @NonNull Binder binder) {
+        this.scrollView = scrollView;
+        this.stub = stub;
+        this.prefetchPx = prefetchPx;
+        this.binder = binder;
+    }
+
+    void attach() {
+        attached = true;
+        scrollView.setOnScrollChangeListener((v, scrollX, scrollY, oldScrollX, oldScrollY) -> inflateIfNear());
+        Choreographer.getInstance().postFrameCallback(afterFirstFrame);
+    }
+
+    void detach() {
+        attached = false;
+        scrollView.setOnScrollChangeListener(null);
+        Choreographer.getInstance().removeFrameCallback(afterFirstFrame);
+        scrollView.removeCallbacks(check);
+    }
+
+    boolean isInflated() {
+        return section != null;
+    }
+
+    /** Inflates and binds now, regardless of scroll position. */
+    void inflate() {
+        if (section != null) {
+            return;
+        }
+        section = stub.inflate();
+        binder.bind(section);
+        // Once inflated there is nothing left to watch for.
+        scrollView.setOnScrollChangeListener(null);
+    }
+
+    private void inflateIfNear() {
+        if (!attached || section != null) {
+            return;
+        }
+        int viewportBottom = scrollView.getScrollY() + scrollView.getHeight();
+        if (topInScrollContent(stub) <= viewportBottom + prefetchPx) {
+            inflate();
+        }
+    }
+
+    private int topInScrollContent(@NonNull View view) {
+        int top = view.getTop();
+        ViewParent parent = view.getParent();
+        while (parent instanceof View && parent != scrollView) {
+            top += ((View) parent).getTop();
+            parent = parent.getParent();
+        }
+        return top;
+    }
+}
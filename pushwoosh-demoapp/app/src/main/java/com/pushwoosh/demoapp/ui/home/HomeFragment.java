@@ -1,12 +1,17 @@
 package com.pushwoosh.demoapp.ui.home;
 
 import android.os.Bundle;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.view.Choreographer;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
 import android.widget.Button;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 
 import com.google.android.material.materialswitch.MaterialSwitch;
@@ -14,10 +19,16 @@ import com.google.android.material.snackbar.Snackbar;
 import com.google.android.material.textfield.TextInputEditText;
 import com.pushwoosh.Pushwoosh;
 import com.pushwoosh.demoapp.databinding.FragmentHomeBinding;
+import com.pushwoosh.demoapp.databinding.SectionHomeInappBinding;
+import com.pushwoosh.demoapp.events.EventSchemas;
+import com.pushwoosh.demoapp.metrics.MetricsRegistry;
+import com.pushwoosh.demoapp.sdk.PendingRequestBuffer;
+import com.pushwoosh.demoapp.sdk.TagMirror;
 import com.pushwoosh.inapp.InAppManager;
 import com.pushwoosh.inapp.ui.PushwooshInAppUi;
 import com.pushwoosh.tags.TagsBundle;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
 
@@ -40,9 +51,13 @@ import java.util.Objects;
 public class HomeFragment extends Fragment {
 
     private FragmentHomeBinding binding;
+    private DeferredSection inAppSection;
     private boolean attributeState;
+    @Nullable
+    private StoriesPreloader stories;
 
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
+        long createStart = System.nanoTime();
         binding = FragmentHomeBinding.inflate(inflater, container, false);
         View root = binding.getRoot();
 
@@ -77,6 +92,26 @@ public class HomeFragment extends Fragment {
 
         attributes.setOnCheckedChangeListener((buttonView, isChecked) -> attributeState = isChecked);
 
+        // The key's current value comes from the local TagMirror, so it can follow every keystroke.
+        // The mirror posts its tags once loaded from disk and on every change; refresh the hint then.
+        TagMirror.getInstance().getTags().observe(getViewLifecycleOwner(),
+                tags -> showCurrentTagValue(Objects.toString(textInput1.getText(), "").trim()));
+        showCurrentTagValue(Objects.toString(textInput1.getText(), "").trim());
+        textInput1.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                showCurrentTagValue(s.toString().trim());
+            }
+        });
+
         /*
          * Demonstrates setting user tags for segmentation.
          *
@@ -92,14 +127,15 @@ public class HomeFragment extends Fragment {
                 return;
             }
 
-            TagsBundle tag = new TagsBundle.Builder().putString(key, value).build();
-            Pushwoosh.getInstance().setTags(tag, result -> {
-                if (result.isSuccess()) {
+            PendingRequestBuffer.Outcome outcome = PendingRequestBuffer.getInstance().setTag(key, value, (success, error) -> {
+                if (success) {
+                    showCurrentTagValue(key);
                     showSnackbar("Tag set: " + key + " = " + value);
                 } else {
-                    showSnackbar("Error: " + result.getException());
+                    showSnackbar("Error: " + error);
                 }
             });
+            showBufferedOutcome(outcome, "Tag " + key);
         });
 
         /*
@@ -118,13 +154,14 @@ public class HomeFragment extends Fragment {
                 return;
             }
 
-            Pushwoosh.getInstance().setUserId(user, result -> {
-                if (result.isSuccess()) {
+            PendingRequestBuffer.Outcome outcome = PendingRequestBuffer.getInstance().setUserId(user, (success, error) -> {
+                if (success) {
                     showSnackbar("User registered: " + user);
                 } else {
-                    showSnackbar("Error: " + result.getException());
+                    showSnackbar("Error: " + error);
                 }
             });
+            showBufferedOutcome(outcome, "User " + user);
         });
 
         /*
@@ -144,23 +181,32 @@ public class HomeFragment extends Fragment {
                 return;
             }
 
-            TagsBundle eventAttributes = attributeState
-                    ? new TagsBundle.Builder()
-                            .putInt("price", 99)
-                            .putString("currency", "USD")
-                            .build()
-                    : null;
-
-            InAppManager.getInstance().postEvent(eventName, eventAttributes, result -> {
-                if (result.isSuccess()) {
-                    String msg = attributeState
-                            ? "Event posted: " + eventName + " (with attributes)"
-                            : "Event posted: " + eventName;
-                    showSnackbar(msg);
-                } else {
-                    showSnackbar("Error: " + result.getException());
-                }
-            });
+            Map<String, Object> eventAttributes = null;
+            if (attributeState) {
+                eventAttributes = new LinkedHashMap<>();
+                eventAttributes.put("price", 99);
+                eventAttributes.put("currency", "USD");
+            }
+
+            // Checked locally first: an event the server would reject is not worth the round trip.
+            String problem = EventSchemas.getInstance().validate(eventName, eventAttributes);
+            if (problem != null) {
+                showSnackbar("Not sent: " + problem);
+                return;
+            }
+
+            PendingRequestBuffer.Outcome outcome =
+                    PendingRequestBuffer.getInstance().postEvent(eventName, eventAttributes, (success, error) -> {
+                        if (success) {
+                            String msg = attributeState
+                                    ? "Event posted: " + eventName + " (with attributes)"
+                                    : "Event posted: " + eventName;
+                            showSnackbar(msg);
+                        } else {
+                            showSnackbar("Error: " + error);
+                        }
+                    });
+            showBufferedOutcome(outcome, "Event " + eventName);
         });
 
         /*
@@ -220,38 +266,117 @@ public class HomeFragment extends Fragment {
         /*
          * Demonstrates the native in-app UI module (pushwoosh-inapp-ui).
          *
-         * Use case: preview each native in-app layout locally via PushwooshInAppUi.present(),
-         * feeding a config map — the same shape a push carries in its `u` custom data —
-         * without a server round-trip. See InAppPresets for the configs.
+         * The section sits below the fold, so it is inflated from a ViewStub — and its buttons bound —
+         * only when scrolled within half a screen of the viewport. See bindInAppSection().
          */
-        binding.buttonInAppBanner.setOnClickListener(v -> presentInApp("Banner", InAppPresets.BANNER));
-        binding.buttonInAppModal.setOnClickListener(v -> presentInApp("Modal", InAppPresets.MODAL));
-        binding.buttonInAppModalFloating.setOnClickListener(
+        inAppSection = new DeferredSection(binding.getRoot(), binding.stubInAppSection,
+                getResources().getDisplayMetrics().heightPixels / 2, this::bindInAppSection);
+        inAppSection.attach();
+
+        measureFirstFrame(root, createStart);
+
+        return root;
+    }
+
+    /**
+     * Use case: preview each native in-app layout locally via PushwooshInAppUi.present(),
+     * feeding a config map — the same shape a push carries in its `u` custom data —
+     * without a server round-trip. See InAppPresets for the configs.
+     */
+    private void bindInAppSection(@NonNull View section) {
+        SectionHomeInappBinding inApp = SectionHomeInappBinding.bind(section);
+        inApp.buttonInAppBanner.setOnClickListener(v -> presentInApp("Banner", InAppPresets.BANNER));
+        inApp.buttonInAppModal.setOnClickListener(v -> presentInApp("Modal", InAppPresets.MODAL));
+        inApp.buttonInAppModalFloating.setOnClickListener(
                 v -> presentInApp("Modal (floating)", InAppPresets.MODAL_FLOATING));
-        binding.buttonInAppSheet.setOnClickListener(v -> presentInApp("Sheet", InAppPresets.SHEET));
-        binding.buttonInAppSheetFloating.setOnClickListener(
+        inApp.buttonInAppSheet.setOnClickListener(v -> presentInApp("Sheet", InAppPresets.SHEET));
+        inApp.buttonInAppSheetFloating.setOnClickListener(
                 v -> presentInApp("Sheet (floating)", InAppPresets.SHEET_FLOATING));
-        binding.buttonInAppFullscreen.setOnClickListener(v -> presentInApp("Fullscreen", InAppPresets.FULLSCREEN));
-        binding.buttonInAppCarousel.setOnClickListener(v -> presentInApp("Carousel", InAppPresets.CAROUSEL));
-        binding.buttonInAppStories.setOnClickListener(v -> presentInApp("Stories", InAppPresets.STORIES));
+        inApp.buttonInAppFullscreen.setOnClickListener(v -> presentInApp("Fullscreen", InAppPresets.FULLSCREEN));
+        inApp.buttonInAppCarousel.setOnClickListener(v -> presentInApp("Carousel", InAppPresets.CAROUSEL));
+        inApp.buttonInAppStories.setOnClickListener(v -> presentInApp("Stories", InAppPresets.STORIES));
+    }
 
-        return root;
+    /**
+     * Records the time from the start of {@code onCreateView} to the end of the first draw of the
+     * Home tab under {@link MetricsRegistry#HOME_FIRST_FRAME}.
+     */
+    private static void measureFirstFrame(@NonNull View root, long createStart) {
+        root.getViewTreeObserver().addOnDrawListener(new ViewTreeObserver.OnDrawListener() {
+            private boolean recorded;
+
+            @Override
+            public void onDraw() {
+                if (recorded) {
+                    return;
+                }
+                recorded = true;
+                // Runs once the draw pass is over; listeners cannot be removed from inside onDraw().
+                root.post(() -> {
+                    MetricsRegistry.getInstance().histogram(MetricsRegistry.HOME_FIRST_FRAME)
+                            .recordNanos(System.nanoTime() - createStart);
+                    if (root.getViewTreeObserver().isAlive()) {
+                        root.getViewTreeObserver().removeOnDrawListener(this);
+                    }
+                });
+            }
+        });
     }
 
+    /**
+     * Records the time from the tap to the first frame after {@code present()} returned under
+     * {@link MetricsRegistry#INAPP_PRESENT}, which includes the in-app's own view setup. Stories also
+     * get their upcoming frames fetched by {@link StoriesPreloader}.
+     */
     private void presentInApp(String label, Map<String, ?> config) {
+        long start = System.nanoTime();
         PushwooshInAppUi.present(config);
+        cancelStories();
+        stories = StoriesPreloader.start(requireContext(), config);
+        Choreographer.getInstance().postFrameCallback(frameTimeNanos ->
+                MetricsRegistry.getInstance().histogram(MetricsRegistry.INAPP_PRESENT).recordNanos(System.nanoTime() - start));
         showSnackbar("Presenting: " + label);
     }
 
+    private void showCurrentTagValue(@NonNull String key) {
+        if (binding == null) {
+            return;
+        }
+        String current = key.isEmpty() ? null : TagMirror.getInstance().get(key);
+        binding.textInputLayout2.setHelperText(current != null ? "Currently: " + current : null);
+    }
+
+    /**
+     * While server communication is stopped, calls are held by {@link PendingRequestBuffer} and no
+     * callback fires until the flush — say so instead of staying silent.
+     */
+    private void showBufferedOutcome(PendingRequestBuffer.Outcome outcome, String label) {
+        if (outcome == PendingRequestBuffer.Outcome.QUEUED) {
+            showSnackbar(label + " queued until server communication resumes");
+        } else if (outcome == PendingRequestBuffer.Outcome.DROPPED) {
+            showSnackbar(label + " dropped: offline buffer is full");
+        }
+    }
+
     private void showSnackbar(String message) {
         if (binding != null) {
             Snackbar.make(binding.getRoot(), message, Snackbar.LENGTH_SHORT).show();
         }
     }
 
+    private void cancelStories() {
+        if (stories != null) {
+            stories.cancel();
+            stories = null;
+        }
+    }
+
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        cancelStories();
+        inAppSection.detach();
+        inAppSection = null;
         binding = null;
     }
 }
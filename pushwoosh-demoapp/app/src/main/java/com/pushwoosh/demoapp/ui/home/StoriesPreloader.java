@@ -0,0 +1,191 @@
+package com.pushwoosh.demoapp.ui.home;
+
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+import android.util.SparseArray;
+import android.view.Choreographer;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.request.target.CustomTarget;
+import com.bumptech.glide.request.transition.Transition;
+import com.pushwoosh.demoapp.metrics.MetricsRegistry;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fetches the next frames of a stories in-app while the current one plays, so an advance does not
+ * wait on the network.
+ * <p>
+ * The SDK draws the story and reports no playback events, so this follows the story's own timeline:
+ * a {@link StoryTimeline} started on the vsync after {@code present()}, using each item's
+ * {@code duration}. Between advances it sleeps until the next frame's deadline with a delayed
+ * {@link Choreographer} callback, so a story costs one wakeup per frame rather than one per vsync.
+ * Frames {@code n + 1} and {@code n + 2} are downloaded into Glide's disk cache with
+ * {@code downloadOnly()}, untouched by any decode: the SDK decodes at the size it lays the story out
+ * at, so a bitmap decoded here at a guessed size would be thrown away. A download still running when
+ * its frame has played is cancelled. Taps that skip or close the story are not seen, so the timeline
+ * simply runs out at the last frame, a handful of wakeups later.
+ * <p>
+ * Reports the {@code stories.frames} counter of estimated advances and the download time histogram
+ * to {@link MetricsRegistry}.
+ */
+public final class StoriesPreloader implements Choreographer.FrameCallback, StoryTimeline.Listener {
+
+    static final int LOOKAHEAD = 2;
+
+    // Used when an item has no duration of its own.
+    private static final long DEFAULT_DURATION_SECONDS = 5;
+
+    private final RequestManager glide;
+    private final List<String> images;
+    private final StoryTimeline timeline;
+    private final SparseArray<FrameTarget> downloads = new SparseArray<>();
+
+    private boolean started;
+    private boolean cancelled;
+
+    /**
+     * Starts preloading for {@code config} if it is a stories in-app with more than one frame.
+     *
+     * @return the running preloader, to {@link #cancel()} when it is no longer needed; null if there
+     *         is nothing to preload
+     */
+    @MainThread
+    @Nullable
+    public static StoriesPreloader start(@NonNull Context context, @NonNull Map<String, ?> config) {
+        if (!"stories".equals(config.get("displayType"))) {
+            return null;
+        }
+        Object stories = config.get("stories");
+        Object items = stories instanceof Map ? ((Map<?, ?>) stories).get("items") : null;
+        if (!(items instanceof List) || ((List<?>) items).size() < 2) {
+            return null;
+        }
+
+        List<?> frames = (List<?>) items;
+        List<String> images = new ArrayList<>(frames.size());
+        long[] durations = new long[frames.size()];
+        for (int i = 0; i < frames.size(); i++) {
+            Map<?, ?> frame = frames.get(i) instanceof Map ? (Map<?, ?>) frames.get(i) : null;
+            Object image = frame != null ? frame.get("image") : null;
+            Object duration = frame != null ? frame.get("duration") : null;
+            images.add(image instanceof String ? (String) image : null);
+            durations[i] = TimeUnit.SECONDS.toNanos(
+                    duration instanceof Number ? ((Number) duration).longValue() : DEFAULT_DURATION_SECONDS);
+        }
+
+        StoriesPreloader preloader = new StoriesPreloader(context.getApplicationContext(), images, durations);
+        Choreographer.getInstance().postFrameCallback(preloader);
+        return preloader;
+    }
+
+    private StoriesPreloader(@NonNull Context context, @NonNull List<String> images, @NonNull long[] durations) {
+        this.glide = Glide.with(context);
+        this.images = images;
+        this.timeline = new StoryTimeline(durations, LOOKAHEAD, this);
+    }
+
+    /** Stops following the story and cancels the downloads still running. */
+    @MainThread
+    public void cancel() {
+        if (cancelled) {
+            return;
+        }
+        cancelled = true;
+        Choreographer.getInstance().removeFrameCallback(this);
+        for (int i = 0; i < downloads.size(); i++) {
+            glide.clear(downloads.valueAt(i));
+        }
+        downloads.clear();
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (cancelled) {
+            return;
+        }
+        boolean running;
+        if (!started) {
+            started = true;
+            timeline.start(frameTimeNanos);
+            running = true;
+        } else {
+            running = timeline.onFrame(frameTimeNanos);
+        }
+        if (running) {
+            // Frame times share System.nanoTime()'s clock.
+            long untilDeadline = timeline.nextDeadlineNanos() - System.nanoTime();
+            Choreographer.getInstance().postFrameCallbackDelayed(this,
+                    Math.max(0, TimeUnit.NANOSECONDS.toMillis(untilDeadline)));
+        }
+    }
+
+    @Override
+    public void onPreload(int frame) {
+        String url = images.get(frame);
+        if (url == null) {
+            // A text-only frame has nothing to fetch.
+            return;
+        }
+        FrameTarget target = new FrameTarget(frame);
+        downloads.put(frame, target);
+        glide.downloadOnly().load(url).into(target);
+    }
+
+    @Override
+    public void onRelease(int frame) {
+        FrameTarget target = downloads.get(frame);
+        if (target != null) {
+            downloads.remove(frame);
+            glide.clear(target);
+        }
+    }
+
+    @Override
+    public void onAdvance(int frame) {
+        MetricsRegistry.getInstance().counter(MetricsRegistry.STORIES_FRAMES).increment();
+    }
+
+    @Override
+    public void onFinished() {
+        cancel();
+    }
+
+    /** Tracks one frame's download; Glide delivers to it on the main thread. */
+    private final class FrameTarget extends CustomTarget<File> {
+        private final int frame;
+        private final long requestedAt = System.nanoTime();
+
+        FrameTarget(int frame) {
+            this.frame = frame;
+        }
+
+        @Override
+        public void onResourceReady(@NonNull File resource, @Nullable Transition<? super File> transition) {
+            MetricsRegistry.getInstance().histogram(MetricsRegistry.STORIES_DOWNLOAD)
+                    .recordNanos(System.nanoTime() - requestedAt);
+            // In the disk cache now; nothing left to cancel.
+            downloads.remove(frame);
+        }
+
+        @Override
+        public void onLoadFailed(@Nullable Drawable errorDrawable) {
+            MetricsRegistry.getInstance().counter(MetricsRegistry.STORIES_DOWNLOAD + ".errors").increment();
+            downloads.remove(frame);
+        }
+
+        @Override
+        public void onLoadCleared(@Nullable Drawable placeholder) {
+            // The file stays in Glide's disk cache; nothing is held here.
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.pushwoosh.demoapp.ui.home;
+
+import androidx.annotation.NonNull;
+
+/**
+ * When each frame of an auto-advancing story is due on screen, which frames to fetch ahead and which
+ * to let go, driven by vsync frame times.
+ * <p>
+ * This is an estimate of the story's own timeline, which the SDK does not report. Frame deadlines are
+ * fixed at {@link #start}: frame {@code i} ends at the start time plus the durations of frames
+ * {@code 0..i}, so a slow frame never pushes back the ones after it. An advance happens on the first
+ * frame time at or after its deadline.
+ * <p>
+ * While frame {@code n} plays, frames {@code n + 1 .. n + lookahead} are requested; frame {@code n} is
+ * released once it has played. Main thread only.
+ */
+final class StoryTimeline {
+
+    interface Listener {
+        void onPreload(int frame);
+
+        void onRelease(int frame);
+
+        void onAdvance(int frame);
+
+        void onFinished();
+    }
+
+    private final long[] durationsNanos;
+    private final long[] deadlines;
+    private final int lookahead;
+    private final Listener listener;
+
+    private int current = -1;
+    private int requested;
+
+    StoryTimeline(@NonNull long[] durationsNanos, int lookahead, @NonNull Listener listener) {
+        this.durationsNanos = durationsNanos.clone();
+        this.deadlines = new long[durationsNanos.length];
+        this.lookahead = lookahead;
+        this.listener = listener;
+    }
+
+    /** Frame 0 went on screen at {@code frameTimeNanos}. */
+    void start(long frameTimeNanos) {
+        long end = frameTimeNanos;
+        for (int i = 0; i < durationsNanos.length; i++) {
+            end += durationsNanos[i];
+            deadlines[i] = end;
+        }
+        current = 0;
+        // Frame 0 is already being shown by whoever presented the story.
+        requested = 1;
+        requestAhead();
+    }
+
+    /**
+     * Advances to whatever frame {@code frameTimeNanos} falls in.
+     *
+     * @return false once the last frame has played
+     */
+    boolean onFrame(long frameTimeNanos) {
+        if (current < 0) {
+            throw new IllegalStateException("start() first");
+        }
+        while (current < deadlines.length && frameTimeNanos >= deadlines[current]) {
+            listener.onRelease(current);
+            current++;
+            if (current == deadlines.length) {
+                listener.onFinished();
+                return false;
+            }
+            if (frameTimeNanos >= deadlines[current]) {
+                // Skipped over entirely (e.g. the app was paused); the frame was never shown.
+                continue;
+            }
+            listener.onAdvance(current);
+            requestAhead();
+        }
+        return current < deadlines.length;
+    }
+
+    int currentFrame() {
+        return current;
+    }
+
+    /** When the current frame is due to end, in the clock of the frame times; only while running. */
+    long nextDeadlineNanos() {
+        return deadlines[current];
+    }
+
+    private void requestAhead() {
+        // After a skip the current frame may never have been requested.
+        requested = Math.max(requested, current);
+        int last = Math.min(deadlines.length - 1, current + lookahead);
+        while (requested <= last) {
+            listener.onPreload(requested++);
+        }
+    }
+}
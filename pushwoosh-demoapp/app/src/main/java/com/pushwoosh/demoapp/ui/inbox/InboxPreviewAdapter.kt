@@ -0,0 +1,29 @@
+package com.pushwoosh.demoapp.ui.inbox
+
+import android.view.ViewGroup
+import androidx.recyclerview.widget.RecyclerView
+import com.pushwoosh.demoapp.inbox.InboxSnapshot
+
+/**
+ * Rows of an [InboxSnapshot], decoded as they are bound and styled from [style]; a tap hands the inbox
+ * code to [onOpen].
+ */
+class InboxPreviewAdapter(
+    private val snapshot: InboxSnapshot,
+    private val style: ResolvedInboxStyle,
+    private val onOpen: (String) -> Unit
+) : RecyclerView.Adapter<InboxSearchAdapter.HitViewHolder>() {
+
+    override fun getItemCount(): Int = snapshot.size()
+
+    override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): InboxSearchAdapter.HitViewHolder =
+        InboxSearchAdapter.HitViewHolder.create(parent)
+
+    override fun onBindViewHolder(holder: InboxSearchAdapter.HitViewHolder, position: Int) {
+        val row = snapshot.get(position)
+        holder.applyStyle(style)
+        holder.binding.searchResultTitle.text = row.title
+        holder.binding.searchResultBody.text = row.body
+        holder.binding.root.setOnClickListener { onOpen(row.code) }
+    }
+}
@@ -0,0 +1,66 @@
+package com.pushwoosh.demoapp.ui.inbox
+
+import android.util.TypedValue
+import android.view.LayoutInflater
+import android.view.ViewGroup
+import androidx.recyclerview.widget.DiffUtil
+import androidx.recyclerview.widget.ListAdapter
+import androidx.recyclerview.widget.RecyclerView
+import com.pushwoosh.demoapp.databinding.ItemInboxSearchResultBinding
+import com.pushwoosh.demoapp.inbox.InboxSearchIndex
+import com.pushwoosh.demoapp.metrics.MetricsRegistry
+
+/** Search hits, best first, styled from [style]; a tap hands the message's inbox code to [onOpen]. */
+class InboxSearchAdapter(
+    private val style: ResolvedInboxStyle,
+    private val onOpen: (String) -> Unit
+) : ListAdapter<InboxSearchIndex.Hit, InboxSearchAdapter.HitViewHolder>(DIFF) {
+
+    override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): HitViewHolder = HitViewHolder.create(parent)
+
+    override fun onBindViewHolder(holder: HitViewHolder, position: Int) {
+        val hit = getItem(position)
+        holder.applyStyle(style)
+        holder.binding.searchResultTitle.text = hit.title
+        holder.binding.searchResultBody.text = hit.body
+        holder.binding.root.setOnClickListener { onOpen(hit.code) }
+    }
+
+    class HitViewHolder(val binding: ItemInboxSearchResultBinding) : RecyclerView.ViewHolder(binding.root) {
+        private var style: ResolvedInboxStyle? = null
+
+        /** Styles the row from [style]; a row the pool hands back already styled by it is left as is. */
+        fun applyStyle(style: ResolvedInboxStyle) {
+            if (this.style === style) {
+                return
+            }
+            this.style = style
+            binding.searchResultTitle.typeface = style.titleFont
+            binding.searchResultTitle.setTextSize(TypedValue.COMPLEX_UNIT_PX, style.titleTextSizePx)
+            binding.searchResultTitle.setTextColor(style.titleColors)
+            binding.searchResultBody.typeface = style.descriptionFont
+            binding.searchResultBody.setTextSize(TypedValue.COMPLEX_UNIT_PX, style.descriptionTextSizePx)
+            binding.searchResultBody.setTextColor(style.descriptionColors)
+        }
+
+        companion object {
+            /** Inflates a row, timed under [MetricsRegistry.VIEW_INFLATE]. */
+            fun create(parent: ViewGroup): HitViewHolder {
+                val start = System.nanoTime()
+                val binding = ItemInboxSearchResultBinding.inflate(LayoutInflater.from(parent.context), parent, false)
+                MetricsRegistry.getInstance().histogram(MetricsRegistry.VIEW_INFLATE).recordNanos(System.nanoTime() - start)
+                return HitViewHolder(binding)
+            }
+        }
+    }
+
+    private companion object {
+        val DIFF = object : DiffUtil.ItemCallback<InboxSearchIndex.Hit>() {
+            override fun areItemsTheSame(oldItem: InboxSearchIndex.Hit, newItem: InboxSearchIndex.Hit) =
+                oldItem.code == newItem.code
+
+            override fun areContentsTheSame(oldItem: InboxSearchIndex.Hit, newItem: InboxSearchIndex.Hit) =
+                oldItem.title == newItem.title && oldItem.body == newItem.body
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.pushwoosh.demoapp.ui.inbox;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.ViewModel;
+import androidx.lifecycle.ViewModelProvider;
+
+import com.pushwoosh.demoapp.inbox.InboxSearchIndex;
+import com.pushwoosh.demoapp.inbox.InboxSnapshot;
+import com.pushwoosh.demoapp.log.DemoLog;
+import com.pushwoosh.demoapp.metrics.MetricsRegistry;
+import com.pushwoosh.inbox.PushwooshInbox;
+import com.pushwoosh.inbox.data.InboxMessage;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * State behind the Inbox tab: a preview of the inbox from the last {@link InboxSnapshot}, and search
+ * over the shared {@link InboxSearchIndex}.
+ * <p>
+ * Scope it to the activity. On creation the snapshot is read and published through
+ * {@link #getPreview()} until the screen reports the SDK's inbox list settled with
+ * {@link #withdrawPreview()}. This model never loads the inbox over the network: the SDK's inbox
+ * fragment does that every time it is shown, and {@link #sync()} reads what it loaded from the SDK's
+ * cache to write a new snapshot and reconcile the search index — new pushes are indexed as they
+ * arrive, but messages deleted in the SDK's inbox UI are only noticed this way.
+ * <p>
+ * Queries run on the same background thread, one at a time; a query that is superseded before it
+ * starts is skipped, and only the latest query's hits are published.
+ */
+public class InboxViewModel extends ViewModel {
+
+    private static final String TAG = "InboxViewModel";
+
+    static final int RESULT_LIMIT = 50;
+
+    private static final String SNAPSHOT_FILE = "inbox.snapshot";
+
+    private static final Executor BACKGROUND = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "InboxViewModel"));
+
+    private final File snapshotFile;
+    private final InboxSearchIndex index = InboxSearchIndex.getInstance();
+    private final MutableLiveData<InboxSnapshot> preview = new MutableLiveData<>();
+    private final MutableLiveData<List<InboxSearchIndex.Hit>> results = new MutableLiveData<>();
+    private final AtomicInteger latestQuery = new AtomicInteger();
+    private final AtomicBoolean syncing = new AtomicBoolean();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Main thread only; a snapshot read after the withdrawal is dropped.
+    private boolean previewWithdrawn;
+
+    private volatile String query = "";
+
+    InboxViewModel(@NonNull Context context) {
+        snapshotFile = new File(context.getNoBackupFilesDir(), SNAPSHOT_FILE);
+        BACKGROUND.execute(this::readSnapshot);
+    }
+
+    /** Rows to show until the SDK's inbox list has settled; null after that, or if there is no snapshot. */
+    @NonNull
+    public LiveData<InboxSnapshot> getPreview() {
+        return preview;
+    }
+
+    /** Hits for the current query, best first; empty while the query is blank. */
+    @NonNull
+    public LiveData<List<InboxSearchIndex.Hit>> getResults() {
+        return results;
+    }
+
+    @MainThread
+    public void setQuery(@NonNull String query) {
+        this.query = query;
+        int id = latestQuery.incrementAndGet();
+        if (query.trim().isEmpty()) {
+            results.setValue(Collections.<InboxSearchIndex.Hit>emptyList());
+            return;
+        }
+        BACKGROUND.execute(() -> search(id, query));
+    }
+
+    /** The SDK's inbox list has rows, or has finished loading without them; the preview is not shown again. */
+    @MainThread
+    public void withdrawPreview() {
+        previewWithdrawn = true;
+        preview.setValue(null);
+    }
+
+    /**
+     * Refreshes the snapshot and the search index from the messages the SDK's inbox has cached,
+     * unless a sync is already running. Reads no more than the SDK's local store.
+     */
+    public void sync() {
+        if (!syncing.compareAndSet(false, true)) {
+            return;
+        }
+        PushwooshInbox.loadCachedMessages(result -> {
+            syncing.set(false);
+            Collection<InboxMessage> messages = result.getData();
+            if (!result.isSuccess() || messages == null) {
+                DemoLog.error(TAG, "Reading the SDK's inbox cache failed, keeping the current snapshot and index",
+                        result.getException());
+                return;
+            }
+            BACKGROUND.execute(() -> onLoaded(messages));
+        });
+    }
+
+    @WorkerThread
+    private void readSnapshot() {
+        try {
+            InboxSnapshot snapshot = InboxSnapshot.read(snapshotFile);
+            if (snapshot != null) {
+                MetricsRegistry.getInstance().gauge(MetricsRegistry.INBOX_SNAPSHOT_BYTES).set(snapshot.bytes());
+                mainHandler.post(() -> {
+                    if (!previewWithdrawn) {
+                        preview.setValue(snapshot);
+                    }
+                });
+            }
+        } catch (IOException e) {
+            DemoLog.error(TAG, "Discarding unreadable inbox snapshot", e);
+            snapshotFile.delete();
+        }
+    }
+
+    @WorkerThread
+    private void onLoaded(@NonNull Collection<InboxMessage> messages) {
+        List<String> codes = new ArrayList<>(messages.size());
+        List<InboxSnapshot.Row> rows = new ArrayList<>(messages.size());
+        for (InboxMessage message : messages) {
+            index.put(message.getCode(), message.getTitle(), message.getMessage());
+            codes.add(message.getCode());
+            rows.add(new InboxSnapshot.Row(message.getCode(), message.getTitle(), message.getMessage()));
+        }
+        index.retainAll(codes);
+        writeSnapshot(rows);
+
+        // Refresh what is on screen against the reconciled index.
+        String current = query;
+        if (!current.trim().isEmpty()) {
+            search(latestQuery.get(), current);
+        }
+    }
+
+    @WorkerThread
+    private void writeSnapshot(@NonNull List<InboxSnapshot.Row> rows) {
+        try {
+            int bytes = InboxSnapshot.write(snapshotFile, rows, System.currentTimeMillis());
+            MetricsRegistry.getInstance().gauge(MetricsRegistry.INBOX_SNAPSHOT_BYTES).set(bytes);
+        } catch (IOException e) {
+            DemoLog.error(TAG, "Failed to write the inbox snapshot", e);
+        }
+    }
+
+    @WorkerThread
+    private void search(int id, @NonNull String query) {
+        if (id != latestQuery.get()) {
+            return;
+        }
+        long start = System.nanoTime();
+        List<InboxSearchIndex.Hit> hits = index.search(query, RESULT_LIMIT);
+        MetricsRegistry.getInstance().histogram(MetricsRegistry.INBOX_SEARCH).recordNanos(System.nanoTime() - start);
+        if (id == latestQuery.get()) {
+            results.postValue(hits);
+        }
+    }
+
+    /** Creates the view model with the snapshot in the app's no-backup files. */
+    public static final class Factory implements ViewModelProvider.Factory {
+        private final Context context;
+
+        public Factory(@NonNull Context context) {
+            this.context = context.getApplicationContext();
+        }
+
+        @NonNull
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T extends ViewModel> T create(@NonNull Class<T> modelClass) {
+            return (T) new InboxViewModel(context);
+        }
+    }
+}
@@ -1,18 +1,37 @@
 package com.pushwoosh.demoapp.ui.inbox
 
 import android.os.Bundle
+import android.text.Editable
+import android.text.TextWatcher
 import android.view.LayoutInflater
 import android.view.View
 import android.view.ViewGroup
+import android.view.ViewTreeObserver
 import androidx.fragment.app.Fragment
+import androidx.lifecycle.ViewModelProvider
+import androidx.recyclerview.widget.RecyclerView
+import androidx.swiperefreshlayout.widget.SwipeRefreshLayout
 import com.pushwoosh.demoapp.R
+import com.pushwoosh.demoapp.databinding.FragmentInboxWrapperBinding
+import com.pushwoosh.demoapp.deeplink.PushRoutes
+import com.pushwoosh.demoapp.inbox.UnreadCountTracker
+import com.pushwoosh.demoapp.metrics.MetricsRegistry
+import com.pushwoosh.inbox.PushwooshInbox
 import com.pushwoosh.inbox.ui.PushwooshInboxStyle
 import com.pushwoosh.inbox.ui.presentation.view.fragment.InboxFragment
 
 class InboxWrapperFragment : Fragment() {
 
+    private var binding: FragmentInboxWrapperBinding? = null
+    private val inbox by lazy {
+        // Activity-scoped: coming back to the tab reuses the loaded index instead of loading again.
+        ViewModelProvider(requireActivity(), InboxViewModel.Factory(requireContext()))[InboxViewModel::class.java]
+    }
+    private var createStart = 0L
+
     override fun onCreate(savedInstanceState: Bundle?) {
         super.onCreate(savedInstanceState)
+        // Embedded under the activity's own toolbar; the SDK's standalone inbox keeps its own.
         PushwooshInboxStyle.showToolbar = false
     }
 
@@ -20,7 +39,10 @@ class InboxWrapperFragment : Fragment() {
         inflater: LayoutInflater,
         container: ViewGroup?,
         savedInstanceState: Bundle?
-    ): View = inflater.inflate(R.layout.fragment_inbox_wrapper, container, false)
+    ): View {
+        createStart = System.nanoTime()
+        return FragmentInboxWrapperBinding.inflate(inflater, container, false).also { binding = it }.root
+    }
 
     override fun onViewCreated(view: View, savedInstanceState: Bundle?) {
         super.onViewCreated(view, savedInstanceState)
@@ -31,6 +53,121 @@ class InboxWrapperFragment : Fragment() {
                 .replace(R.id.inbox_container, InboxFragment())
                 .commitNow()
         }
+        val binding = requireNotNull(binding)
+        // Resolved once per configuration; recreating the fragment reuses it, and rows bind from it alone.
+        val style = ResolvedInboxStyle.get(requireContext())
+        bindPreview(binding, style)
+        watchSdkInbox(binding)
+        bindSearch(binding, style)
+        openRoutedMessage()
+    }
+
+    /**
+     * Opens the message a routed push named ([PushRoutes.ARG_INBOX_CODE]), once: the argument is
+     * consumed so a recreated fragment does not open it again.
+     */
+    private fun openRoutedMessage() {
+        val arguments = arguments ?: return
+        val code = arguments.getString(PushRoutes.ARG_INBOX_CODE) ?: return
+        arguments.remove(PushRoutes.ARG_INBOX_CODE)
+        PushwooshInbox.performAction(code)
+    }
+
+    /**
+     * Shows the last session's first rows over the SDK inbox until the SDK's list settles, so a cold
+     * start has something to show before the list fills in.
+     */
+    private fun bindPreview(binding: FragmentInboxWrapperBinding, style: ResolvedInboxStyle) {
+        inbox.preview.observe(viewLifecycleOwner) { snapshot ->
+            if (snapshot == null || snapshot.size() == 0) {
+                binding.inboxPreview.visibility = View.GONE
+                binding.inboxPreview.adapter = null
+            } else {
+                binding.inboxPreview.adapter = InboxPreviewAdapter(snapshot, style) { code -> PushwooshInbox.performAction(code) }
+                binding.inboxPreview.visibility = View.VISIBLE
+            }
+        }
+    }
+
+    /**
+     * Watches the SDK's inbox list. The first row drawn, the preview's or the list's, is recorded
+     * under [MetricsRegistry.INBOX_FIRST_ROW]. The list has settled once it has rows, or once its
+     * refresh indicator stops without any (an empty inbox or a failed load); then the preview is
+     * withdrawn, the time goes under [MetricsRegistry.INBOX_LOAD] and [InboxViewModel] syncs from what
+     * the SDK loaded.
+     */
+    private fun watchSdkInbox(binding: FragmentInboxWrapperBinding) {
+        val sdkView = childFragmentManager.findFragmentById(R.id.inbox_container)?.view ?: return
+        val list = findView(sdkView, RecyclerView::class.java)
+        val refresh = findView(sdkView, SwipeRefreshLayout::class.java)
+        val preview = binding.inboxPreview
+        val root = binding.root
+        val start = createStart
+        root.viewTreeObserver.addOnDrawListener(object : ViewTreeObserver.OnDrawListener {
+            private var firstRow = false
+            private var sawRefreshing = false
+            private var settled = false
+
+            override fun onDraw() {
+                val listRows = list != null && list.childCount > 0
+                // Runs once the draw pass is over; views and listeners cannot change from inside onDraw().
+                if (!firstRow && (listRows || (preview.visibility == View.VISIBLE && preview.childCount > 0))) {
+                    firstRow = true
+                    root.post {
+                        MetricsRegistry.getInstance().histogram(MetricsRegistry.INBOX_FIRST_ROW)
+                            .recordNanos(System.nanoTime() - start)
+                    }
+                }
+                if (!settled) {
+                    val refreshing = refresh?.isRefreshing == true
+                    sawRefreshing = sawRefreshing || refreshing
+                    if (listRows || (sawRefreshing && !refreshing)) {
+                        settled = true
+                        root.post {
+                            MetricsRegistry.getInstance().histogram(MetricsRegistry.INBOX_LOAD)
+                                .recordNanos(System.nanoTime() - start)
+                            inbox.withdrawPreview()
+                            inbox.sync()
+                        }
+                    }
+                }
+                if (firstRow && settled) {
+                    root.post {
+                        if (root.viewTreeObserver.isAlive) {
+                            root.viewTreeObserver.removeOnDrawListener(this)
+                        }
+                    }
+                }
+            }
+        })
+    }
+
+    private fun <T : View> findView(view: View, type: Class<T>): T? {
+        if (type.isInstance(view)) {
+            return type.cast(view)
+        }
+        if (view is ViewGroup) {
+            for (i in 0 until view.childCount) {
+                findView(view.getChildAt(i), type)?.let { return it }
+            }
+        }
+        return null
+    }
+
+    private fun bindSearch(binding: FragmentInboxWrapperBinding, style: ResolvedInboxStyle) {
+        val adapter = InboxSearchAdapter(style) { code -> PushwooshInbox.performAction(code) }
+        binding.inboxSearchResults.adapter = adapter
+        binding.inboxSearch.addTextChangedListener(object : TextWatcher {
+            override fun beforeTextChanged(s: CharSequence?, start: Int, count: Int, after: Int) = Unit
+            override fun onTextChanged(s: CharSequence?, start: Int, before: Int, count: Int) = Unit
+            override fun afterTextChanged(s: Editable?) = inbox.setQuery(s?.toString().orEmpty())
+        })
+        inbox.results.observe(viewLifecycleOwner) { hits ->
+            val searching = !binding.inboxSearch.text.isNullOrBlank()
+            adapter.submitList(if (searching) hits else emptyList())
+            binding.inboxSearchResults.visibility = if (searching && hits.isNotEmpty()) View.VISIBLE else View.GONE
+            binding.inboxSearchEmpty.visibility = if (searching && hits.isEmpty()) View.VISIBLE else View.GONE
+        }
     }
 
     override fun onResume() {
@@ -41,5 +178,14 @@ class InboxWrapperFragment : Fragment() {
     override fun onPause() {
         super.onPause()
         PushwooshInboxStyle.showToolbar = null
+        // Reads and deletes happen inside the SDK's inbox UI, which reports them to no one; settle
+        // the unread count on the way out, and the snapshot and search index from the SDK's cache.
+        UnreadCountTracker.getInstance().refresh()
+        inbox.sync()
+    }
+
+    override fun onDestroyView() {
+        super.onDestroyView()
+        binding = null
     }
 }
@@ -0,0 +1,146 @@
+package com.pushwoosh.demoapp.ui.inbox;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.Configuration;
+import android.graphics.Typeface;
+import android.util.DisplayMetrics;
+import android.util.TypedValue;
+
+import androidx.annotation.AnimRes;
+import androidx.annotation.ColorInt;
+import androidx.annotation.ColorRes;
+import androidx.annotation.DrawableRes;
+import androidx.annotation.NonNull;
+import androidx.core.content.ContextCompat;
+
+import com.pushwoosh.demoapp.R;
+import com.pushwoosh.demoapp.metrics.MetricsRegistry;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The inbox's look, resolved from the theme once per configuration: colors, pre-made
+ * {@link ColorStateList}s, {@link Typeface}s and text sizes already in pixels.
+ * <p>
+ * A snapshot is immutable. {@link #get} hands back the current one as long as the night mode, font
+ * scale and density it was resolved for still hold, and otherwise resolves a new one and swaps it in
+ * atomically, so a row bound from a snapshot never sees half of one style and half of the next.
+ * Recreating an activity or fragment reuses the snapshot; only a configuration change that can alter
+ * colors or sizes resolves again, counted under {@code inbox.style.resolve}.
+ * <p>
+ * Text colors are for unread messages by default and read ones in the
+ * {@link android.R.attr#state_activated activated} state.
+ */
+public final class ResolvedInboxStyle {
+
+    public static final float TITLE_TEXT_SIZE_SP = 16f;
+    public static final float DESCRIPTION_TEXT_SIZE_SP = 14f;
+    public static final float DATE_TEXT_SIZE_SP = 12f;
+
+    private static final int[][] READ_STATES = {{android.R.attr.state_activated}, {}};
+
+    private static final AtomicReference<ResolvedInboxStyle> CURRENT = new AtomicReference<>();
+
+    @ColorInt public final int accentColor;
+    @ColorInt public final int backgroundColor;
+    @ColorInt public final int highlightColor;
+    @ColorInt public final int dividerColor;
+    @ColorInt public final int barBackgroundColor;
+    @ColorInt public final int barAccentColor;
+    @ColorInt public final int barTextColor;
+    @NonNull public final ColorStateList titleColors;
+    @NonNull public final ColorStateList descriptionColors;
+    @NonNull public final ColorStateList dateColors;
+    @NonNull public final ColorStateList imageTypeColors;
+    @NonNull public final Typeface titleFont;
+    @NonNull public final Typeface descriptionFont;
+    @NonNull public final Typeface dateFont;
+    public final float titleTextSizePx;
+    public final float descriptionTextSizePx;
+    public final float dateTextSizePx;
+    @NonNull public final String barTitle;
+    @AnimRes public final int listAnimation;
+    @DrawableRes public final int defaultImageIcon;
+
+    private final int nightMode;
+    private final float fontScale;
+    private final int densityDpi;
+
+    private ResolvedInboxStyle(@NonNull Context context, @NonNull Configuration config) {
+        nightMode = config.uiMode & Configuration.UI_MODE_NIGHT_MASK;
+        fontScale = config.fontScale;
+        densityDpi = config.densityDpi;
+
+        accentColor = color(context, R.color.md_theme_primary);
+        backgroundColor = color(context, R.color.md_theme_surface);
+        highlightColor = color(context, R.color.md_theme_surfaceContainerHigh);
+        dividerColor = color(context, R.color.md_theme_outlineVariant);
+        barBackgroundColor = color(context, R.color.md_theme_surface);
+        barAccentColor = color(context, R.color.md_theme_primary);
+        barTextColor = color(context, R.color.md_theme_onSurface);
+        // Read messages use muted variants.
+        titleColors = colors(context, R.color.md_theme_onSurface, R.color.md_theme_outline);
+        descriptionColors = colors(context, R.color.md_theme_onSurfaceVariant, R.color.md_theme_outline);
+        dateColors = colors(context, R.color.md_theme_outline, R.color.md_theme_outlineVariant);
+        imageTypeColors = colors(context, R.color.md_theme_primary, R.color.md_theme_outlineVariant);
+
+        titleFont = Typeface.SERIF;
+        descriptionFont = Typeface.DEFAULT;
+        dateFont = Typeface.DEFAULT;
+        DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+        titleTextSizePx = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, TITLE_TEXT_SIZE_SP, metrics);
+        descriptionTextSizePx = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, DESCRIPTION_TEXT_SIZE_SP, metrics);
+        dateTextSizePx = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, DATE_TEXT_SIZE_SP, metrics);
+
+        barTitle = "Inbox";
+        listAnimation = android.R.anim.fade_in;
+        defaultImageIcon = R.drawable.ic_inbox_message_icon;
+    }
+
+    /** The snapshot for {@code context}'s configuration, resolving it only if that has changed. */
+    @NonNull
+    public static ResolvedInboxStyle get(@NonNull Context context) {
+        Configuration config = context.getResources().getConfiguration();
+        ResolvedInboxStyle current = CURRENT.get();
+        if (current != null && current.matches(config)) {
+            return current;
+        }
+        ResolvedInboxStyle resolved = new ResolvedInboxStyle(context, config);
+        if (!CURRENT.compareAndSet(current, resolved)) {
+            // Resolved concurrently; keep the winner's snapshot if it is for the same configuration.
+            ResolvedInboxStyle winner = CURRENT.get();
+            return winner != null && winner.matches(config) ? winner : resolved;
+        }
+        MetricsRegistry.getInstance().counter(MetricsRegistry.INBOX_STYLE_RESOLVE).increment();
+        return resolved;
+    }
+
+    /** Unread color of {@code colors}. */
+    @ColorInt
+    public static int unread(@NonNull ColorStateList colors) {
+        return colors.getDefaultColor();
+    }
+
+    /** Read color of {@code colors}. */
+    @ColorInt
+    public static int read(@NonNull ColorStateList colors) {
+        return colors.getColorForState(READ_STATES[0], colors.getDefaultColor());
+    }
+
+    private boolean matches(@NonNull Configuration config) {
+        return nightMode == (config.uiMode & Configuration.UI_MODE_NIGHT_MASK)
+                && fontScale == config.fontScale
+                && densityDpi == config.densityDpi;
+    }
+
+    @ColorInt
+    private static int color(@NonNull Context context, @ColorRes int id) {
+        return ContextCompat.getColor(context, id);
+    }
+
+    @NonNull
+    private static ColorStateList colors(@NonNull Context context, @ColorRes int unread, @ColorRes int read) {
+        return new ColorStateList(READ_STATES, new int[]{color(context, read), color(context, unread)});
+    }
+}
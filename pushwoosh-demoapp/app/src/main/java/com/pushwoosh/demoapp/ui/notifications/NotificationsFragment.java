@@ -19,25 +19,26 @@ import com.pushwoosh.calls.PushwooshCallSettings;
 import com.pushwoosh.demoapp.BuildConfig;
 import com.pushwoosh.demoapp.R;
 import com.pushwoosh.demoapp.databinding.FragmentNotificationsBinding;
-import com.pushwoosh.inapp.view.config.ModalRichmediaConfig;
-import com.pushwoosh.inapp.view.config.enums.ModalRichMediaDismissAnimationType;
-import com.pushwoosh.inapp.view.config.enums.ModalRichMediaPresentAnimationType;
-import com.pushwoosh.inapp.view.config.enums.ModalRichMediaSwipeGesture;
+import com.pushwoosh.demoapp.log.DemoLog;
+import com.pushwoosh.demoapp.sdk.PendingRequestBuffer;
 import com.pushwoosh.inapp.view.config.enums.ModalRichMediaViewPosition;
-import com.pushwoosh.inapp.view.config.enums.ModalRichMediaWindowWidth;
 import com.pushwoosh.location.PushwooshLocation;
 import com.pushwoosh.richmedia.RichMediaManager;
 import com.pushwoosh.richmedia.RichMediaType;
 
-import java.util.Collections;
-
 public class NotificationsFragment extends Fragment {
 
+    private static final String TAG = "NotificationsFragment";
+
     private FragmentNotificationsBinding binding;
+    private boolean settingsBound;
 
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
-        NotificationsViewModel notificationsViewModel = new ViewModelProvider(this).get(NotificationsViewModel.class);
+        // Activity-scoped, so the settings snapshot is loaded once and reused when the tab is re-entered.
+        NotificationsViewModel notificationsViewModel = new ViewModelProvider(
+                requireActivity(), new NotificationsViewModel.Factory(requireContext()))
+                .get(NotificationsViewModel.class);
 
         binding = FragmentNotificationsBinding.inflate(inflater, container, false);
         View root = binding.getRoot();
@@ -45,38 +46,104 @@ public class NotificationsFragment extends Fragment {
         binding.aboutSdkVersion.setText(BuildConfig.PUSHWOOSH_SDK_VERSION);
         binding.aboutBuildType.setText(BuildConfig.BUILD_TYPE);
 
+        // The settings controls stay disabled until the snapshot has been read off the main thread;
+        // on re-entry it is already there and this binds immediately.
+        setSettingsEnabled(false);
+        notificationsViewModel.getSettings().observe(getViewLifecycleOwner(), snapshot -> {
+            if (!settingsBound) {
+                settingsBound = true;
+                bindSettings(notificationsViewModel, snapshot);
+                setSettingsEnabled(true);
+            }
+        });
+
+        binding.buttonBackgroundLocation.setOnClickListener(v -> {
+            PushwooshLocation.requestBackgroundLocationPermission();
+        });
+
+        binding.buttonRequestCallPermissions.setOnClickListener(v -> {
+            PushwooshCallSettings.requestCallPermissions(new CallPermissionsCallback() {
+                @Override
+                public void onPermissionResult(
+                        boolean granted,
+                        @NonNull java.util.List<String> grantedPermissions,
+                        @NonNull java.util.List<String> deniedPermissions) {
+                    if (binding == null) return;
+                    String msg = granted ? "Call permissions granted" : "Call permissions denied";
+                    Snackbar.make(binding.getRoot(), msg, Snackbar.LENGTH_SHORT).show();
+                }
+            });
+        });
+
+        return root;
+    }
+
+    private void setSettingsEnabled(boolean enabled) {
+        binding.switch1.setEnabled(enabled);
+        binding.switch2.setEnabled(enabled);
+        binding.switchRichMediaType.setEnabled(enabled);
+        for (int i = 0; i < binding.modalPositionGroup.getChildCount(); i++) {
+            binding.modalPositionGroup.getChildAt(i).setEnabled(enabled);
+        }
+        binding.switchLocationTracking.setEnabled(enabled);
+    }
+
+    /** Shows {@code snapshot}, then wires the controls; initial states are set before any listener exists. */
+    private void bindSettings(@NonNull NotificationsViewModel notificationsViewModel, @NonNull SettingsSnapshot snapshot) {
         MaterialSwitch registerForRemoteNotification = binding.switch1;
         MaterialSwitch communicationServerEnable = binding.switch2;
         MaterialSwitch modalRichMediaEnabled = binding.switchRichMediaType;
 
-        // Set checked status for registerForRemoteNotification switch, if the device is registered
-        String pushToken = Pushwoosh.getInstance().getPushToken();
-        registerForRemoteNotification.setChecked(pushToken != null && !pushToken.isEmpty());
+        // The switch shows the desired state, so a toggle still waiting to go out survives a recreated view.
+        // Flips only record the desired state; the state machine debounces them and merges toggles
+        // made while a request is in flight, so rapid flipping costs at most one request per settle.
+        PushRegistrationStateMachine registration = notificationsViewModel.getRegistration();
+        registerForRemoteNotification.setChecked(registration.isDesiredRegistered());
 
         registerForRemoteNotification.setOnCheckedChangeListener(new CompoundButton.OnCheckedChangeListener() {
             @Override
             public void onCheckedChanged(CompoundButton buttonView, boolean isChecked) {
-                if (isChecked) {
-                    Pushwoosh.getInstance().registerForPushNotifications();
-                } else {
-                    Pushwoosh.getInstance().unregisterForPushNotifications();
-                }
+                registration.setDesired(isChecked);
             }
         });
 
+        // A failed request snaps the desired state back; reflect that on the switch once it settles.
+        registration.getState().observe(getViewLifecycleOwner(), state -> {
+            if (registerForRemoteNotification.isChecked() != registration.isDesiredRegistered()) {
+                registerForRemoteNotification.setChecked(registration.isDesiredRegistered());
+            }
+        });
+
+        // Tags, user id and events sent while communication is stopped are held by PendingRequestBuffer
+        // and flushed as one batch on restart; the flush is reported here.
+        PendingRequestBuffer requestBuffer = PendingRequestBuffer.getInstance();
+        communicationServerEnable.setChecked(snapshot.serverCommunicationEnabled);
         communicationServerEnable.setOnCheckedChangeListener(new CompoundButton.OnCheckedChangeListener() {
             @Override
             public void onCheckedChanged(CompoundButton buttonView, boolean isChecked) {
                 if (isChecked) {
-                    Pushwoosh.getInstance().startServerCommunication();
+                    requestBuffer.startServerCommunication();
                 } else {
-                    Pushwoosh.getInstance().stopServerCommunication();
+                    requestBuffer.stopServerCommunication();
                 }
+                notificationsViewModel.setServerCommunicationEnabled(isChecked);
             }
         });
+        requestBuffer.setFlushListener((stats, failed) -> {
+            DemoLog.info(TAG, "Flushed offline buffer: {}, failed={}", stats, failed);
+            if (binding == null) return;
+            binding.getRoot().post(() -> {
+                if (binding == null) return;
+                Snackbar.make(
+                                binding.getRoot(),
+                                "Flushed " + stats.entries + " buffered requests in " + stats.flushMs + " ms",
+                                Snackbar.LENGTH_SHORT)
+                        .show();
+            });
+        });
 
         // Set checked status for modalRichMediaEnabled switch, if Modal Rich Media is set
-        modalRichMediaEnabled.setChecked(RichMediaManager.getRichMediaType() == RichMediaType.MODAL);
+        modalRichMediaEnabled.setChecked(snapshot.modalRichMedia);
 
         modalRichMediaEnabled.setOnCheckedChangeListener(new CompoundButton.OnCheckedChangeListener() {
             @Override
@@ -86,13 +153,16 @@ public class NotificationsFragment extends Fragment {
                 } else {
                     RichMediaManager.setRichMediaType(RichMediaType.DEFAULT);
                 }
+                notificationsViewModel.setModalRichMedia(isChecked);
             }
         });
 
         // Switches ModalRichmediaConfig.viewPosition at runtime so Phase 2 audit (Task 2.1.e)
         // can exercise all four popup positions (TOP / CENTER / BOTTOM / FULLSCREEN) without
-        // rebuilding the demo app. Default is FULLSCREEN to match MainActivity.setupPushwooshSdk().
+        // rebuilding the demo app. Default is FULLSCREEN to match MainActivity.setupPushwooshSdk(),
+        // which re-applies the chosen position from the view model when the activity is recreated.
         RadioGroup modalPositionGroup = binding.modalPositionGroup;
+        modalPositionGroup.check(radioIdFor(snapshot.modalPosition));
         modalPositionGroup.setOnCheckedChangeListener((group, checkedId) -> {
             ModalRichMediaViewPosition position;
             if (checkedId == R.id.modalPositionTop) {
@@ -104,20 +174,16 @@ public class NotificationsFragment extends Fragment {
             } else {
                 position = ModalRichMediaViewPosition.FULLSCREEN;
             }
-            RichMediaManager.setDefaultRichMediaConfig(new ModalRichmediaConfig()
-                    .setViewPosition(position)
-                    .setPresentAnimationType(ModalRichMediaPresentAnimationType.SLIDE_UP)
-                    .setDismissAnimationType(ModalRichMediaDismissAnimationType.SLIDE_DOWN)
-                    .setSwipeGestures(Collections.singleton(ModalRichMediaSwipeGesture.NONE))
-                    .setWindowWidth(ModalRichMediaWindowWidth.FULL_SCREEN)
-                    .setStatusBarCovered(true)
-                    .setAnimationDuration(300));
+            NotificationsViewModel.applyModalPosition(position);
+            notificationsViewModel.setModalPosition(position);
         });
 
         MaterialSwitch locationTracking = binding.switchLocationTracking;
+        locationTracking.setChecked(snapshot.locationTracking);
         locationTracking.setOnCheckedChangeListener(new CompoundButton.OnCheckedChangeListener() {
             @Override
             public void onCheckedChanged(CompoundButton buttonView, boolean isChecked) {
+                notificationsViewModel.setLocationTracking(isChecked);
                 if (isChecked) {
                     PushwooshLocation.startLocationTracking(result -> {
                         if (binding == null) return;
@@ -139,31 +205,26 @@ public class NotificationsFragment extends Fragment {
                 }
             }
         });
+    }
 
-        binding.buttonBackgroundLocation.setOnClickListener(v -> {
-            PushwooshLocation.requestBackgroundLocationPermission();
-        });
-
-        binding.buttonRequestCallPermissions.setOnClickListener(v -> {
-            PushwooshCallSettings.requestCallPermissions(new CallPermissionsCallback() {
-                @Override
-                public void onPermissionResult(
-                        boolean granted,
-                        @NonNull java.util.List<String> grantedPermissions,
-                        @NonNull java.util.List<String> deniedPermissions) {
-                    if (binding == null) return;
-                    String msg = granted ? "Call permissions granted" : "Call permissions denied";
-                    Snackbar.make(binding.getRoot(), msg, Snackbar.LENGTH_SHORT).show();
-                }
-            });
-        });
-
-        return root;
+    private static int radioIdFor(@NonNull ModalRichMediaViewPosition position) {
+        switch (position) {
+            case TOP:
+                return R.id.modalPositionTop;
+            case CENTER:
+                return R.id.modalPositionCenter;
+            case BOTTOM:
+                return R.id.modalPositionBottom;
+            default:
+                return R.id.modalPositionFullscreen;
+        }
     }
 
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        PendingRequestBuffer.getInstance().setFlushListener(null);
+        settingsBound = false;
         binding = null;
     }
 }
@@ -1,10 +1,210 @@
 package com.pushwoosh.demoapp.ui.notifications;
 
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModel;
+import androidx.lifecycle.ViewModelProvider;
+
+import com.pushwoosh.Pushwoosh;
+import com.pushwoosh.demoapp.sdk.PendingRequestBuffer;
+import com.pushwoosh.inapp.view.config.ModalRichmediaConfig;
+import com.pushwoosh.inapp.view.config.enums.ModalRichMediaDismissAnimationType;
+import com.pushwoosh.inapp.view.config.enums.ModalRichMediaPresentAnimationType;
+import com.pushwoosh.inapp.view.config.enums.ModalRichMediaSwipeGesture;
+import com.pushwoosh.inapp.view.config.enums.ModalRichMediaViewPosition;
+import com.pushwoosh.inapp.view.config.enums.ModalRichMediaWindowWidth;
+import com.pushwoosh.richmedia.RichMediaManager;
+import com.pushwoosh.richmedia.RichMediaType;
+
+import java.util.Collections;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
+/**
+ * State behind the Settings screen. Scope it to the activity: the {@link SettingsSnapshot} is read
+ * once, on a background thread, and re-entering the tab or rotating the screen reuses it.
+ * <p>
+ * Setters update the snapshot immediately on the main thread. Location tracking, which the SDK cannot
+ * report back, is also persisted in the background. The modal position is kept in memory only: every
+ * new process starts from {@code FULLSCREEN}, and {@code MainActivity} re-applies the chosen one from
+ * here when it is recreated.
+ */
 public class NotificationsViewModel extends ViewModel {
 
-    public NotificationsViewModel() {
+    /** Reads the current settings; called once, off the main thread. */
+    interface SettingsSource {
+        @WorkerThread
+        @NonNull
+        SettingsSnapshot load();
+
+        @WorkerThread
+        void saveLocationTracking(boolean tracking);
+    }
+
+    private static final Executor IO = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "NotificationsViewModel"));
+
+    private final SettingsSource source;
+    private final Executor executor;
+    private final MutableLiveData<SettingsSnapshot> settings = new MutableLiveData<>();
+
+    private PushRegistrationStateMachine registration;
+
+    NotificationsViewModel(@NonNull Context context) {
+        this(new PreferencesSettingsSource(context.getApplicationContext()), IO);
+    }
+
+    @VisibleForTesting
+    NotificationsViewModel(@NonNull SettingsSource source, @NonNull Executor executor) {
+        this.source = source;
+        this.executor = executor;
+        executor.execute(() -> settings.postValue(source.load()));
+    }
+
+    /** The settings snapshot; empty until the background load finishes. */
+    @NonNull
+    public LiveData<SettingsSnapshot> getSettings() {
+        return settings;
+    }
+
+    /**
+     * Debounced register/unregister state, seeded from the loaded snapshot; outlives the fragment's
+     * view across configuration changes. Only call once {@link #getSettings()} has a value.
+     */
+    @MainThread
+    @NonNull
+    public PushRegistrationStateMachine getRegistration() {
+        if (registration == null) {
+            SettingsSnapshot snapshot = settings.getValue();
+            if (snapshot == null) {
+                throw new IllegalStateException("Settings are not loaded yet");
+            }
+            registration = new PushRegistrationStateMachine(snapshot.registered);
+        }
+        return registration;
+    }
+
+    @MainThread
+    public void setServerCommunicationEnabled(boolean enabled) {
+        update(current().withServerCommunicationEnabled(enabled));
+    }
+
+    @MainThread
+    public void setModalRichMedia(boolean modal) {
+        update(current().withModalRichMedia(modal));
+    }
+
+    @MainThread
+    public void setModalPosition(@NonNull ModalRichMediaViewPosition position) {
+        update(current().withModalPosition(position));
+    }
+
+    /** The modal position chosen in Settings; {@code FULLSCREEN} until the settings are loaded. */
+    @MainThread
+    @NonNull
+    public ModalRichMediaViewPosition getModalPosition() {
+        SettingsSnapshot snapshot = settings.getValue();
+        return snapshot != null ? snapshot.modalPosition : ModalRichMediaViewPosition.FULLSCREEN;
+    }
+
+    /** Makes the SDK present modal rich media at {@code position}, with the demo's animations. */
+    public static void applyModalPosition(@NonNull ModalRichMediaViewPosition position) {
+        RichMediaManager.setDefaultRichMediaConfig(new ModalRichmediaConfig()
+                .setViewPosition(position)
+                .setPresentAnimationType(ModalRichMediaPresentAnimationType.SLIDE_UP)
+                .setDismissAnimationType(ModalRichMediaDismissAnimationType.SLIDE_DOWN)
+                .setSwipeGestures(Collections.singleton(ModalRichMediaSwipeGesture.NONE))
+                .setWindowWidth(ModalRichMediaWindowWidth.FULL_SCREEN)
+                .setStatusBarCovered(true)
+                .setAnimationDuration(300));
+    }
+
+    @MainThread
+    public void setLocationTracking(boolean tracking) {
+        update(current().withLocationTracking(tracking));
+        executor.execute(() -> source.saveLocationTracking(tracking));
+    }
+
+    @NonNull
+    private SettingsSnapshot current() {
+        SettingsSnapshot snapshot = settings.getValue();
+        if (snapshot == null) {
+            throw new IllegalStateException("Settings are not loaded yet");
+        }
+        return snapshot;
+    }
+
+    private void update(@NonNull SettingsSnapshot snapshot) {
+        settings.setValue(snapshot);
+    }
+
+    @Override
+    protected void onCleared() {
+        // A toggle still inside its debounce window is what the user asked for; send it rather than lose it.
+        if (registration != null) {
+            registration.flushPending();
+        }
+    }
+
+    /** Creates the view model with the app's real settings source. */
+    public static final class Factory implements ViewModelProvider.Factory {
+        private final Context context;
+
+        public Factory(@NonNull Context context) {
+            this.context = context.getApplicationContext();
+        }
+
+        @NonNull
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T extends ViewModel> T create(@NonNull Class<T> modelClass) {
+            return (T) new NotificationsViewModel(context);
+        }
+    }
+
+    /**
+     * SDK state where the SDK can report it; the demo's own location tracking choice, which the SDK
+     * does not expose, in {@link SharedPreferences}.
+     */
+    private static final class PreferencesSettingsSource implements SettingsSource {
+        private static final String PREFS = "demo_settings";
+        private static final String KEY_LOCATION_TRACKING = "location_tracking";
+
+        private final Context context;
+
+        PreferencesSettingsSource(@NonNull Context context) {
+            this.context = context;
+        }
+
+        @NonNull
+        @Override
+        public SettingsSnapshot load() {
+            SharedPreferences prefs = prefs();
+            String pushToken = Pushwoosh.getInstance().getPushToken();
+            boolean communication = !PendingRequestBuffer.getInstance().isServerCommunicationStopped()
+                    && Pushwoosh.getInstance().isServerCommunicationAllowed();
+            return new SettingsSnapshot(
+                    pushToken != null && !pushToken.isEmpty(),
+                    communication,
+                    RichMediaManager.getRichMediaType() == RichMediaType.MODAL,
+                    ModalRichMediaViewPosition.FULLSCREEN,
+                    prefs.getBoolean(KEY_LOCATION_TRACKING, false));
+        }
+
+        @Override
+        public void saveLocationTracking(boolean tracking) {
+            prefs().edit().putBoolean(KEY_LOCATION_TRACKING, tracking).apply();
+        }
 
+        private SharedPreferences prefs() {
+            return context.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        }
     }
-}
\ No newline at end of file
+}
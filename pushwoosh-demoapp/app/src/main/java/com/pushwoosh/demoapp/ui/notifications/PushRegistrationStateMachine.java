@@ -0,0 +1,187 @@
+package com.pushwoosh.demoapp.ui.notifications;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.pushwoosh.Pushwoosh;
+
+/**
+ * Collapses register/unregister toggles into as few SDK requests as possible.
+ * <p>
+ * The Settings switch only records the <em>desired</em> state. A request is issued once the switch
+ * has been quiet for {@link #DEBOUNCE_MS}, and only if the desired state differs from the current
+ * one — so flipping on/off/on costs one request, and on/off costs none. Toggles that arrive while a
+ * request is in flight are merged: when it completes, the machine compares the latest desired state
+ * with the result and issues at most one follow-up request.
+ * <p>
+ * A failed request is not retried; the desired state snaps back to the actual one so the switch
+ * reflects reality. All methods run on the main thread.
+ */
+public class PushRegistrationStateMachine {
+
+    public enum State {
+        UNREGISTERED,
+        REGISTERING,
+        REGISTERED,
+        UNREGISTERING
+    }
+
+    /** Performs the actual register/unregister call and reports completion. */
+    interface Registrar {
+        void register(@NonNull Completion completion);
+
+        void unregister(@NonNull Completion completion);
+    }
+
+    interface Completion {
+        void onComplete(boolean success);
+    }
+
+    /** Main-thread delayed execution; a seam so tests can drive time by hand. */
+    interface Scheduler {
+        void postDelayed(@NonNull Runnable task, long delayMs);
+
+        void cancel(@NonNull Runnable task);
+    }
+
+    static final long DEBOUNCE_MS = 500;
+
+    private final Registrar registrar;
+    private final Scheduler scheduler;
+    private final MutableLiveData<State> state = new MutableLiveData<>();
+    private final Runnable applyDesired = this::applyDesired;
+
+    private boolean registered;
+    private boolean desired;
+    private boolean pending;
+    private boolean inFlight;
+    private int requestCount;
+
+    public PushRegistrationStateMachine(boolean registered) {
+        this(registered, new PushwooshRegistrar(), new HandlerScheduler());
+    }
+
+    @VisibleForTesting
+    PushRegistrationStateMachine(boolean registered, @NonNull Registrar registrar, @NonNull Scheduler scheduler) {
+        this.registrar = registrar;
+        this.scheduler = scheduler;
+        this.registered = registered;
+        this.desired = registered;
+        state.setValue(stableState());
+    }
+
+    @NonNull
+    public LiveData<State> getState() {
+        return state;
+    }
+
+    /** Records the state the user asked for; the request goes out after the debounce window. */
+    @MainThread
+    public void setDesired(boolean register) {
+        desired = register;
+        pending = true;
+        scheduler.cancel(applyDesired);
+        scheduler.postDelayed(applyDesired, DEBOUNCE_MS);
+    }
+
+    /**
+     * The state the user last asked for, which the switch shows: it differs from {@link #getState()}
+     * while a toggle waits out the debounce window or a request is in flight.
+     */
+    @MainThread
+    public boolean isDesiredRegistered() {
+        return desired;
+    }
+
+    /** Applies a toggle still waiting out the debounce window now instead of dropping it. */
+    @MainThread
+    public void flushPending() {
+        if (pending) {
+            scheduler.cancel(applyDesired);
+            applyDesired();
+        }
+    }
+
+    /** Number of register/unregister requests issued so far. */
+    @VisibleForTesting
+    int getRequestCount() {
+        return requestCount;
+    }
+
+    private void applyDesired() {
+        pending = false;
+        if (inFlight) {
+            // Merged: onRequestComplete() reconciles against the latest desired state.
+            return;
+        }
+        if (desired == registered) {
+            state.setValue(stableState());
+            return;
+        }
+
+        boolean target = desired;
+        inFlight = true;
+        requestCount++;
+        state.setValue(target ? State.REGISTERING : State.UNREGISTERING);
+
+        Completion completion = success -> scheduler.postDelayed(() -> onRequestComplete(target, success), 0);
+        if (target) {
+            registrar.register(completion);
+        } else {
+            registrar.unregister(completion);
+        }
+    }
+
+    private void onRequestComplete(boolean target, boolean success) {
+        inFlight = false;
+        if (success) {
+            registered = target;
+        } else {
+            desired = registered;
+        }
+
+        if (desired != registered) {
+            // Toggled while in flight: go straight to the follow-up request without publishing an
+            // intermediate stable state the UI would snap back to.
+            applyDesired();
+        } else {
+            state.setValue(stableState());
+        }
+    }
+
+    private State stableState() {
+        return registered ? State.REGISTERED : State.UNREGISTERED;
+    }
+
+    private static class PushwooshRegistrar implements Registrar {
+        @Override
+        public void register(@NonNull Completion completion) {
+            Pushwoosh.getInstance().registerForPushNotifications(result -> completion.onComplete(result.isSuccess()));
+        }
+
+        @Override
+        public void unregister(@NonNull Completion completion) {
+            Pushwoosh.getInstance().unregisterForPushNotifications(result -> completion.onComplete(result.isSuccess()));
+        }
+    }
+
+    private static class HandlerScheduler implements Scheduler {
+        private final Handler handler = new Handler(Looper.getMainLooper());
+
+        @Override
+        public void postDelayed(@NonNull Runnable task, long delayMs) {
+            handler.postDelayed(task, delayMs);
+        }
+
+        @Override
+        public void cancel(@NonNull Runnable task) {
+            handler.removeCallbacks(task);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.pushwoosh.demoapp.ui.notifications;
+
+import androidx.annotation.NonNull;
+
+import com.pushwoosh.inapp.view.config.enums.ModalRichMediaViewPosition;
+
+/**
+ * Everything the Settings screen shows, read once in the background and then kept by
+ * {@link NotificationsViewModel}. Immutable; changes produce a new snapshot via the {@code with*}
+ * methods.
+ * <p>
+ * {@link #registered} only seeds {@link PushRegistrationStateMachine}; once the machine exists its
+ * state is the source of truth for the registration switch.
+ */
+public final class SettingsSnapshot {
+
+    public final boolean registered;
+    public final boolean serverCommunicationEnabled;
+    public final boolean modalRichMedia;
+    @NonNull public final ModalRichMediaViewPosition modalPosition;
+    public final boolean locationTracking;
+
+    public SettingsSnapshot(
+            boolean registered,
+            boolean serverCommunicationEnabled,
+            boolean modalRichMedia,
+            @NonNull ModalRichMediaViewPosition modalPosition,
+            boolean locationTracking) {
+        this.registered = registered;
+        this.serverCommunicationEnabled = serverCommunicationEnabled;
+        this.modalRichMedia = modalRichMedia;
+        this.modalPosition = modalPosition;
+        this.locationTracking = locationTracking;
+    }
+
+    @NonNull
+    public SettingsSnapshot withServerCommunicationEnabled(boolean enabled) {
+        return new SettingsSnapshot(registered, enabled, modalRichMedia, modalPosition, locationTracking);
+    }
+
+    @NonNull
+    public SettingsSnapshot withModalRichMedia(boolean modal) {
+        return new SettingsSnapshot(registered, serverCommunicationEnabled, modal, modalPosition, locationTracking);
+    }
+
+    @NonNull
+    public SettingsSnapshot withModalPosition(@NonNull ModalRichMediaViewPosition position) {
+        return new SettingsSnapshot(registered, serverCommunicationEnabled, modalRichMedia, position, locationTracking);
+    }
+
+    @NonNull
+    public SettingsSnapshot withLocationTracking(boolean tracking) {
+        return new SettingsSnapshot(registered, serverCommunicationEnabled, modalRichMedia, modalPosition, tracking);
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "SettingsSnapshot{registered=" + registered
+                + ", serverCommunicationEnabled=" + serverCommunicationEnabled
+                + ", modalRichMedia=" + modalRichMedia
+                + ", modalPosition=" + modalPosition
+                + ", locationTracking=" + locationTracking
+                + '}';
+    }
+}
@@ -27,9 +27,7 @@
 package com.pushwoosh.demoapp.utils
 
 import android.content.Context
-import android.graphics.Typeface
-import androidx.core.content.ContextCompat
-import com.pushwoosh.demoapp.R
+import com.pushwoosh.demoapp.ui.inbox.ResolvedInboxStyle
 import com.pushwoosh.inbox.ui.PushwooshInboxStyle
 import com.pushwoosh.inbox.ui.model.customizing.formatter.InboxDateFormatter
 import java.text.SimpleDateFormat
@@ -38,79 +36,72 @@ import java.util.*
 class InboxStyleHelper {
 
     companion object {
+        // The snapshot PushwooshInboxStyle was last filled from; main thread only.
+        private var applied: ResolvedInboxStyle? = null
+
+        /**
+         * Fills PushwooshInboxStyle, which the SDK inbox reads, from the [ResolvedInboxStyle] for
+         * [context]'s configuration. Does nothing while that snapshot is the one already applied, so
+         * recreating an activity leaves the SDK's style alone.
+         */
         fun setupCustomInboxStyle(context: Context) {
-            setupColors(context)
-            setupTexts()
-            setupAnimations()
-            setupImages()
-            setupFonts()
-            setupDateFormatter()
+            val style = ResolvedInboxStyle.get(context)
+            if (style === applied) {
+                return
+            }
+            setupColors(style)
+            setupTexts(style)
+            setupAnimations(style)
+            setupImages(style)
+            setupFonts(style)
+            if (applied == null) {
+                setupDateFormatter()
+            }
+            applied = style
         }
 
-        private fun setupColors(context: Context) {
-            // Accent color - primary theme color
-            PushwooshInboxStyle.accentColor =
-                ContextCompat.getColor(context, R.color.md_theme_primary)
-
-            // Background colors
-            PushwooshInboxStyle.backgroundColor =
-                ContextCompat.getColor(context, R.color.md_theme_surface)
-            PushwooshInboxStyle.highlightColor =
-                ContextCompat.getColor(context, R.color.md_theme_surfaceContainerHigh)
-
-            // Unread message colors
-            PushwooshInboxStyle.titleColor =
-                ContextCompat.getColor(context, R.color.md_theme_onSurface)
-            PushwooshInboxStyle.descriptionColor =
-                ContextCompat.getColor(context, R.color.md_theme_onSurfaceVariant)
-            PushwooshInboxStyle.dateColor =
-                ContextCompat.getColor(context, R.color.md_theme_outline)
-            PushwooshInboxStyle.imageTypeColor =
-                ContextCompat.getColor(context, R.color.md_theme_primary)
-
-            // Read message colors - use muted variants
-            PushwooshInboxStyle.readTitleColor =
-                ContextCompat.getColor(context, R.color.md_theme_outline)
-            PushwooshInboxStyle.readDescriptionColor =
-                ContextCompat.getColor(context, R.color.md_theme_outline)
-            PushwooshInboxStyle.readDateColor =
-                ContextCompat.getColor(context, R.color.md_theme_outlineVariant)
-            PushwooshInboxStyle.readImageTypeColor =
-                ContextCompat.getColor(context, R.color.md_theme_outlineVariant)
-
-            // Divider and bar colors
-            PushwooshInboxStyle.dividerColor =
-                ContextCompat.getColor(context, R.color.md_theme_outlineVariant)
-            PushwooshInboxStyle.barBackgroundColor =
-                ContextCompat.getColor(context, R.color.md_theme_surface)
-            PushwooshInboxStyle.barAccentColor =
-                ContextCompat.getColor(context, R.color.md_theme_primary)
-            PushwooshInboxStyle.barTextColor =
-                ContextCompat.getColor(context, R.color.md_theme_onSurface)
+        private fun setupColors(style: ResolvedInboxStyle) {
+            PushwooshInboxStyle.accentColor = style.accentColor
+            PushwooshInboxStyle.backgroundColor = style.backgroundColor
+            PushwooshInboxStyle.highlightColor = style.highlightColor
+
+            PushwooshInboxStyle.titleColor = ResolvedInboxStyle.unread(style.titleColors)
+            PushwooshInboxStyle.descriptionColor = ResolvedInboxStyle.unread(style.descriptionColors)
+            PushwooshInboxStyle.dateColor = ResolvedInboxStyle.unread(style.dateColors)
+            PushwooshInboxStyle.imageTypeColor = ResolvedInboxStyle.unread(style.imageTypeColors)
+
+            PushwooshInboxStyle.readTitleColor = ResolvedInboxStyle.read(style.titleColors)
+            PushwooshInboxStyle.readDescriptionColor = ResolvedInboxStyle.read(style.descriptionColors)
+            PushwooshInboxStyle.readDateColor = ResolvedInboxStyle.read(style.dateColors)
+            PushwooshInboxStyle.readImageTypeColor = ResolvedInboxStyle.read(style.imageTypeColors)
+
+            PushwooshInboxStyle.dividerColor = style.dividerColor
+            PushwooshInboxStyle.barBackgroundColor = style.barBackgroundColor
+            PushwooshInboxStyle.barAccentColor = style.barAccentColor
+            PushwooshInboxStyle.barTextColor = style.barTextColor
         }
 
-        private fun setupTexts() {
-            // Toolbar title (used in standalone InboxActivity — embedded mode hides toolbar via lifecycle)
-            PushwooshInboxStyle.barTitle = "Inbox"
+        private fun setupTexts(style: ResolvedInboxStyle) {
+            PushwooshInboxStyle.barTitle = style.barTitle
 
             // Text sizes (in SP)
-            PushwooshInboxStyle.titleTextSize = 16f
-            PushwooshInboxStyle.descriptionTextSize = 14f
-            PushwooshInboxStyle.dateTextSize = 12f
+            PushwooshInboxStyle.titleTextSize = ResolvedInboxStyle.TITLE_TEXT_SIZE_SP
+            PushwooshInboxStyle.descriptionTextSize = ResolvedInboxStyle.DESCRIPTION_TEXT_SIZE_SP
+            PushwooshInboxStyle.dateTextSize = ResolvedInboxStyle.DATE_TEXT_SIZE_SP
         }
 
-        private fun setupAnimations() {
-            PushwooshInboxStyle.listAnimationResource = android.R.anim.fade_in
+        private fun setupAnimations(style: ResolvedInboxStyle) {
+            PushwooshInboxStyle.listAnimationResource = style.listAnimation
         }
 
-        private fun setupImages() {
-            PushwooshInboxStyle.defaultImageIcon = R.drawable.ic_inbox_message_icon
+        private fun setupImages(style: ResolvedInboxStyle) {
+            PushwooshInboxStyle.defaultImageIcon = style.defaultImageIcon
         }
 
-        private fun setupFonts() {
-            PushwooshInboxStyle.setTitleFont(Typeface.SERIF)
-            PushwooshInboxStyle.setDescriptionFont(Typeface.DEFAULT)
-            PushwooshInboxStyle.setDateFont(Typeface.DEFAULT)
+        private fun setupFonts(style: ResolvedInboxStyle) {
+            PushwooshInboxStyle.setTitleFont(style.titleFont)
+            PushwooshInboxStyle.setDescriptionFont(style.descriptionFont)
+            PushwooshInboxStyle.setDateFont(style.dateFont)
         }
 
         private fun setupDateFormatter() {
@@ -147,6 +138,7 @@ class InboxStyleHelper {
         }
 
         fun resetToDefaults() {
+            applied = null
             PushwooshInboxStyle.clearColors()
             PushwooshInboxStyle.listEmptyText = null
             PushwooshInboxStyle.listErrorMessage = null
@@ -154,6 +146,7 @@ class InboxStyleHelper {
             PushwooshInboxStyle.titleTextSize = null
             PushwooshInboxStyle.descriptionTextSize = null
             PushwooshInboxStyle.dateTextSize = null
+            PushwooshInboxStyle.showToolbar = null
             PushwooshInboxStyle.listAnimationResource = android.R.anim.slide_in_left
         }
     }
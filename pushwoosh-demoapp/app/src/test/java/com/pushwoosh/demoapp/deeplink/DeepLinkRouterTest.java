@@ -0,0 +1,103 @@
+package com.pushwoosh.demoapp.deeplink;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+// Robolectric for org.json in the custom-data routes.
+@RunWith(RobolectricTestRunner.class)
+public class DeepLinkRouterTest {
+
+    private static final int INBOX = 1;
+    private static final int MESSAGE = 2;
+    private static final int MESSAGE_REPLY = 3;
+    private static final int LATEST = 4;
+    private static final int PROMO = 5;
+    private static final int HOME = 6;
+
+    private final DeepLinkRouter router = new DeepLinkRouter.Builder()
+            .scheme("pushwoosh-demo")
+            .host("demo.pushwoosh.com")
+            .path("/", HOME)
+            .path("/inbox", INBOX)
+            .path("/inbox/{code}", MESSAGE)
+            .path("/inbox/{code}/reply", MESSAGE_REPLY)
+            .path("/inbox/latest", LATEST)
+            .path("/promo/*", PROMO)
+            .customKey("inbox_code", MESSAGE, "code")
+            .customKey("promo", PROMO, null)
+            .build();
+    private final DeepLinkRouter.Match match = new DeepLinkRouter.Match();
+
+    @Test
+    public void linksOfEveryShapeReachThePath() {
+        assertRoute(MESSAGE, "/inbox/42");
+        assertRoute(MESSAGE, "https://demo.pushwoosh.com/inbox/42?utm_source=push");
+        assertRoute(MESSAGE, "pushwoosh-demo://inbox/42#top");
+        assertRoute(MESSAGE, "//inbox//42/");
+        assertEquals("42", match.param("code"));
+        assertRoute(HOME, "https://demo.pushwoosh.com");
+        assertRoute(MESSAGE, "HTTPS://Demo.Pushwoosh.com/inbox/42");
+    }
+
+    @Test
+    public void linksToOtherHostsAndSchemesDoNotMatch() {
+        assertFalse(router.matchLink("https://example.com/inbox/42", match));
+        assertFalse(router.matchLink("https://demo.pushwoosh.com.example.com/inbox/42", match));
+        assertFalse(router.matchLink("other-app://inbox/42", match));
+        assertEquals(DeepLinkRouter.NO_ROUTE, match.route());
+
+        DeepLinkRouter noHosts = new DeepLinkRouter.Builder().scheme("app").path("/inbox", INBOX).build();
+        assertFalse(noHosts.matchLink("https://demo.pushwoosh.com/inbox", match));
+        assertTrue(noHosts.matchLink("app://inbox", match));
+    }
+
+    @Test
+    public void literalsWinOverParametersAndParametersOverWildcards() {
+        assertRoute(LATEST, "/inbox/latest");
+        assertEquals(0, match.paramCount());
+
+        assertRoute(MESSAGE_REPLY, "/inbox/latest/reply");
+        assertEquals("latest", match.param("code"));
+
+        assertRoute(PROMO, "/promo/spring/sale");
+        assertEquals("spring/sale", match.param("*"));
+    }
+
+    @Test
+    public void unknownLinksDoNotMatch() {
+        assertFalse(router.matchLink("/inbox/42/forward", match));
+        assertEquals(DeepLinkRouter.NO_ROUTE, match.route());
+        assertFalse(router.matchLink("/settings", match));
+        assertFalse(router.matchLink("/promo", match));
+        assertNull(match.param("code"));
+    }
+
+    @Test
+    public void customDataKeysAreTriedInDeclarationOrder() throws Exception {
+        assertTrue(router.matchCustomData(new JSONObject().put("promo", "x").put("inbox_code", "7"), match));
+        assertEquals(MESSAGE, match.route());
+        assertEquals("7", match.param("code"));
+
+        assertTrue(router.matchCustomData(new JSONObject().put("promo", true), match));
+        assertEquals(PROMO, match.route());
+
+        assertFalse(router.matchCustomData(new JSONObject().put("campaign", "spring"), match));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void aPatternCanOnlyBeDeclaredOnce() {
+        new DeepLinkRouter.Builder().path("/inbox/{code}", 1).path("/inbox/{id}", 2);
+    }
+
+    private void assertRoute(int route, String link) {
+        assertTrue(link, router.matchLink(link, match));
+        assertEquals(link, route, match.route());
+    }
+}
@@ -0,0 +1,93 @@
+package com.pushwoosh.demoapp.events;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class EventSchemaTest {
+
+    private final EventSchema schema = new EventSchema.Builder(1)
+            .event("purchase")
+                .integer("price", true, 0, 1_000_000)
+                .string("currency", true, 3, Arrays.asList("USD", "EUR"))
+                .bool("gift", false)
+                .done()
+            .event("screen_view")
+                .string("screen", false, 16, null)
+                .additionalAttributes(true)
+                .done()
+            .build();
+
+    @Test
+    public void validEventsPass() {
+        assertNull(schema.validate("purchase", attributes("price", 99, "currency", "USD")));
+        assertNull(schema.validate("purchase", attributes("price", 5_000L, "currency", "EUR", "gift", true)));
+        assertNull(schema.validate("screen_view", null));
+        assertNull(schema.validate("screen_view", attributes("screen", "home", "referrer", "push")));
+    }
+
+    @Test
+    public void attributesAreHeldToTheirTypesAndRanges() {
+        assertRejected("requires attribute 'currency'", schema.validate("purchase", attributes("price", 99)));
+        assertRejected("must be in 0..1000000", schema.validate("purchase", attributes("price", -1, "currency", "USD")));
+        assertRejected("must be an integer", schema.validate("purchase", attributes("price", "99", "currency", "USD")));
+        assertRejected("must be one of", schema.validate("purchase", attributes("price", 99, "currency", "BTC")));
+        assertRejected("must be true or false", schema.validate("purchase", attributes("price", 1, "currency", "USD", "gift", "yes")));
+        assertRejected("at most 16 characters", schema.validate("screen_view", attributes("screen", "a-very-long-screen-name")));
+    }
+
+    @Test
+    public void undeclaredAttributesAreRejectedUnlessTheEventAllowsThem() {
+        assertRejected("does not take attribute 'coupon'",
+                schema.validate("purchase", attributes("price", 1, "currency", "USD", "coupon", "X")));
+        assertRejected("unsupported type Double", schema.validate("screen_view", attributes("ratio", 0.5)));
+    }
+
+    @Test
+    public void nullValuesCountAsMissing() {
+        assertNull(schema.validate("purchase", attributes("price", 99, "currency", "USD", "coupon", null)));
+        assertRejected("requires attribute 'currency'", schema.validate("purchase", attributes("price", 99, "currency", null)));
+        assertNull(schema.validate("screen_view", attributes("referrer", null)));
+        assertNull(EventSchema.PERMISSIVE.validate("signup", attributes("plan", null)));
+    }
+
+    @Test
+    public void unknownEventsAreRejectedUnlessAllowed() {
+        assertRejected("Unknown event 'signup'", schema.validate("signup", null));
+
+        EventSchema lenient = new EventSchema.Builder(1).allowUnknownEvents(true).build();
+        assertNull(lenient.validate("signup", attributes("plan", "pro", "seats", 3)));
+        assertRejected("unsupported type", lenient.validate("signup", attributes("tags", Collections.emptyList())));
+        assertRejected("Event name must be", lenient.validate("", null));
+    }
+
+    @Test
+    public void permissiveSchemaAcceptsAnythingSendable() {
+        assertNull(EventSchema.PERMISSIVE.validate("anything", attributes("price", 99, "currency", "USD")));
+        assertEquals(0, EventSchema.PERMISSIVE.getVersion());
+    }
+
+    private static void assertRejected(@NonNull String expected, String problem) {
+        assertNotNull("Expected a rejection containing '" + expected + "'", problem);
+        assertTrue(problem, problem.contains(expected));
+    }
+
+    @NonNull
+    private static Map<String, Object> attributes(@NonNull Object... keysAndValues) {
+        Map<String, Object> attributes = new HashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            attributes.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return attributes;
+    }
+}
@@ -0,0 +1,112 @@
+package com.pushwoosh.demoapp.inbox;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class InboxSearchIndexTest {
+
+    private final InboxSearchIndex index = new InboxSearchIndex();
+
+    @Test
+    public void everyTermMustMatch() {
+        index.put("1", "Weekend sale", "Everything 20% off");
+        index.put("2", "Weekend plans", "Concert tickets inside");
+        index.put("3", "Flash sale", "Ends tonight");
+
+        assertEquals(Arrays.asList("1"), codes("weekend sale"));
+        assertEquals(Collections.emptyList(), codes("weekend tonight"));
+        assertEquals(Collections.emptyList(), codes("nothing"));
+        assertEquals(Collections.emptyList(), codes("  ,. "));
+    }
+
+    @Test
+    public void lastTermMatchesAsPrefix() {
+        index.put("1", "Promo code inside", "");
+        index.put("2", "New products", "");
+        index.put("3", "Pro tips", "");
+
+        assertEquals(Arrays.asList("3", "2", "1"), codes("pro"));
+        // Only the term being typed is a prefix; earlier ones are complete words.
+        assertEquals(Collections.emptyList(), codes("pro code"));
+        assertEquals(Arrays.asList("1"), codes("promo co"));
+        // Single letters match whole words only.
+        assertEquals(Collections.emptyList(), codes("p"));
+    }
+
+    @Test
+    public void titleMatchesOutrankBodyMatches() {
+        index.put("body", "Your order", "Delivery is on its way");
+        index.put("title", "Delivery update", "Your order");
+
+        assertEquals(Arrays.asList("title", "body"), codes("delivery"));
+    }
+
+    @Test
+    public void topKKeepsTheBestAndBreaksTiesByRecency() {
+        for (int i = 0; i < 20; i++) {
+            index.put("m" + i, "Daily digest", "Issue " + i);
+        }
+        index.put("best", "Digest digest", "Daily digest");
+
+        List<InboxSearchIndex.Hit> hits = index.search("digest", 3);
+        assertEquals(3, hits.size());
+        assertEquals("best", hits.get(0).code);
+        assertEquals("m19", hits.get(1).code);
+        assertEquals("m18", hits.get(2).code);
+        assertTrue(hits.get(0).score > hits.get(1).score);
+    }
+
+    @Test
+    public void updatesAndRemovalsAreIncremental() {
+        index.put("1", "Old title", "");
+        assertFalse("Unchanged content is not re-indexed", index.put("1", "Old title", ""));
+        assertTrue(index.put("1", "New title", ""));
+
+        assertEquals(Collections.emptyList(), codes("old"));
+        assertEquals(Arrays.asList("1"), codes("new"));
+
+        assertEquals(1, index.retainAll(Collections.<String>emptyList()));
+        assertEquals(0, index.retainAll(Collections.<String>emptyList()));
+        assertEquals(0, index.size());
+        assertEquals("Terms no message uses are dropped", 0, index.termCount());
+    }
+
+    @Test
+    public void retainAllDropsMessagesMissingFromAFullLoad() {
+        for (int i = 0; i < 100; i++) {
+            index.put("m" + i, "Message " + i, "");
+        }
+        List<String> kept = new ArrayList<>();
+        for (int i = 0; i < 100; i += 10) {
+            kept.add("m" + i);
+        }
+
+        assertEquals(90, index.retainAll(kept));
+        assertEquals(10, index.size());
+        assertEquals(Arrays.asList("m90", "m80", "m70", "m60", "m50", "m40", "m30", "m20", "m10", "m0"),
+                codes("message"));
+
+        // Freed slots are reused.
+        index.put("fresh", "Message fresh", "");
+        assertEquals("fresh", index.search("message", 1).get(0).code);
+    }
+
+    @NonNull
+    private List<String> codes(@NonNull String query) {
+        List<String> codes = new ArrayList<>();
+        for (InboxSearchIndex.Hit hit : index.search(query, 50)) {
+            codes.add(hit.code);
+        }
+        return codes;
+    }
+}
@@ -0,0 +1,115 @@
+package com.pushwoosh.demoapp.inbox;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class InboxSnapshotTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void rowsRoundTrip() throws IOException {
+        File file = new File(folder.getRoot(), "inbox/snapshot");
+        List<InboxSnapshot.Row> rows = Arrays.asList(
+                new InboxSnapshot.Row("a", "Weekend sale", "Everything 20% off"),
+                new InboxSnapshot.Row("b", "Привет 👋", null),
+                new InboxSnapshot.Row("c", null, ""));
+
+        int size = InboxSnapshot.write(file, rows, 1234L);
+        InboxSnapshot snapshot = InboxSnapshot.read(file);
+
+        assertNotNull(snapshot);
+        assertEquals(file.length(), size);
+        assertEquals(size, snapshot.bytes());
+        assertEquals(1234L, snapshot.getWrittenAtMillis());
+        assertEquals(3, snapshot.size());
+        assertEquals("Everything 20% off", snapshot.get(0).body);
+        assertEquals("Привет 👋", snapshot.get(1).title);
+        assertEquals("", snapshot.get(1).body);
+        assertEquals("c", snapshot.get(2).code);
+        assertEquals("", snapshot.get(2).title);
+    }
+
+    @Test
+    public void onlyTheFirstRowsAreKept() throws IOException {
+        File file = folder.newFile();
+        List<InboxSnapshot.Row> rows = new ArrayList<>();
+        for (int i = 0; i < InboxSnapshot.MAX_MESSAGES * 3; i++) {
+            rows.add(new InboxSnapshot.Row("m" + i, "Title " + i, "Body " + i));
+        }
+
+        InboxSnapshot.write(file, rows, 0);
+        InboxSnapshot snapshot = InboxSnapshot.read(file);
+
+        assertNotNull(snapshot);
+        assertEquals(InboxSnapshot.MAX_MESSAGES, snapshot.size());
+        assertEquals("m" + (InboxSnapshot.MAX_MESSAGES - 1), snapshot.get(InboxSnapshot.MAX_MESSAGES - 1).code);
+    }
+
+    @Test
+    public void missingFileIsNoSnapshot() throws IOException {
+        assertNull(InboxSnapshot.read(new File(folder.getRoot(), "absent")));
+    }
+
+    @Test
+    public void rewriteReplacesTheOldSnapshotAndLeavesNoTempFile() throws IOException {
+        File file = new File(folder.getRoot(), "snapshot");
+        InboxSnapshot.write(file, Arrays.asList(new InboxSnapshot.Row("old", "Old", "")), 1);
+        InboxSnapshot.write(file, Arrays.asList(new InboxSnapshot.Row("new", "New", "")), 2);
+
+        InboxSnapshot snapshot = InboxSnapshot.read(file);
+        assertNotNull(snapshot);
+        assertEquals("new", snapshot.get(0).code);
+        assertFalse(new File(folder.getRoot(), "snapshot.tmp").exists());
+    }
+
+    @Test
+    public void damagedFilesAreRejected() throws IOException {
+        File file = folder.newFile();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write("not a snapshot at all".getBytes("UTF-8"));
+        }
+        assertUnreadable(file);
+
+        InboxSnapshot.write(file, Arrays.asList(new InboxSnapshot.Row("a", "Title", "Body")), 0);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            // Point the only row past the end of the file.
+            raf.seek(20);
+            raf.writeInt((int) raf.length() + 100);
+        }
+        assertUnreadable(file);
+
+        InboxSnapshot.write(file, Arrays.asList(new InboxSnapshot.Row("a", "Title", "Body")), 0);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            // The row starts in the file, but its title claims more bytes than follow.
+            raf.seek(24 + 4 + 1);
+            raf.writeInt(1_000);
+        }
+        assertUnreadable(file);
+    }
+
+    private static void assertUnreadable(File file) {
+        try {
+            InboxSnapshot.read(file);
+            fail("Expected " + file + " to be rejected");
+        } catch (IOException expected) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.pushwoosh.demoapp.inbox;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import androidx.annotation.NonNull;
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class UnreadCountTrackerTest {
+
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    private final FakeScheduler scheduler = new FakeScheduler();
+    private final FakeSource source = new FakeSource();
+    private final List<Integer> badges = new ArrayList<>();
+    private final UnreadCountTracker tracker = new UnreadCountTracker(source, badges::add, scheduler);
+
+    @Test
+    public void countIsSeededOnceThenKeptIncrementally() {
+        tracker.refresh();
+        scheduler.advance(0);
+        source.complete(5);
+        scheduler.advance(0);
+        assertEquals(Integer.valueOf(5), tracker.getUnreadCount().getValue());
+
+        tracker.onMessageArrived("a");
+        tracker.onMessageArrived("b");
+        tracker.onMessageArrived("c");
+        scheduler.advance(0);
+
+        assertEquals(Integer.valueOf(8), tracker.getUnreadCount().getValue());
+        assertEquals("No full inbox read after the seed", 1, tracker.getRefreshCount());
+    }
+
+    @Test
+    public void duplicatesAreCountedOnce() {
+        seed(2);
+
+        tracker.onMessageArrived("push-1");
+        tracker.onMessageArrived("push-1");
+        scheduler.advance(0);
+
+        assertEquals(Integer.valueOf(3), tracker.getUnreadCount().getValue());
+    }
+
+    @Test
+    public void aRefreshAfterTheInboxWasUsedReplacesTheCount() {
+        seed(4);
+        tracker.onMessageArrived("a");
+        scheduler.advance(0);
+        assertEquals(Integer.valueOf(5), tracker.getUnreadCount().getValue());
+
+        // The user read three messages in the SDK's inbox screen.
+        tracker.refresh();
+        scheduler.advance(0);
+        source.complete(2);
+        scheduler.advance(0);
+        assertEquals(Integer.valueOf(2), tracker.getUnreadCount().getValue());
+    }
+
+    @Test
+    public void changesBeforeTheSeedAreLeftToIt() {
+        tracker.refresh();
+        tracker.onMessageArrived("a");
+        scheduler.advance(0);
+        assertNull(tracker.getUnreadCount().getValue());
+
+        source.complete(3);
+        scheduler.advance(0);
+        assertEquals(Integer.valueOf(3), tracker.getUnreadCount().getValue());
+    }
+
+    @Test
+    public void staleRefreshResultsAreIgnored() {
+        tracker.refresh();
+        tracker.refresh();
+        scheduler.advance(0);
+
+        source.complete(10); // first, superseded
+        source.complete(4);
+        scheduler.advance(0);
+        assertEquals(Integer.valueOf(4), tracker.getUnreadCount().getValue());
+    }
+
+    @Test
+    public void badgeFollowsAtMostOncePerWindow() {
+        seed(1);
+        for (int i = 0; i < 50; i++) {
+            tracker.onMessageArrived("m" + i);
+            scheduler.advance(10);
+        }
+        // 500 ms of arrivals fit in one window: a single badge update with the latest count.
+        scheduler.advance(UnreadCountTracker.BADGE_WINDOW_MS);
+        assertEquals(Arrays.asList(51), badges);
+
+        tracker.onMessageArrived("n");
+        tracker.refresh();
+        scheduler.advance(0);
+        source.complete(51);
+        scheduler.advance(UnreadCountTracker.BADGE_WINDOW_MS);
+        assertEquals("Unchanged at the end of the window: no update", Arrays.asList(51), badges);
+    }
+
+    private void seed(int count) {
+        tracker.refresh();
+        scheduler.advance(0);
+        source.complete(count);
+        scheduler.advance(0);
+        badges.clear();
+        scheduler.advance(UnreadCountTracker.BADGE_WINDOW_MS);
+        badges.clear();
+    }
+
+    private static class FakeSource implements UnreadCountTracker.CountSource {
+        private final ArrayDeque<UnreadCountTracker.CountCallback> pending = new ArrayDeque<>();
+
+        @Override
+        public void unreadCount(@NonNull UnreadCountTracker.CountCallback callback) {
+            pending.add(callback);
+        }
+
+        void complete(int count) {
+            pending.remove().onCount(count);
+        }
+    }
+
+    /** Virtual-time scheduler: tasks run only when {@link #advance} moves the clock past them. */
+    private static class FakeScheduler implements UnreadCountTracker.Scheduler {
+        private final List<Task> tasks = new ArrayList<>();
+        private long now;
+
+        @Override
+        public void postDelayed(@NonNull Runnable task, long delayMs) {
+            tasks.add(new Task(task, now + delayMs));
+        }
+
+        void advance(long ms) {
+            long target = now + ms;
+            while (true) {
+                Task next = null;
+                for (Task t : tasks) {
+                    if (t.at <= target && (next == null || t.at < next.at)) {
+                        next = t;
+                    }
+                }
+                if (next == null) {
+                    break;
+                }
+                tasks.remove(next);
+                now = next.at;
+                next.runnable.run();
+            }
+            now = target;
+        }
+
+        private static class Task {
+            final Runnable runnable;
+            final long at;
+
+            Task(Runnable runnable, long at) {
+                this.runnable = runnable;
+                this.at = at;
+            }
+        }
+    }
+}
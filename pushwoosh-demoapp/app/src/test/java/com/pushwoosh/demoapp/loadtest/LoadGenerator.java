@@ -0,0 +1,129 @@
+package com.pushwoosh.demoapp.loadtest;
+
+import static org.robolectric.Shadows.shadowOf;
+
+import android.app.Activity;
+import android.os.Bundle;
+import android.os.Looper;
+import android.widget.Button;
+import android.widget.EditText;
+
+import androidx.annotation.NonNull;
+
+import com.pushwoosh.demoapp.NotificationServiceExtensionDemo;
+import com.pushwoosh.demoapp.R;
+import com.pushwoosh.demoapp.metrics.LatencyHistogram;
+import com.pushwoosh.notification.PushMessage;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Drives the demo the way a busy user and a busy campaign would: synthetic pushes through
+ * {@link NotificationServiceExtensionDemo}, and tag / user / event submissions through the real
+ * {@code HomeFragment} views. All of it runs on the Robolectric main looper.
+ */
+final class LoadGenerator {
+
+    private final Activity activity;
+    private final NotificationServiceExtensionDemo extension = new NotificationServiceExtensionDemo();
+
+    final LatencyHistogram pushLatency = new LatencyHistogram();
+    final LatencyHistogram actionLatency = new LatencyHistogram();
+    long pushErrors;
+    long pushNanos;
+    long actionNanos;
+
+    LoadGenerator(@NonNull Activity activity) {
+        this.activity = activity;
+    }
+
+    /** Delivers {@code count} pushes spread over {@code campaigns} campaigns to the receive callback. */
+    void deliverPushes(int count, int campaigns) {
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            PushMessage message = new PushMessage(pushPayload(i, campaigns));
+            long pushStart = System.nanoTime();
+            try {
+                extension.onMessageReceived(message);
+            } catch (RuntimeException e) {
+                pushErrors++;
+            }
+            pushLatency.recordNanos(System.nanoTime() - pushStart);
+        }
+        pushNanos += System.nanoTime() - start;
+    }
+
+    /** Cycles through set tags, register user and post event in the home screen, {@code count} times in total. */
+    void submitActions(int count) {
+        EditText tagKey = activity.findViewById(R.id.textInput1);
+        EditText tagValue = activity.findViewById(R.id.textInput2);
+        Button setTags = activity.findViewById(R.id.button);
+        EditText userId = activity.findViewById(R.id.textInput3);
+        Button registerUser = activity.findViewById(R.id.button2);
+        EditText eventName = activity.findViewById(R.id.textInput4);
+        Button postEvent = activity.findViewById(R.id.button3);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            long actionStart = System.nanoTime();
+            switch (i % 3) {
+                case 0:
+                    tagKey.setText("load_key_" + (i % 16));
+                    tagValue.setText("value_" + i);
+                    setTags.performClick();
+                    break;
+                case 1:
+                    userId.setText("load_user_" + (i % 8));
+                    registerUser.performClick();
+                    break;
+                default:
+                    eventName.setText("load_event_" + (i % 4));
+                    postEvent.performClick();
+                    break;
+            }
+            actionLatency.recordNanos(System.nanoTime() - actionStart);
+            // Let completed callbacks (snackbars) run between clicks, as a real frame would.
+            shadowOf(Looper.getMainLooper()).idle();
+        }
+        actionNanos += System.nanoTime() - start;
+    }
+
+    /** Pumps the main looper until {@code done} holds or {@code timeoutMs} passes. */
+    static boolean await(@NonNull BooleanSupplier done, long timeoutMs) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (System.nanoTime() < deadline) {
+            shadowOf(Looper.getMainLooper()).idle();
+            if (done.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(5);
+        }
+        return false;
+    }
+
+    static double perSecond(long events, long nanos) {
+        return nanos > 0 ? events * 1e9 / nanos : 0;
+    }
+
+    static String describe(@NonNull String name, @NonNull LatencyHistogram histogram, double rate, long errors) {
+        long count = histogram.count();
+        return String.format(Locale.US, "%-16s n=%-6d %8.1f/s  p50=%dus p90=%dus p99=%dus max=%dus  errors=%d (%.2f%%)",
+                name, count, rate,
+                histogram.percentileMicros(50), histogram.percentileMicros(90), histogram.percentileMicros(99),
+                histogram.maxMicros(), errors, count > 0 ? errors * 100.0 / count : 0);
+    }
+
+    @NonNull
+    private static Bundle pushPayload(int i, int campaigns) {
+        Bundle bundle = new Bundle();
+        bundle.putString("p", "load" + i);
+        bundle.putString("header", "Load test " + i);
+        bundle.putString("title", "Push #" + i);
+        bundle.putString("pw_msg", "1");
+        bundle.putString("u", "{\"n\":" + i + "}");
+        bundle.putString("pw_campaign_id", String.valueOf(1 + i % campaigns));
+        return bundle;
+    }
+}
@@ -0,0 +1,142 @@
+package com.pushwoosh.demoapp.loadtest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.app.Application;
+import android.os.Bundle;
+
+import androidx.annotation.NonNull;
+
+import com.pushwoosh.PushwooshInitProvider;
+import com.pushwoosh.demoapp.MainActivity;
+import com.pushwoosh.demoapp.metrics.MetricsRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.android.controller.ActivityController;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Push and user-action load against a loopback stand-in for the Pushwoosh API, reporting
+ * throughput, p50/p90/p99 latency and error rates.
+ * <p>
+ * The app runs unchanged: the SDK is pointed at the stand-in with its {@code com.pushwoosh.base_url}
+ * override, so the tag, user and event calls go through {@code PendingRequestBuffer} and the SDK's
+ * own request path, and whatever the SDK sends by itself (inbox, in-apps, registration when it has
+ * a token) shows up in the per-method counts.
+ * <p>
+ * Sizes and the injected server failure rate can be raised from the command line, e.g.
+ * {@code ./gradlew :app:testDebugUnitTest --tests '*PushwooshLoadTest' -Dloadtest.pushes=20000}.
+ * The defaults keep the run to a few seconds so it can stay in the regular suite. The report goes to
+ * {@code build/reports/loadtest/pushwoosh-load.txt}, or the directory in {@code -Dloadtest.reportDir}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class PushwooshLoadTest {
+
+    private static final int PUSHES = Integer.getInteger("loadtest.pushes", 2_000);
+    private static final int ACTIONS = Integer.getInteger("loadtest.actions", 300);
+    private static final int CAMPAIGNS = Integer.getInteger("loadtest.campaigns", 5);
+    private static final double FAILURE_RATE = Double.parseDouble(System.getProperty("loadtest.failureRate", "0"));
+    private static final double MAX_ERROR_RATE = Double.parseDouble(System.getProperty("loadtest.maxErrorRate", "0.01"));
+    private static final File REPORT_DIR = new File(System.getProperty("loadtest.reportDir", "build/reports/loadtest"));
+
+    private static final String[] SDK_CALLS = {
+            MetricsRegistry.SDK_SET_TAGS, MetricsRegistry.SDK_SET_USER_ID, MetricsRegistry.SDK_POST_EVENT
+    };
+
+    private StandInPushwooshServer server;
+    private ActivityController<MainActivity> controller;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StandInPushwooshServer(4, FAILURE_RATE);
+        // Robolectric does not start manifest providers, so the SDK initializes here, after the
+        // override it reads at startup is in place.
+        Application app = RuntimeEnvironment.getApplication();
+        Bundle metaData = shadowOf(app.getPackageManager())
+                .getInternalMutablePackageInfo(app.getPackageName()).applicationInfo.metaData;
+        metaData.putString("com.pushwoosh.base_url", server.baseUrl());
+        app.getApplicationInfo().metaData = metaData;
+        Robolectric.setupContentProvider(PushwooshInitProvider.class);
+
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        for (String call : SDK_CALLS) {
+            metrics.histogram(call).reset();
+            metrics.counter(call + ".errors").reset();
+        }
+        controller = Robolectric.buildActivity(MainActivity.class).setup();
+    }
+
+    @After
+    public void tearDown() {
+        controller.pause().stop().destroy();
+        server.close();
+    }
+
+    @Test
+    public void sustainsPushAndActionLoad() throws Exception {
+        LoadGenerator generator = new LoadGenerator(controller.get());
+
+        generator.deliverPushes(PUSHES, CAMPAIGNS);
+        // The API rate runs from the first UI action to the last SDK callback.
+        long apiStart = System.nanoTime();
+        generator.submitActions(ACTIONS);
+        assertTrue("SDK calls still unanswered after 30 s",
+                LoadGenerator.await(() -> completedCalls() >= ACTIONS, 30_000));
+        long apiNanos = System.nanoTime() - apiStart;
+
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        List<String> report = new ArrayList<>(Arrays.asList(
+                "Pushwoosh load test: " + PUSHES + " pushes, " + ACTIONS + " actions, "
+                        + CAMPAIGNS + " campaigns, injected failure rate " + FAILURE_RATE,
+                LoadGenerator.describe("push receive", generator.pushLatency,
+                        LoadGenerator.perSecond(PUSHES, generator.pushNanos), generator.pushErrors),
+                LoadGenerator.describe("ui action", generator.actionLatency,
+                        LoadGenerator.perSecond(ACTIONS, generator.actionNanos), 0)));
+        long failed = 0;
+        for (String call : SDK_CALLS) {
+            long errors = metrics.counter(call + ".errors").sum();
+            failed += errors;
+            report.add(LoadGenerator.describe(call, metrics.histogram(call),
+                    LoadGenerator.perSecond(metrics.histogram(call).count(), apiNanos), errors));
+        }
+        report.add(LoadGenerator.describe("server handling", server.serverLatency(), 0, server.errors()));
+        report.add("  requests by method: " + server.requestCounts());
+        writeReport(report);
+
+        assertEquals("Every UI action must complete through the SDK", ACTIONS, completedCalls());
+        assertTrue("Push error rate " + generator.pushErrors + "/" + PUSHES,
+                generator.pushErrors <= PUSHES * MAX_ERROR_RATE);
+        assertTrue("API error rate " + failed + "/" + ACTIONS,
+                failed <= Math.max(1, ACTIONS * (FAILURE_RATE + MAX_ERROR_RATE)));
+    }
+
+    private static long completedCalls() {
+        long completed = 0;
+        for (String call : SDK_CALLS) {
+            completed += MetricsRegistry.getInstance().histogram(call).count();
+        }
+        return completed;
+    }
+
+    private static void writeReport(@NonNull List<String> lines) throws IOException {
+        if (!REPORT_DIR.isDirectory() && !REPORT_DIR.mkdirs()) {
+            throw new IOException("Cannot create " + REPORT_DIR);
+        }
+        Files.write(new File(REPORT_DIR, "pushwoosh-load.txt").toPath(), lines, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,200 @@
+package com.pushwoosh.demoapp.loadtest;
+
+import com.pushwoosh.demoapp.metrics.LatencyHistogram;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loopback stand-in for the Pushwoosh device API ({@code POST /json/1.3/<method>}), speaking the
+ * same envelope the SDK uses: {@code {"request": {...}}} in, {@code {"status_code", "status_message",
+ * "response"}} out. Each method validates the fields the SDK always sends ({@code application},
+ * {@code hwid}, plus the method's own) and answers with a minimal well-formed response.
+ * <p>
+ * Per-method request counts and server-side latency are kept for the load report. A failure rate
+ * can be injected to exercise client error handling.
+ */
+final class StandInPushwooshServer implements AutoCloseable {
+
+    private static final String PATH_PREFIX = "/json/1.3/";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Random random = new Random(42);
+    private final double failureRate;
+
+    private final Map<String, AtomicLong> requestsByMethod = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> errorsByMethod = new ConcurrentHashMap<>();
+    private final LatencyHistogram serverLatency = new LatencyHistogram();
+    private final Map<String, JSONObject> tagsByHwid = new ConcurrentHashMap<>();
+
+    StandInPushwooshServer(int threads, double failureRate) throws IOException {
+        this.failureRate = failureRate;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 256);
+        executor = Executors.newFixedThreadPool(threads);
+        server.setExecutor(executor);
+        server.createContext(PATH_PREFIX, this::handle);
+        server.start();
+    }
+
+    /** Base URL in the SDK's form, e.g. {@code http://127.0.0.1:PORT/json/1.3/}. */
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + PATH_PREFIX;
+    }
+
+    long requests(String method) {
+        AtomicLong count = requestsByMethod.get(method);
+        return count != null ? count.get() : 0;
+    }
+
+    Map<String, Long> requestCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        for (Map.Entry<String, AtomicLong> entry : requestsByMethod.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().get());
+        }
+        return counts;
+    }
+
+    long errors() {
+        long total = 0;
+        for (AtomicLong count : errorsByMethod.values()) {
+            total += count.get();
+        }
+        return total;
+    }
+
+    LatencyHistogram serverLatency() {
+        return serverLatency;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        String method = exchange.getRequestURI().getPath().substring(PATH_PREFIX.length());
+        requestsByMethod.computeIfAbsent(method, m -> new AtomicLong()).incrementAndGet();
+
+        int status = 200;
+        JSONObject body = new JSONObject();
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                status = 405;
+                throw new IllegalArgumentException("POST required");
+            }
+            JSONObject request = new JSONObject(readBody(exchange.getRequestBody())).getJSONObject("request");
+            require(request, "application");
+            require(request, "hwid");
+            boolean injectFailure;
+            synchronized (random) {
+                injectFailure = random.nextDouble() < failureRate;
+            }
+            if (injectFailure) {
+                status = 500;
+                throw new IllegalStateException("Injected failure");
+            }
+            body.put("status_code", 200);
+            body.put("status_message", "OK");
+            body.put("response", respond(method, request));
+        } catch (JSONException | RuntimeException e) {
+            if (status == 200) {
+                status = 400;
+            }
+            errorsByMethod.computeIfAbsent(method, m -> new AtomicLong()).incrementAndGet();
+            try {
+                body.put("status_code", status);
+                body.put("status_message", String.valueOf(e.getMessage()));
+            } catch (JSONException ignored) {
+                // Unreachable: keys and values are plain strings/ints.
+            }
+        }
+
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+        serverLatency.recordNanos(System.nanoTime() - start);
+    }
+
+    private Object respond(String method, JSONObject request) throws JSONException {
+        switch (method) {
+            case "registerDevice":
+                require(request, "push_token");
+                require(request, "device_type");
+                return JSONObject.NULL;
+            case "unregisterDevice":
+            case "applicationOpen":
+                return JSONObject.NULL;
+            case "getInApps":
+                return new JSONObject().put("inApps", new JSONArray());
+            case "setTags": {
+                JSONObject tags = request.getJSONObject("tags");
+                JSONObject stored = tagsByHwid.computeIfAbsent(request.getString("hwid"), h -> new JSONObject());
+                synchronized (stored) {
+                    for (java.util.Iterator<String> keys = tags.keys(); keys.hasNext(); ) {
+                        String key = keys.next();
+                        stored.put(key, tags.get(key));
+                    }
+                }
+                return new JSONObject().put("skipped", new JSONArray());
+            }
+            case "getTags": {
+                JSONObject stored = tagsByHwid.get(request.getString("hwid"));
+                return new JSONObject().put("result", stored != null ? new JSONObject(stored.toString()) : new JSONObject());
+            }
+            case "registerUser":
+                require(request, "userId");
+                return JSONObject.NULL;
+            case "postEvent":
+                require(request, "event");
+                return new JSONObject().put("code", "");
+            case "getInboxMessages":
+                return new JSONObject()
+                        .put("messages", new JSONArray())
+                        .put("deleted", new JSONArray())
+                        .put("next", "")
+                        .put("new_inbox", 0);
+            default:
+                throw new IllegalArgumentException("Unknown method " + method);
+        }
+    }
+
+    private static void require(JSONObject request, String field) {
+        if (!request.has(field) || request.isNull(field)) {
+            throw new IllegalArgumentException("Missing '" + field + "'");
+        }
+    }
+
+    private static String readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,112 @@
+package com.pushwoosh.demoapp.log;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+public class LogRingBufferTest {
+
+    @Test
+    public void capacityIsRoundedUpToAPowerOfTwo() {
+        assertEquals(1024, new LogRingBuffer(1000).capacity());
+        assertEquals(1024, new LogRingBuffer(1024).capacity());
+    }
+
+    @Test
+    public void wrappingKeepsTheNewestEntriesInOrder() {
+        LogRingBuffer ring = new LogRingBuffer(8);
+        for (int i = 0; i < 20; i++) {
+            ring.write(i, 'I', "T", "m" + i, null);
+        }
+
+        List<LogRingBuffer.Entry> entries = ring.read(0);
+        assertEquals(8, entries.size());
+        assertEquals("m12", entries.get(0).message);
+        assertEquals("m19", entries.get(7).message);
+        assertEquals(2, ring.read(18).size());
+    }
+
+    @Test
+    public void readPublishedStopsAtAClaimedButUnpublishedEntry() {
+        LogRingBuffer ring = new LogRingBuffer(8);
+        ring.write(0, 'I', "T", "m0", null);
+        long slow = ring.claim();
+        ring.write(2, 'I', "T", "m2", null);
+
+        List<LogRingBuffer.Entry> published = ring.readPublished(0);
+        assertEquals(1, published.size());
+        assertEquals("m0", published.get(0).message);
+        assertEquals("The plain read skips the gap", 2, ring.read(0).size());
+
+        ring.publish(slow, 1, 'I', "T", "m1", null);
+        published = ring.readPublished(1);
+        assertEquals(2, published.size());
+        assertEquals("m1", published.get(0).message);
+        assertEquals("m2", published.get(1).message);
+    }
+
+    @Test
+    public void readPublishedSkipsOverwrittenEntries() {
+        LogRingBuffer ring = new LogRingBuffer(8);
+        for (int i = 0; i < 20; i++) {
+            ring.write(i, 'I', "T", "m" + i, null);
+        }
+
+        List<LogRingBuffer.Entry> entries = ring.readPublished(3);
+        assertEquals(8, entries.size());
+        assertEquals(12, entries.get(0).seq);
+    }
+
+    @Test
+    public void concurrentWritersNeverLoseTheirSequence() throws Exception {
+        LogRingBuffer ring = new LogRingBuffer(1 << 16);
+        int threads = 8;
+        int perThread = 5_000;
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] writers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            String tag = "W" + t;
+            writers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    ring.write(i, 'D', tag, "x", null);
+                }
+            });
+            writers[t].start();
+        }
+        start.countDown();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        List<LogRingBuffer.Entry> entries = ring.read(0);
+        assertEquals(threads * perThread, entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            assertEquals(i, entries.get(i).seq);
+        }
+    }
+
+    @Test
+    public void formatSubstitutesPlaceholdersInOrder() {
+        assertEquals("caller=Ann, video=true", DemoLog.format("caller={}, video={}", "Ann", true));
+        assertEquals("no args {}", DemoLog.format("no args {}"));
+        assertEquals("a=1 and extra", DemoLog.format("a={} and extra", 1, 2));
+        assertEquals("lazy=42", DemoLog.format("lazy={}", (DemoLog.Lazy) () -> 42));
+    }
+
+    @Test
+    public void disabledLevelNeverEvaluatesArguments() {
+        assertTrue("Default level is INFO", !DemoLog.isEnabled(DemoLog.Level.DEBUG));
+        DemoLog.debug("T", "value={}", (DemoLog.Lazy) () -> {
+            throw new AssertionError("Lazy argument evaluated for a disabled level");
+        });
+    }
+}
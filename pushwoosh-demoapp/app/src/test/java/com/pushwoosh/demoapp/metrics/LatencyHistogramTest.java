@@ -0,0 +1,47 @@
+package com.pushwoosh.demoapp.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsCoverEveryValueWithBoundedError() {
+        for (long micros = 0; micros < 1_000_000; micros += 7) {
+            long upper = LatencyHistogram.upperBoundOf(LatencyHistogram.indexOf(micros));
+            assertTrue("bucket must contain " + micros, upper >= micros);
+            assertTrue("bucket for " + micros + " too wide: " + upper, upper <= micros * 1.25 + 1);
+        }
+    }
+
+    @Test
+    public void percentilesTrackTheDistribution() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.recordMicros(i * 1000L);
+        }
+
+        assertEquals(1000, histogram.count());
+        assertEquals(1_000_000, histogram.maxMicros());
+        assertEquals(500_500, histogram.meanMicros());
+        assertWithin(500_000, histogram.percentileMicros(50));
+        assertWithin(990_000, histogram.percentileMicros(99));
+        assertEquals(1_000_000, histogram.percentileMicros(100));
+    }
+
+    @Test
+    public void resetClearsEverything() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordNanos(5_000_000);
+        histogram.reset();
+
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.percentileMicros(50));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue("expected ~" + expected + " but was " + actual, actual >= expected && actual <= expected * 1.25);
+    }
+}
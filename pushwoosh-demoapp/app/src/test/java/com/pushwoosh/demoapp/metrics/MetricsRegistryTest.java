@@ -0,0 +1,81 @@
+package com.pushwoosh.demoapp.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class MetricsRegistryTest {
+
+    private final MetricsRegistry registry = new MetricsRegistry();
+
+    @Test
+    public void metricsAreCreatedOnceByName() {
+        assertSame(registry.counter("a"), registry.counter("a"));
+        assertSame(registry.histogram("h"), registry.histogram("h"));
+        assertSame(registry.meter("m"), registry.meter("m"));
+        assertSame(registry.gauge("g"), registry.gauge("g"));
+    }
+
+    @Test
+    public void gaugesReportTheLatestValue() {
+        registry.gauge("file.bytes").set(4_096);
+        registry.gauge("file.bytes").set(1_024);
+
+        assertEquals(Long.valueOf(1_024), registry.snapshot().gauges.get("file.bytes"));
+    }
+
+    @Test
+    public void snapshotDerivesCacheHitRates() {
+        for (int i = 0; i < 3; i++) {
+            registry.cacheHit("tags");
+        }
+        registry.cacheMiss("tags");
+        registry.cacheMiss("coldOnly");
+        registry.counter("sdk.setTags.errors").increment();
+
+        MetricsRegistry.Snapshot snapshot = registry.snapshot();
+
+        assertEquals(0.75, snapshot.cacheHitRates.get("tags"), 1e-9);
+        assertEquals(0.0, snapshot.cacheHitRates.get("coldOnly"), 1e-9);
+        assertEquals(2, snapshot.cacheHitRates.size());
+        assertEquals(Long.valueOf(1), snapshot.counters.get("sdk.setTags.errors"));
+    }
+
+    @Test
+    public void snapshotIsDetachedFromLaterUpdates() {
+        registry.histogram(MetricsRegistry.SDK_SET_TAGS).recordMicros(1_000);
+        MetricsRegistry.Snapshot snapshot = registry.snapshot();
+        registry.histogram(MetricsRegistry.SDK_SET_TAGS).recordMicros(2_000);
+
+        assertEquals(1, snapshot.histograms.get(MetricsRegistry.SDK_SET_TAGS).count);
+        assertFalse(snapshot.meters.containsKey(MetricsRegistry.PUSH_RECEIVED));
+    }
+
+    @Test
+    public void meterRateCoversCompletedSecondsOfTheWindow() {
+        long[] now = {0};
+        RateMeter meter = new RateMeter(() -> now[0]);
+
+        // 10/s for 5 s, then a partial second that must not count yet.
+        for (int second = 0; second < 5; second++) {
+            now[0] = TimeUnit.SECONDS.toNanos(second);
+            for (int i = 0; i < 10; i++) {
+                meter.mark();
+            }
+        }
+        now[0] = TimeUnit.SECONDS.toNanos(5);
+        meter.mark();
+
+        assertEquals(51, meter.count());
+        assertEquals(10.0, meter.ratePerSecond(), 1e-9);
+
+        // A minute and more of silence drains the window; the total stays.
+        now[0] = TimeUnit.SECONDS.toNanos(5 + RateMeter.WINDOW_SECONDS + 1);
+        assertEquals(0.0, meter.ratePerSecond(), 1e-9);
+        assertEquals(51, meter.count());
+    }
+}
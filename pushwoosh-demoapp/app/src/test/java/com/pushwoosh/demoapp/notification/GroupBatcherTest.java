@@ -0,0 +1,232 @@
+package com.pushwoosh.demoapp.notification;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class GroupBatcherTest {
+
+    private final GroupBatcher batcher = new GroupBatcher(3, 10_000, 600_000, 8);
+    private final FakeShade shade = new FakeShade();
+
+    @Test
+    public void pushesBelowTheBurstThresholdAreLeftToTheSdk() {
+        assertFalse(batcher.offer("campaign:1", item(0), 0));
+        assertFalse(batcher.offer("campaign:1", item(1), 1_000));
+        assertFalse("Spread-out pushes are not a burst", batcher.offer("campaign:1", item(2), 20_000));
+        assertFalse(batcher.hasPending());
+    }
+
+    @Test
+    public void burstGetsASingleSummaryUpdatePerBatch() {
+        for (int i = 0; i < 6; i++) {
+            boolean grouped = batcher.offer("campaign:1", item(i), 10 + i);
+            assertEquals(i >= 2, grouped);
+            shade.post("campaign:1", grouped);
+        }
+
+        batcher.flush(shade);
+
+        assertEquals(1, shade.summaries.size());
+        assertEquals("The pushes that started the burst count too", 6, (int) shade.summaries.get(0));
+        assertEquals(0, shade.cancelled.size());
+        assertEquals(1, shade.reads);
+        assertFalse(batcher.hasPending());
+    }
+
+    @Test
+    public void pushesThatStartedTheBurstAreMovedIntoTheGroup() {
+        for (int i = 0; i < 3; i++) {
+            shade.post("campaign:1", batcher.offer("campaign:1", item(i), i));
+        }
+
+        batcher.flush(shade);
+
+        assertEquals(Arrays.asList(0, 1), shade.regrouped);
+        assertEquals(3, shade.groupedCount("campaign:1"));
+
+        shade.post("campaign:1", batcher.offer("campaign:1", item(3), 10));
+        batcher.flush(shade);
+        assertEquals("Only moved once", 2, shade.regrouped.size());
+    }
+
+    @Test
+    public void offeringNeverReadsTheShade() {
+        for (int i = 0; i < 20; i++) {
+            shade.post("campaign:1", batcher.offer("campaign:1", item(i), i));
+        }
+        assertEquals(0, shade.reads);
+
+        batcher.flush(shade);
+        batcher.flush(shade);
+        assertEquals("Nothing pending, nothing to read", 1, shade.reads);
+    }
+
+    @Test
+    public void oldestChildrenInTheShadeAreEvicted() {
+        for (int i = 0; i < 20; i++) {
+            shade.post("campaign:1", batcher.offer("campaign:1", item(i), 1));
+        }
+
+        batcher.flush(shade);
+
+        assertEquals(12, shade.cancelled.size());
+        assertEquals("The oldest go first", 0, (int) shade.cancelled.get(0));
+        assertEquals(8, shade.activeChildren().get("campaign:1").size());
+        assertEquals(20, (int) shade.summaries.get(0));
+        assertTrue("Evicted pushes are not regrouped first", shade.regrouped.isEmpty());
+    }
+
+    @Test
+    public void dismissedChildrenDoNotCountTowardTheCap() {
+        for (int i = 0; i < 8; i++) {
+            shade.post("campaign:1", batcher.offer("campaign:1", item(i), 1));
+        }
+        batcher.flush(shade);
+
+        // The user swipes away half the group; the next push must not evict any of the rest.
+        shade.dismissOldest(4);
+        shade.post("campaign:1", batcher.offer("campaign:1", item(8), 2));
+        batcher.flush(shade);
+
+        assertEquals(0, shade.cancelled.size());
+        assertEquals(5, shade.activeChildren().get("campaign:1").size());
+    }
+
+    @Test
+    public void aGroupKeepsAggregatingUntilItsSummaryIsRemoved() {
+        for (int i = 0; i < 3; i++) {
+            shade.post("campaign:1", batcher.offer("campaign:1", item(i), i));
+        }
+        batcher.flush(shade);
+
+        assertTrue("Long after the burst, the summary is still showing",
+                batcher.offer("campaign:1", item(3), 60_000));
+        batcher.flush(shade);
+        assertEquals(4, (int) shade.summaries.get(1));
+
+        batcher.summaryRemoved("campaign:1");
+        assertFalse("A lone push after the group is gone is shown on its own",
+                batcher.offer("campaign:1", item(4), 120_000));
+        batcher.offer("campaign:1", item(5), 120_001);
+        batcher.offer("campaign:1", item(6), 120_002);
+        batcher.flush(shade);
+        assertEquals("A new burst starts a fresh count", 3, (int) shade.summaries.get(2));
+    }
+
+    @Test
+    public void idleGroupsAreForgotten() {
+        for (int i = 0; i < 50; i++) {
+            batcher.offer("campaign:" + i, item(i), i);
+        }
+        assertEquals(50, batcher.groupCount());
+
+        batcher.offer("campaign:new", item(0), 700_000);
+        assertEquals(1, batcher.groupCount());
+    }
+
+    @Test
+    public void groupsAreKeptApart() {
+        for (int i = 0; i < 4; i++) {
+            batcher.offer("campaign:1", item(i), i);
+            batcher.offer("channel:sales", item(i), i);
+        }
+
+        batcher.flush(shade);
+
+        assertEquals(Arrays.asList("campaign:1", "channel:sales"), sorted(shade.summaryGroups));
+        assertEquals(4, (int) shade.summaries.get(0));
+        assertEquals(4, (int) shade.summaries.get(1));
+        assertEquals(1, shade.reads);
+    }
+
+    @NonNull
+    private static List<String> sorted(@NonNull List<String> values) {
+        List<String> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    private static GroupBatcher.Item item(int i) {
+        return new GroupBatcher.Item("Title " + i, "Text " + i);
+    }
+
+    /** The notification shade: children in posting order, as the notification manager lists them. */
+    private static class FakeShade implements GroupBatcher.Sink {
+        final List<String> groups = new ArrayList<>();
+        final List<GroupBatcher.Child> children = new ArrayList<>();
+        final List<Integer> cancelled = new ArrayList<>();
+        final List<Integer> regrouped = new ArrayList<>();
+        final List<Integer> summaries = new ArrayList<>();
+        final List<String> summaryGroups = new ArrayList<>();
+        int reads;
+        private int nextId;
+
+        void post(@NonNull String group, boolean grouped) {
+            groups.add(group);
+            children.add(new GroupBatcher.Child(nextId++, null, grouped));
+        }
+
+        void dismissOldest(int count) {
+            for (int i = 0; i < count; i++) {
+                groups.remove(0);
+                children.remove(0);
+            }
+        }
+
+        int groupedCount(@NonNull String group) {
+            int count = 0;
+            for (GroupBatcher.Child child : activeChildren().get(group)) {
+                count += child.grouped ? 1 : 0;
+            }
+            return count;
+        }
+
+        @NonNull
+        @Override
+        public Map<String, List<GroupBatcher.Child>> activeChildren() {
+            reads++;
+            Map<String, List<GroupBatcher.Child>> active = new HashMap<>();
+            for (int i = 0; i < children.size(); i++) {
+                List<GroupBatcher.Child> list = active.get(groups.get(i));
+                if (list == null) {
+                    list = new ArrayList<>();
+                    active.put(groups.get(i), list);
+                }
+                list.add(children.get(i));
+            }
+            return active;
+        }
+
+        @Override
+        public void cancelChild(@NonNull GroupBatcher.Child child) {
+            cancelled.add(child.id);
+            int index = children.indexOf(child);
+            groups.remove(index);
+            children.remove(index);
+        }
+
+        @Override
+        public void regroupChild(@NonNull String group, @NonNull GroupBatcher.Child child) {
+            regrouped.add(child.id);
+            children.set(children.indexOf(child), new GroupBatcher.Child(child.id, child.tag, true));
+        }
+
+        @Override
+        public void postSummary(@NonNull String group, int total, @NonNull List<GroupBatcher.Item> recent) {
+            summaries.add(total);
+            summaryGroups.add(group);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.pushwoosh.demoapp.perf;
+
+import static org.junit.Assert.assertEquals;
+
+import androidx.annotation.NonNull;
+
+import com.pushwoosh.demoapp.deeplink.DeepLinkRouter;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Matches links against a table of {@link #SECTIONS} × 4 routes — a few hundred, shaped like an app's
+ * screens: {@code /sN}, {@code /sN/items/{id}}, {@code /sN/items/{id}/reviews}, {@code /sN/help/*} —
+ * in batches of {@link #BATCH}, and holds each batch to the {@code deeplink.match.*} budgets in
+ * {@code perf-budgets.properties}. Matching must not allocate, so the allocation budgets are zero.
+ */
+public class DeepLinkRouterBenchmarkTest {
+
+    private static final int SECTIONS = 150;
+    private static final int BATCH = 100_000;
+    private static final int RUNS = 10;
+    private static final int LINKS = 1_024;
+
+    private final DeepLinkRouter router = router();
+    private final DeepLinkRouter.Match match = new DeepLinkRouter.Match();
+
+    @Test
+    public void pathLinks() throws Exception {
+        Random random = new Random(11);
+        String[] links = new String[LINKS];
+        for (int i = 0; i < LINKS; i++) {
+            int section = random.nextInt(SECTIONS);
+            switch (random.nextInt(4)) {
+                case 0:
+                    links[i] = "/s" + section;
+                    break;
+                case 1:
+                    links[i] = "/s" + section + "/items/" + random.nextInt(100_000);
+                    break;
+                case 2:
+                    links[i] = "/s" + section + "/items/" + random.nextInt(100_000) + "/reviews";
+                    break;
+                default:
+                    links[i] = "/s" + section + "/help/faq/" + random.nextInt(10);
+            }
+        }
+        run("deeplink.match.path", links, LINKS);
+    }
+
+    @Test
+    public void fullUrlsWithMisses() throws Exception {
+        Random random = new Random(13);
+        String[] links = new String[LINKS];
+        int expected = 0;
+        for (int i = 0; i < LINKS; i++) {
+            boolean miss = random.nextInt(5) == 0;
+            expected += miss ? 0 : 1;
+            int section = miss ? SECTIONS + random.nextInt(SECTIONS) : random.nextInt(SECTIONS);
+            links[i] = random.nextBoolean()
+                    ? "https://demo.pushwoosh.com/s" + section + "/items/" + i + "?utm_source=push&utm_campaign=c" + i
+                    : "pushwoosh-demo://s" + section + "/items/" + i + "/reviews#top";
+        }
+        run("deeplink.match.url", links, expected);
+    }
+
+    private void run(@NonNull String name, @NonNull String[] links, int expectedMatches) throws Exception {
+        PerfBudgets budgets = new PerfBudgets();
+        for (int i = 0; i < budgets.warmupRuns(); i++) {
+            matchAll(links);
+        }
+        Measurement measurement = new Measurement(RUNS);
+        int matched = 0;
+        for (int run = 0; run < RUNS; run++) {
+            measurement.begin();
+            matched = matchAll(links);
+            measurement.end();
+        }
+
+        assertEquals((long) expectedMatches * BATCH / LINKS, matched, BATCH % LINKS + 1);
+        System.out.printf("perf %s: %d routes, %.0f ns per match%n",
+                name, SECTIONS * 4, measurement.medianMillis() * 1e6 / BATCH);
+        budgets.check(name, measurement);
+    }
+
+    private int matchAll(@NonNull String[] links) {
+        int matched = 0;
+        for (int i = 0; i < BATCH; i++) {
+            if (router.matchLink(links[i % LINKS], match)) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+    @NonNull
+    private static DeepLinkRouter router() {
+        DeepLinkRouter.Builder builder = new DeepLinkRouter.Builder();
+        int route = 0;
+        for (int section = 0; section < SECTIONS; section++) {
+            builder.path("/s" + section, route++)
+                    .path("/s" + section + "/items/{id}", route++)
+                    .path("/s" + section + "/items/{id}/reviews", route++)
+                    .path("/s" + section + "/help/*", route++);
+        }
+        return builder.build();
+    }
+}
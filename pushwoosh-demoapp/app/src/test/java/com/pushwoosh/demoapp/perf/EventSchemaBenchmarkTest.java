@@ -0,0 +1,101 @@
+package com.pushwoosh.demoapp.perf;
+
+import static org.junit.Assert.assertEquals;
+
+import androidx.annotation.NonNull;
+
+import com.pushwoosh.demoapp.events.EventSchema;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Runs {@link #VALIDATIONS} {@link EventSchema#validate} calls over a mix of events shaped like the
+ * demo's — mostly valid purchases, some level-ups and unknown events, one in ten malformed — and holds
+ * each batch of {@link #BATCH} to the {@code events.validate.batch} budget in
+ * {@code perf-budgets.properties}. Valid events must not allocate, so the batch allocation budget is
+ * only the rejection messages.
+ */
+public class EventSchemaBenchmarkTest {
+
+    private static final int VALIDATIONS = 1_000_000;
+    private static final int BATCH = 100_000;
+    private static final int EVENTS = 1_024;
+
+    @Test
+    public void oneMillionValidations() throws Exception {
+        EventSchema schema = new EventSchema.Builder(1)
+                .allowUnknownEvents(true)
+                .event("purchase")
+                    .integer("price", true, 0, 1_000_000)
+                    .string("currency", true, 3, Arrays.asList("USD", "EUR", "GBP", "JPY"))
+                    .done()
+                .event("level_up")
+                    .integer("level", true, 1, 1_000)
+                    .done()
+                .event("screen_view")
+                    .string("screen", false, 64, null)
+                    .additionalAttributes(true)
+                    .done()
+                .build();
+
+        Random random = new Random(7);
+        String[] names = new String[EVENTS];
+        Map<?, ?>[] attributes = new Map<?, ?>[EVENTS];
+        int expectedRejected = 0;
+        for (int i = 0; i < EVENTS; i++) {
+            boolean malformed = random.nextInt(10) == 0;
+            expectedRejected += malformed ? 1 : 0;
+            int kind = random.nextInt(10);
+            if (kind < 6) {
+                names[i] = "purchase";
+                attributes[i] = map("price", malformed ? -1 : random.nextInt(10_000), "currency", "USD");
+            } else if (kind < 8) {
+                names[i] = "level_up";
+                attributes[i] = map("level", malformed ? "ten" : 1 + random.nextInt(100));
+            } else {
+                names[i] = kind == 8 ? "screen_view" : "campaign_" + random.nextInt(50);
+                attributes[i] = map("screen", "home", "ratio", malformed ? (Object) 0.5 : (Object) 1);
+            }
+        }
+
+        PerfBudgets budgets = new PerfBudgets();
+        int rejected = 0;
+        for (int i = 0; i < BATCH; i++) {
+            rejected += validate(schema, names[i % EVENTS], attributes[i % EVENTS]);
+        }
+        Measurement measurement = new Measurement(VALIDATIONS / BATCH);
+        rejected = 0;
+        for (int run = 0; run < VALIDATIONS / BATCH; run++) {
+            measurement.begin();
+            for (int i = 0; i < BATCH; i++) {
+                rejected += validate(schema, names[i % EVENTS], attributes[i % EVENTS]);
+            }
+            measurement.end();
+        }
+
+        assertEquals((long) expectedRejected * VALIDATIONS / EVENTS, rejected, VALIDATIONS % EVENTS);
+        System.out.printf("perf events.validate: %d validations, %.0f ns each%n",
+                VALIDATIONS, measurement.medianMillis() * 1e6 / BATCH);
+        budgets.check("events.validate.batch", measurement);
+    }
+
+    private static int validate(@NonNull EventSchema schema, @NonNull String name, @NonNull Map<?, ?> attributes) {
+        @SuppressWarnings("unchecked")
+        Map<String, ?> typed = (Map<String, ?>) attributes;
+        return schema.validate(name, typed) != null ? 1 : 0;
+    }
+
+    @NonNull
+    private static Map<String, Object> map(@NonNull Object... keysAndValues) {
+        Map<String, Object> map = new HashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            map.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return map;
+    }
+}
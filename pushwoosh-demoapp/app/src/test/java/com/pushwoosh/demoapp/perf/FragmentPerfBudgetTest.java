@@ -0,0 +1,154 @@
+package com.pushwoosh.demoapp.perf;
+
+import android.os.Bundle;
+import android.view.View;
+import android.view.ViewStub;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentManager;
+
+import com.pushwoosh.demoapp.MainActivity;
+import com.pushwoosh.demoapp.R;
+import com.pushwoosh.demoapp.ui.home.HomeFragment;
+import com.pushwoosh.demoapp.ui.inbox.InboxWrapperFragment;
+import com.pushwoosh.demoapp.ui.notifications.NotificationsFragment;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+
+/**
+ * Creates each tab's fragment and {@link MainActivity} repeatedly and holds their cost to the
+ * budgets in {@code perf-budgets.properties}.
+ * <p>
+ * Fragment cost is bracketed by {@link FragmentManager.FragmentLifecycleCallbacks}: from
+ * {@code onFragmentCreated} to {@code onFragmentViewCreated}, i.e. {@code onCreateView} plus
+ * {@code onViewCreated}. Activity cost is {@code onCreate}, which includes {@code setupPushwooshSdk()}.
+ * {@code home.onCreateView.eager} also inflates Home's deferred in-app section inside the bracket,
+ * as the layout did before that section moved behind a stub; the pair is the before/after of
+ * deferring it.
+ * Robolectric timings are not device timings; the budgets catch relative regressions — a section
+ * that suddenly inflates twice, a synchronous disk read — not absolute frame times.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class FragmentPerfBudgetTest {
+
+    private static final int CONTAINER_ID = android.R.id.content;
+
+    private PerfBudgets budgets;
+    private ActivityController<MainActivity> host;
+
+    @Before
+    public void setUp() throws Exception {
+        budgets = new PerfBudgets();
+        host = Robolectric.buildActivity(MainActivity.class).setup();
+    }
+
+    @After
+    public void tearDown() {
+        host.pause().stop().destroy();
+    }
+
+    @Test
+    public void homeFragment() {
+        budgets.check("home.onCreateView", measureViewCreation(HomeFragment::new, null));
+    }
+
+    @Test
+    public void homeFragmentWithInAppSectionUpFront() {
+        budgets.check("home.onCreateView.eager", measureViewCreation(HomeFragment::new,
+                view -> ((ViewStub) view.findViewById(R.id.stubInAppSection)).inflate()));
+    }
+
+    @Test
+    public void notificationsFragment() {
+        budgets.check("notifications.onCreateView", measureViewCreation(NotificationsFragment::new, null));
+    }
+
+    @Test
+    public void inboxWrapperFragment() {
+        budgets.check("inbox.onCreateView", measureViewCreation(InboxWrapperFragment::new, null));
+    }
+
+    @Test
+    public void mainActivityOnCreate() {
+        Measurement measurement = new Measurement(budgets.measuredRuns());
+        for (int i = 0; i < budgets.warmupRuns() + budgets.measuredRuns(); i++) {
+            ActivityController<MainActivity> controller = Robolectric.buildActivity(MainActivity.class);
+            boolean measured = i >= budgets.warmupRuns();
+            if (measured) {
+                measurement.begin();
+            }
+            controller.create();
+            if (measured) {
+                measurement.end();
+            }
+            controller.destroy();
+        }
+        budgets.check("mainActivity.onCreate", measurement);
+    }
+
+    /**
+     * Adds a fresh fragment to the host activity per run and measures its view creation, plus
+     * {@code extra} on the created view when given.
+     */
+    @NonNull
+    private Measurement measureViewCreation(@NonNull Callable<Fragment> factory, @Nullable Consumer<View> extra) {
+        FragmentManager fragments = host.get().getSupportFragmentManager();
+        Measurement measurement = new Measurement(budgets.measuredRuns());
+        ViewCreationProbe probe = new ViewCreationProbe(measurement, extra);
+        fragments.registerFragmentLifecycleCallbacks(probe, false);
+        try {
+            for (int i = 0; i < budgets.warmupRuns() + budgets.measuredRuns(); i++) {
+                Fragment fragment = factory.call();
+                probe.target = fragment;
+                probe.measuring = i >= budgets.warmupRuns();
+                fragments.beginTransaction().add(CONTAINER_ID, fragment).commitNow();
+                fragments.beginTransaction().remove(fragment).commitNow();
+            }
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        } finally {
+            fragments.unregisterFragmentLifecycleCallbacks(probe);
+        }
+        return measurement;
+    }
+
+    private static final class ViewCreationProbe extends FragmentManager.FragmentLifecycleCallbacks {
+        private final Measurement measurement;
+        @Nullable private final Consumer<View> extra;
+        @Nullable Fragment target;
+        boolean measuring;
+
+        ViewCreationProbe(@NonNull Measurement measurement, @Nullable Consumer<View> extra) {
+            this.measurement = measurement;
+            this.extra = extra;
+        }
+
+        @Override
+        public void onFragmentCreated(@NonNull FragmentManager fm, @NonNull Fragment f, @Nullable Bundle savedInstanceState) {
+            if (measuring && f == target) {
+                measurement.begin();
+            }
+        }
+
+        @Override
+        public void onFragmentViewCreated(@NonNull FragmentManager fm, @NonNull Fragment f, @NonNull View v, @Nullable Bundle savedInstanceState) {
+            if (extra != null && f == target) {
+                extra.accept(v);
+            }
+            if (measuring && f == target) {
+                measurement.end();
+            }
+        }
+    }
+}
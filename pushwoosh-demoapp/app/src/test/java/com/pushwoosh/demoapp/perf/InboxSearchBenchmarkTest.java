@@ -0,0 +1,135 @@
+package com.pushwoosh.demoapp.perf;
+
+import static org.junit.Assert.assertFalse;
+
+import androidx.annotation.NonNull;
+
+import com.pushwoosh.demoapp.inbox.InboxSearchIndex;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Queries {@link InboxSearchIndex} over a synthetic inbox of {@link #MESSAGES} messages and holds the
+ * median query to the {@code inbox.search.*} budgets in {@code perf-budgets.properties}.
+ * <p>
+ * Word frequencies follow a Zipf-like curve over a generated vocabulary, so there are a few very
+ * common words (long postings lists, the expensive case) and a long tail of rare ones. The corpus and
+ * the queries come from a fixed seed, so runs are comparable.
+ */
+public class InboxSearchBenchmarkTest {
+
+    private static final int MESSAGES = 50_000;
+    private static final int VOCABULARY = 20_000;
+    private static final int LIMIT = 20;
+    private static final int WARMUP_QUERIES = 2_000;
+    private static final int MEASURED_QUERIES = 500;
+
+    private static InboxSearchIndex index;
+    private static String[] words;
+    private static PerfBudgets budgets;
+
+    @BeforeClass
+    public static void buildIndex() throws Exception {
+        budgets = new PerfBudgets();
+        Random random = new Random(42);
+        words = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) {
+            words[i] = word(random, i);
+        }
+
+        // Its own index, so the app's shared one is left alone.
+        index = new InboxSearchIndex();
+        long start = System.nanoTime();
+        for (int i = 0; i < MESSAGES; i++) {
+            index.put("m" + i, sentence(random, 3 + random.nextInt(5)), sentence(random, 15 + random.nextInt(30)));
+        }
+        System.out.printf(Locale.US, "perf inbox.index.build: %d messages in %d ms%n",
+                index.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @AfterClass
+    public static void dropIndex() {
+        index = null;
+    }
+
+    @Test
+    public void commonTerm() {
+        run("inbox.search.common", random -> words[random.nextInt(10)]);
+    }
+
+    @Test
+    public void rareTerms() {
+        run("inbox.search.rare", random -> words[1_000 + random.nextInt(VOCABULARY - 1_000)]);
+    }
+
+    @Test
+    public void twoTerms() {
+        run("inbox.search.twoTerms", random -> words[random.nextInt(50)] + " " + words[random.nextInt(500)]);
+    }
+
+    @Test
+    public void typedPrefix() {
+        // What the index sees while a word is being typed: its first two, three, four letters.
+        run("inbox.search.prefix", random -> {
+            String word = words[random.nextInt(2_000)];
+            return word.substring(0, Math.min(word.length(), 2 + random.nextInt(3)));
+        });
+    }
+
+    private interface QueryMaker {
+        @NonNull
+        String next(@NonNull Random random);
+    }
+
+    private static void run(@NonNull String name, @NonNull QueryMaker queries) {
+        Random random = new Random(name.hashCode());
+        int found = 0;
+        for (int i = 0; i < WARMUP_QUERIES; i++) {
+            found += index.search(queries.next(random), LIMIT).size();
+        }
+        Measurement measurement = new Measurement(MEASURED_QUERIES);
+        for (int i = 0; i < MEASURED_QUERIES; i++) {
+            String query = queries.next(random);
+            measurement.begin();
+            found += index.search(query, LIMIT).size();
+            measurement.end();
+        }
+        assertFalse("Queries should find something", found == 0);
+        budgets.check(name, measurement);
+    }
+
+    /** Pronounceable, mostly distinct: syllables picked by the word's rank, plus a little noise. */
+    @NonNull
+    private static String word(@NonNull Random random, int rank) {
+        String[] syllables = {"ka", "lo", "mi", "ne", "ru", "sa", "ti", "vo", "pe", "da", "go", "hu", "ze", "bi"};
+        StringBuilder word = new StringBuilder();
+        int n = rank;
+        do {
+            word.append(syllables[n % syllables.length]);
+            n /= syllables.length;
+        } while (n > 0);
+        if (random.nextBoolean()) {
+            word.append(syllables[random.nextInt(syllables.length)]);
+        }
+        return word.toString();
+    }
+
+    /** Words drawn with probability roughly proportional to 1 / rank. */
+    @NonNull
+    private static String sentence(@NonNull Random random, int length) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                sentence.append(' ');
+            }
+            int rank = (int) Math.min(VOCABULARY - 1, Math.exp(random.nextDouble() * Math.log(VOCABULARY)) - 1);
+            sentence.append(words[rank]);
+        }
+        return sentence.toString();
+    }
+}
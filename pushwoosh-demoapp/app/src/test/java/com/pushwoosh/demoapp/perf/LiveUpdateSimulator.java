@@ -0,0 +1,153 @@
+package com.pushwoosh.demoapp.perf;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import android.app.Notification;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.pushwoosh.liveupdates.LiveUpdateProgressStyleProvider;
+import com.pushwoosh.liveupdates.LiveUpdateSegment;
+import com.pushwoosh.liveupdates.LiveUpdateState;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Synthetic {@link LiveUpdateState} streams shaped like a delivery's live-update pushes, and a player
+ * that feeds them to a {@link LiveUpdateProgressStyleProvider} at a fixed rate, so the style can be
+ * exercised and measured without a server.
+ * <p>
+ * States are stub-only Mockito mocks, built before playback: the SDK owns how they are parsed from a
+ * push, and the provider only reads them. Each mock read still costs a little, so per-update figures
+ * include that dispatch — compare them between runs, not against a device.
+ */
+final class LiveUpdateSimulator {
+
+    static final int COOKING = 0xFFE8A33D;
+    static final int DELIVERY = 0xFF7E57C2;
+    static final int ARRIVING = 0xFF43A047;
+
+    private static final String[] PHASES = {"cooking", "delivery", "arriving", "unknown"};
+
+    /** The kinds of push sequence a live delivery produces. */
+    enum Scenario {
+        /** Three fixed phases, progress climbing 0 → 100. */
+        LINEAR,
+        /** Progress climbing while the server re-plans the phases: two, three, then four segments. */
+        SEGMENT_CHANGES,
+        /** Progress interrupted by indeterminate stretches (e.g. "waiting for a courier") and back. */
+        INDETERMINATE_FLIPS,
+        /** Progress held while the {@code phase} extra cycles, including unknown values and none. */
+        PHASE_CHANGES
+    }
+
+    private LiveUpdateSimulator() {
+    }
+
+    /** {@code updates} states for {@code scenario}, in push order. */
+    @NonNull
+    static List<LiveUpdateState> stream(@NonNull Scenario scenario, int updates) throws JSONException {
+        List<LiveUpdateState> stream = new ArrayList<>(updates);
+        List<LiveUpdateSegment> threePhases = segments(30, COOKING, 50, DELIVERY, 20, ARRIVING);
+        for (int i = 0; i < updates; i++) {
+            int progress = updates > 1 ? i * 100 / (updates - 1) : 100;
+            switch (scenario) {
+                case LINEAR:
+                    stream.add(state(progress, false, threePhases, null));
+                    break;
+                case SEGMENT_CHANGES:
+                    stream.add(state(progress, false, replanned(i * 3 / updates), null));
+                    break;
+                case INDETERMINATE_FLIPS:
+                    // Ten determinate updates, then five indeterminate ones, repeated.
+                    boolean waiting = i % 15 >= 10;
+                    stream.add(state(waiting ? null : progress, waiting, threePhases, null));
+                    break;
+                case PHASE_CHANGES:
+                    String phase = i % (PHASES.length + 1) < PHASES.length ? PHASES[i % (PHASES.length + 1)] : null;
+                    stream.add(state(50, false, threePhases, phase != null ? new JSONObject().put("phase", phase) : null));
+                    break;
+                default:
+                    throw new IllegalArgumentException(scenario.name());
+            }
+        }
+        return stream;
+    }
+
+    /**
+     * Feeds {@code stream} to {@code provider}, one update every {@code 1 / ratePerSecond} seconds
+     * ({@code 0} plays back to back), timing each {@code createStyle} call.
+     *
+     * @param styles receives each style, for checks; may be null
+     */
+    @NonNull
+    static Measurement play(@NonNull LiveUpdateProgressStyleProvider provider, @NonNull List<LiveUpdateState> stream,
+                            double ratePerSecond, @Nullable List<Notification.ProgressStyle> styles) {
+        Measurement measurement = new Measurement(stream.size());
+        long interval = ratePerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond) : 0;
+        long next = System.nanoTime();
+        for (LiveUpdateState state : stream) {
+            if (interval > 0) {
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                next += interval;
+            }
+            measurement.begin();
+            Notification.ProgressStyle style = provider.createStyle(state);
+            measurement.end();
+            if (styles != null) {
+                styles.add(style);
+            }
+        }
+        return measurement;
+    }
+
+    @NonNull
+    private static List<LiveUpdateSegment> replanned(int plan) {
+        switch (plan) {
+            case 0:
+                return segments(40, COOKING, 60, DELIVERY);
+            case 1:
+                return segments(30, COOKING, 50, DELIVERY, 20, ARRIVING);
+            default:
+                return segments(25, COOKING, 35, DELIVERY, 25, DELIVERY, 15, ARRIVING);
+        }
+    }
+
+    /** Segments from {@code length, color} pairs. */
+    @NonNull
+    static List<LiveUpdateSegment> segments(int... lengthsAndColors) {
+        LiveUpdateSegment[] segments = new LiveUpdateSegment[lengthsAndColors.length / 2];
+        for (int i = 0; i < segments.length; i++) {
+            LiveUpdateSegment segment = mock(LiveUpdateSegment.class, withSettings().stubOnly());
+            when(segment.getLength()).thenReturn(lengthsAndColors[2 * i]);
+            when(segment.getColor()).thenReturn(lengthsAndColors[2 * i + 1]);
+            segments[i] = segment;
+        }
+        return Collections.unmodifiableList(Arrays.asList(segments));
+    }
+
+    @NonNull
+    static LiveUpdateState state(@Nullable Integer progress, boolean indeterminate,
+                                 @NonNull List<LiveUpdateSegment> segments, @Nullable JSONObject extras) {
+        LiveUpdateState state = mock(LiveUpdateState.class, withSettings().stubOnly());
+        when(state.getProgress()).thenReturn(progress);
+        when(state.isProgressIndeterminate()).thenReturn(indeterminate);
+        when(state.getSegments()).thenReturn(segments);
+        when(state.getExtras()).thenReturn(extras);
+        return state;
+    }
+}
@@ -0,0 +1,88 @@
+package com.pushwoosh.demoapp.perf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import android.app.Notification;
+
+import androidx.annotation.NonNull;
+
+import com.pushwoosh.demoapp.liveupdate.DemoLiveUpdateStyleProvider;
+import com.pushwoosh.liveupdates.LiveUpdateState;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Plays each {@link LiveUpdateSimulator.Scenario} through {@link DemoLiveUpdateStyleProvider}: once to
+ * check every style against its state, then again at {@code -Dperf.liveupdate.rate} updates per second
+ * (default back to back) to report the median time and allocation per update. Stream length is
+ * {@code -Dperf.liveupdate.updates}.
+ * <p>
+ * Reported, not budgeted: most of the cost is rasterizing the tracker emoji, which Robolectric's
+ * graphics do very differently from a device.
+ */
+@RunWith(RobolectricTestRunner.class)
+// Notification.ProgressStyle is API 36, so this suite needs Robolectric's SDK 36 runtime and with it
+// JDK 21, the toolchain build.gradle runs the unit tests on.
+@Config(sdk = 36)
+public class LiveUpdateSimulatorTest {
+
+    private static final int UPDATES = Integer.getInteger("perf.liveupdate.updates", 150);
+    private static final double RATE = Double.parseDouble(System.getProperty("perf.liveupdate.rate", "0"));
+
+    private final DemoLiveUpdateStyleProvider provider = new DemoLiveUpdateStyleProvider();
+
+    @Test
+    public void linearDelivery() throws Exception {
+        run(LiveUpdateSimulator.Scenario.LINEAR);
+    }
+
+    @Test
+    public void segmentSetChanges() throws Exception {
+        run(LiveUpdateSimulator.Scenario.SEGMENT_CHANGES);
+    }
+
+    @Test
+    public void indeterminateAndBack() throws Exception {
+        run(LiveUpdateSimulator.Scenario.INDETERMINATE_FLIPS);
+    }
+
+    @Test
+    public void phaseExtraChanges() throws Exception {
+        run(LiveUpdateSimulator.Scenario.PHASE_CHANGES);
+    }
+
+    private void run(@NonNull LiveUpdateSimulator.Scenario scenario) throws Exception {
+        List<LiveUpdateState> stream = LiveUpdateSimulator.stream(scenario, UPDATES);
+
+        // The first pass also warms up the provider and the graphics shadows.
+        List<Notification.ProgressStyle> styles = new ArrayList<>(stream.size());
+        LiveUpdateSimulator.play(provider, stream, 0, styles);
+        for (int i = 0; i < stream.size(); i++) {
+            check(stream.get(i), styles.get(i));
+        }
+
+        Measurement measurement = LiveUpdateSimulator.play(provider, stream, RATE, null);
+        System.out.printf(Locale.US, "liveupdate %s: %d updates at %s, per update %s%n",
+                scenario, stream.size(), RATE > 0 ? RATE + "/s" : "full speed", measurement);
+    }
+
+    private static void check(@NonNull LiveUpdateState state, @NonNull Notification.ProgressStyle style) {
+        int segments = state.getSegments().size();
+        assertEquals(segments, style.getProgressSegments().size());
+        // A milestone on every boundary between phases, none at the ends.
+        assertEquals(segments - 1, style.getProgressPoints().size());
+        assertEquals(state.isProgressIndeterminate(), style.isProgressIndeterminate());
+        if (state.getProgress() != null) {
+            assertEquals(state.getProgress().intValue(), style.getProgress());
+        }
+        assertNotNull(style.getProgressTrackerIcon());
+    }
+}
@@ -0,0 +1,96 @@
+package com.pushwoosh.demoapp.perf;
+
+import androidx.annotation.NonNull;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Wall time and bytes allocated by the current thread over repeated runs of one operation, reported
+ * as the median so a single GC pause or JIT compilation does not decide the result.
+ * <p>
+ * Allocation counting relies on HotSpot's {@code com.sun.management.ThreadMXBean}; on a JVM without
+ * it {@link #medianAllocatedBytes()} is -1 and allocation budgets are skipped.
+ */
+final class Measurement {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean ALLOCATIONS_SUPPORTED = allocationsSupported();
+
+    private final long[] nanos;
+    private final long[] bytes;
+    private int runs;
+    private long startNanos;
+    private long startBytes;
+
+    Measurement(int runs) {
+        this.nanos = new long[runs];
+        this.bytes = new long[runs];
+    }
+
+    void begin() {
+        startBytes = allocatedBytes();
+        startNanos = System.nanoTime();
+    }
+
+    void end() {
+        long elapsed = System.nanoTime() - startNanos;
+        long allocated = ALLOCATIONS_SUPPORTED ? allocatedBytes() - startBytes : -1;
+        if (runs < nanos.length) {
+            nanos[runs] = elapsed;
+            bytes[runs] = allocated;
+            runs++;
+        }
+    }
+
+    int runs() {
+        return runs;
+    }
+
+    double medianMillis() {
+        return median(nanos) / 1e6;
+    }
+
+    long medianAllocatedBytes() {
+        return ALLOCATIONS_SUPPORTED ? median(bytes) : -1;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "median %.2f ms, %d KB allocated (%d runs)",
+                medianMillis(), medianAllocatedBytes() / 1024, runs);
+    }
+
+    private long median(long[] values) {
+        if (runs == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(values, runs);
+        Arrays.sort(sorted);
+        return sorted[runs / 2];
+    }
+
+    private static long allocatedBytes() {
+        if (!ALLOCATIONS_SUPPORTED) {
+            return 0;
+        }
+        return ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static boolean allocationsSupported() {
+        if (!(THREADS instanceof com.sun.management.ThreadMXBean)) {
+            return false;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            return false;
+        }
+        if (!threads.isThreadAllocatedMemoryEnabled()) {
+            threads.setThreadAllocatedMemoryEnabled(true);
+        }
+        return true;
+    }
+}
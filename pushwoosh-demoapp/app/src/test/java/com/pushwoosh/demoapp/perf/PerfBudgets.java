@@ -0,0 +1,83 @@
+package com.pushwoosh.demoapp.perf;
+
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Budgets checked in at {@code src/test/resources/perf-budgets.properties}: for each measured
+ * operation {@code <name>.ms} (median wall time) and {@code <name>.kb} (median allocation), plus a
+ * global {@code tolerance} a result may exceed its budget by before the check fails, and an absolute
+ * {@code allocationSlackKb} on top of every allocation budget.
+ * <p>
+ * The suites using these are only run with {@code -Dperf.budgets=true}; see {@code app/build.gradle}.
+ * <p>
+ * Run with {@code -Dperf.record=true} to print every measurement in the file's format instead of
+ * failing, e.g. to re-baseline after an intended change.
+ */
+final class PerfBudgets {
+
+    private static final String RESOURCE = "/perf-budgets.properties";
+
+    private final Properties budgets = new Properties();
+    private final double tolerance;
+    private final long allocationSlackKb;
+    private final boolean record = Boolean.getBoolean("perf.record");
+
+    PerfBudgets() throws IOException {
+        try (InputStream in = PerfBudgets.class.getResourceAsStream(RESOURCE)) {
+            if (in == null) {
+                throw new IOException(RESOURCE + " is missing from the test resources");
+            }
+            budgets.load(in);
+        }
+        tolerance = Double.parseDouble(budgets.getProperty("tolerance", "0.25"));
+        allocationSlackKb = Long.parseLong(budgets.getProperty("allocationSlackKb", "16"));
+    }
+
+    int warmupRuns() {
+        return Integer.parseInt(budgets.getProperty("warmupRuns", "3"));
+    }
+
+    int measuredRuns() {
+        return Integer.parseInt(budgets.getProperty("measuredRuns", "15"));
+    }
+
+    void check(@NonNull String name, @NonNull Measurement measurement) {
+        System.out.println("perf " + name + ": " + measurement);
+        if (record) {
+            System.out.printf(Locale.US, "%s.ms=%.1f%n%s.kb=%d%n",
+                    name, measurement.medianMillis(), name, Math.max(0, measurement.medianAllocatedBytes() / 1024));
+            return;
+        }
+
+        double budgetMs = Double.parseDouble(require(name + ".ms"));
+        double limitMs = budgetMs * (1 + tolerance);
+        assertTrue(String.format(Locale.US, "%s took %.2f ms, budget %.1f ms (+%.0f%% = %.1f ms)",
+                        name, measurement.medianMillis(), budgetMs, tolerance * 100, limitMs),
+                measurement.medianMillis() <= limitMs);
+
+        long allocated = measurement.medianAllocatedBytes();
+        if (allocated >= 0) {
+            long budgetKb = Long.parseLong(require(name + ".kb"));
+            long limitKb = Math.round(budgetKb * (1 + tolerance)) + allocationSlackKb;
+            assertTrue(String.format(Locale.US, "%s allocated %d KB, budget %d KB (+%.0f%% +%d KB = %d KB)",
+                            name, allocated / 1024, budgetKb, tolerance * 100, allocationSlackKb, limitKb),
+                    allocated / 1024 <= limitKb);
+        }
+    }
+
+    @NonNull
+    private String require(@NonNull String key) {
+        String value = budgets.getProperty(key);
+        if (value == null) {
+            throw new AssertionError("No budget '" + key + "' in " + RESOURCE + "; run with -Dperf.record=true to measure one");
+        }
+        return value;
+    }
+}
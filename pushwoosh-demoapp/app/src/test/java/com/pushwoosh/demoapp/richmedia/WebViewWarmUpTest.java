@@ -0,0 +1,63 @@
+package com.pushwoosh.demoapp.richmedia;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.app.Activity;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.pushwoosh.demoapp.metrics.MetricsRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+
+@RunWith(RobolectricTestRunner.class)
+public class WebViewWarmUpTest {
+
+    private final WebViewWarmUp warmUp = new WebViewWarmUp();
+    private ActivityController<Activity> host;
+
+    @Before
+    public void setUp() {
+        host = Robolectric.buildActivity(Activity.class).setup();
+    }
+
+    @After
+    public void tearDown() {
+        host.pause().stop().destroy();
+    }
+
+    @Test
+    public void warmUpWaitsForIdleAndRunsOnce() {
+        long created = creations();
+
+        warmUp.warmUpWhenIdle(host.get());
+        warmUp.warmUpWhenIdle(host.get());
+        assertFalse(warmUp.isWarm());
+
+        idlePass();
+        assertTrue(warmUp.isWarm());
+        assertEquals(created + 1, creations());
+
+        warmUp.warmUpWhenIdle(host.get());
+        idlePass();
+        assertEquals("Warm already: no second WebView", created + 1, creations());
+    }
+
+    private static long creations() {
+        return MetricsRegistry.getInstance().histogram(MetricsRegistry.WEBVIEW_CREATE_COLD).count();
+    }
+
+    private static void idlePass() {
+        new Handler(Looper.getMainLooper()).post(() -> { });
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+}
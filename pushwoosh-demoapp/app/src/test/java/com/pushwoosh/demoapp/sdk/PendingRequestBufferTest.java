@@ -0,0 +1,159 @@
+package com.pushwoosh.demoapp.sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class PendingRequestBufferTest {
+
+    private static final SdkBackend.Callback IGNORE = (success, error) -> { };
+
+    private final RecordingBackend backend = new RecordingBackend();
+    private final PendingRequestBuffer buffer = new PendingRequestBuffer(backend);
+
+    @Test
+    public void callsPassThroughWhileCommunicationRuns() {
+        assertEquals(PendingRequestBuffer.Outcome.SENT, buffer.setTag("k", "v", IGNORE));
+        assertEquals(PendingRequestBuffer.Outcome.SENT, buffer.postEvent("e", null, IGNORE));
+
+        assertEquals(Arrays.asList("setTags{k=v}", "postEvent e"), backend.calls);
+    }
+
+    @Test
+    public void aStopLeftOverFromAnEarlierLaunchBuffersFromTheStart() {
+        RecordingBackend stoppedBackend = new RecordingBackend();
+        stoppedBackend.enabled = false;
+        PendingRequestBuffer relaunched = new PendingRequestBuffer(stoppedBackend);
+
+        assertTrue(relaunched.isServerCommunicationStopped());
+        assertEquals(PendingRequestBuffer.Outcome.QUEUED, relaunched.setTag("k", "v", IGNORE));
+        assertTrue(stoppedBackend.calls.isEmpty());
+
+        relaunched.startServerCommunication();
+        assertEquals(Collections.singletonList("setTags{k=v}"), stoppedBackend.calls);
+    }
+
+    @Test
+    public void tagWritesAreCompactedByKey() {
+        buffer.stopServerCommunication();
+        for (int i = 0; i < 100; i++) {
+            assertEquals(PendingRequestBuffer.Outcome.QUEUED, buffer.setTag("key" + (i % 4), "v" + i, IGNORE));
+        }
+
+        PendingRequestBuffer.Stats stats = buffer.getStats();
+        assertEquals(4, stats.entries);
+        assertEquals(100, stats.submitted);
+        assertEquals(0.96f, stats.compactionRatio(), 0.001f);
+    }
+
+    @Test
+    public void startFlushesOneMergedBatchInOrder() {
+        List<PendingRequestBuffer.Stats> flushed = new ArrayList<>();
+        buffer.setFlushListener((stats, failed) -> flushed.add(stats));
+        buffer.stopServerCommunication();
+        buffer.setTag("a", "1", IGNORE);
+        buffer.postEvent("first", null, IGNORE);
+        buffer.setUserId("alice", IGNORE);
+        buffer.setTag("b", "2", IGNORE);
+        buffer.setTag("a", "3", IGNORE);
+        buffer.setUserId("bob", IGNORE);
+        buffer.postEvent("second", Collections.<String, Object>singletonMap("price", 99), IGNORE);
+        backend.calls.clear();
+
+        buffer.startServerCommunication();
+
+        assertEquals(
+                Arrays.asList("setUserId bob", "setTags{a=3, b=2}", "postEvent first", "postEvent second {price=99}"),
+                backend.calls);
+        assertEquals(1, flushed.size());
+        assertEquals(5, flushed.get(0).entries);
+        assertTrue(flushed.get(0).flushMs >= 0);
+        assertEquals(0, buffer.getStats().entries);
+    }
+
+    @Test
+    public void eventsAreDroppedOldestFirstAtTheCountLimit() {
+        buffer.stopServerCommunication();
+        buffer.setUserId("alice", IGNORE);
+        for (int i = 0; i < PendingRequestBuffer.MAX_ENTRIES + 10; i++) {
+            assertEquals(PendingRequestBuffer.Outcome.QUEUED, buffer.postEvent("e" + i, null, IGNORE));
+        }
+
+        PendingRequestBuffer.Stats stats = buffer.getStats();
+        assertEquals(PendingRequestBuffer.MAX_ENTRIES, stats.entries);
+        assertEquals(11, stats.dropped);
+
+        backend.calls.clear();
+        buffer.startServerCommunication();
+        assertEquals("setUserId alice", backend.calls.get(0));
+        assertEquals("postEvent e11", backend.calls.get(1));
+    }
+
+    @Test
+    public void tagsBeyondTheByteLimitAreRejected() {
+        buffer.stopServerCommunication();
+        char[] chars = new char[4 * 1024];
+        Arrays.fill(chars, 'x');
+        String big = new String(chars);
+
+        PendingRequestBuffer.Outcome last = null;
+        int accepted = 0;
+        for (int i = 0; i < 100; i++) {
+            last = buffer.setTag("key" + i, big, IGNORE);
+            if (last == PendingRequestBuffer.Outcome.QUEUED) {
+                accepted++;
+            }
+        }
+
+        assertNotNull(last);
+        assertEquals(PendingRequestBuffer.Outcome.DROPPED, last);
+        assertTrue(buffer.getStats().bytes <= PendingRequestBuffer.MAX_BYTES);
+        assertEquals(accepted, buffer.getStats().entries);
+        assertFalse(accepted == 0);
+    }
+
+    private static class RecordingBackend implements SdkBackend {
+        final List<String> calls = new ArrayList<>();
+        boolean enabled = true;
+
+        @Override
+        public void setTags(@NonNull Map<String, String> tags, @NonNull Callback callback) {
+            calls.add("setTags" + tags);
+            callback.onResult(true, null);
+        }
+
+        @Override
+        public void setUserId(@NonNull String userId, @NonNull Callback callback) {
+            calls.add("setUserId " + userId);
+            callback.onResult(true, null);
+        }
+
+        @Override
+        public void postEvent(@NonNull String event, @Nullable Map<String, Object> attributes, @NonNull Callback callback) {
+            calls.add("postEvent " + event + (attributes != null ? " " + attributes : ""));
+            callback.onResult(true, null);
+        }
+
+        @Override
+        public void setServerCommunicationEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        @Override
+        public boolean isServerCommunicationEnabled() {
+            return enabled;
+        }
+    }
+}
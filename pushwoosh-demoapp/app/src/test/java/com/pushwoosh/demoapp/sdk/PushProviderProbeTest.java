@@ -0,0 +1,158 @@
+package com.pushwoosh.demoapp.sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.annotation.NonNull;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Robolectric for SharedPreferences and the Android logging behind DemoLog.
+@RunWith(RobolectricTestRunner.class)
+public class PushProviderProbeTest {
+
+    private static final long TIMEOUT_MS = 200;
+
+    private final SharedPreferences prefs = ApplicationProvider.<Context>getApplicationContext()
+            .getSharedPreferences("push_provider_test", Context.MODE_PRIVATE);
+    private final ExecutorService threads = Executors.newCachedThreadPool();
+    private final CountDownLatch never = new CountDownLatch(1);
+    private final AtomicInteger probes = new AtomicInteger();
+
+    @After
+    public void tearDown() {
+        never.countDown();
+        threads.shutdownNow();
+        prefs.edit().clear().commit();
+    }
+
+    @Test
+    public void answerIsReusedUntilTheFingerprintChanges() {
+        Map<PushProviderProbe.Provider, PushProviderProbe.Check> checks = checks(false, true, false);
+
+        assertEquals(PushProviderProbe.Provider.HMS, probe("device-1", checks).resolve());
+        int probed = probes.get();
+
+        PushProviderProbe relaunched = probe("device-1", checks);
+        assertNull(relaunched.getProvider());
+        assertEquals(PushProviderProbe.Provider.HMS, relaunched.resolve());
+        assertEquals(PushProviderProbe.Provider.HMS, relaunched.getProvider());
+        assertEquals(probed, probes.get());
+
+        // An OS update: the stored answer no longer applies.
+        assertEquals(PushProviderProbe.Provider.FCM, probe("device-1-updated", checks(true, true, false)).resolve());
+        assertTrue(probes.get() > probed);
+    }
+
+    @Test
+    public void preferredProviderWinsOverAFasterOne() {
+        Map<PushProviderProbe.Provider, PushProviderProbe.Check> checks = checks(false, true, true);
+        checks.put(PushProviderProbe.Provider.FCM, () -> {
+            Thread.sleep(TIMEOUT_MS / 4);
+            return true;
+        });
+
+        assertEquals(PushProviderProbe.Provider.FCM, probe("device", checks).resolve());
+    }
+
+    @Test
+    public void probesRunInParallelAndAHungProbeTimesOut() {
+        Map<PushProviderProbe.Provider, PushProviderProbe.Check> checks = checks(false, false, false);
+        checks.put(PushProviderProbe.Provider.FCM, () -> {
+            never.await();
+            return true;
+        });
+        checks.put(PushProviderProbe.Provider.HMS, () -> {
+            Thread.sleep(TIMEOUT_MS / 2);
+            return true;
+        });
+
+        long start = System.nanoTime();
+        PushProviderProbe.Provider provider = probe("device", checks).resolve();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(PushProviderProbe.Provider.HMS, provider);
+        // One shared deadline, not one per probe one after another.
+        assertTrue("took " + elapsedMs + " ms", elapsedMs < TIMEOUT_MS * 2);
+    }
+
+    @Test
+    public void failingProbeCountsAsUnavailable() {
+        Map<PushProviderProbe.Provider, PushProviderProbe.Check> checks = checks(false, false, true);
+        checks.put(PushProviderProbe.Provider.FCM, () -> {
+            throw new SecurityException("no access");
+        });
+
+        assertEquals(PushProviderProbe.Provider.ADM, probe("device", checks).resolve());
+    }
+
+    @Test
+    public void answersThatRestOnATimeoutOrAnErrorAreNotStored() {
+        Map<PushProviderProbe.Provider, PushProviderProbe.Check> checks = checks(false, true, false);
+        checks.put(PushProviderProbe.Provider.FCM, () -> {
+            throw new SecurityException("no access");
+        });
+        assertEquals(PushProviderProbe.Provider.HMS, probe("device", checks).resolve());
+
+        // FCM might have worked; the next launch asks again instead of settling for HMS.
+        assertEquals(PushProviderProbe.Provider.FCM, probe("device", checks(true, true, false)).resolve());
+
+        // An answer the less preferred probes could not change is stored even if one of them hung.
+        Map<PushProviderProbe.Provider, PushProviderProbe.Check> hung = checks(true, false, false);
+        hung.put(PushProviderProbe.Provider.ADM, () -> {
+            never.await();
+            return true;
+        });
+        prefs.edit().clear().commit();
+        assertEquals(PushProviderProbe.Provider.FCM, probe("device", hung).resolve());
+        int probed = probes.get();
+        assertEquals(PushProviderProbe.Provider.FCM, probe("device", checks(false, true, false)).resolve());
+        assertEquals(probed, probes.get());
+    }
+
+    @Test
+    public void noProviderIsAnAnswerToo() {
+        assertEquals(PushProviderProbe.Provider.NONE, probe("device", checks(false, false, false)).resolve());
+        assertEquals(PushProviderProbe.Provider.NONE, probe("device", checks(true, true, true)).resolve());
+        assertEquals(3, probes.get());
+    }
+
+    @NonNull
+    private PushProviderProbe probe(@NonNull String fingerprint,
+                                    @NonNull Map<PushProviderProbe.Provider, PushProviderProbe.Check> checks) {
+        return new PushProviderProbe(() -> prefs, () -> fingerprint, checks, threads, TIMEOUT_MS);
+    }
+
+    @NonNull
+    private Map<PushProviderProbe.Provider, PushProviderProbe.Check> checks(boolean fcm, boolean hms, boolean adm) {
+        Map<PushProviderProbe.Provider, PushProviderProbe.Check> checks = new EnumMap<>(PushProviderProbe.Provider.class);
+        checks.put(PushProviderProbe.Provider.FCM, counting(fcm));
+        checks.put(PushProviderProbe.Provider.HMS, counting(hms));
+        checks.put(PushProviderProbe.Provider.ADM, counting(adm));
+        return checks;
+    }
+
+    @NonNull
+    private PushProviderProbe.Check counting(boolean available) {
+        return () -> {
+            probes.incrementAndGet();
+            return available;
+        };
+    }
+}
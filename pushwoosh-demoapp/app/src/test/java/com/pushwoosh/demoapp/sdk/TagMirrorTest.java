@@ -0,0 +1,160 @@
+package com.pushwoosh.demoapp.sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Robolectric for the Android logging behind DemoLog on the error paths, and the main looper LiveData posts to.
+@RunWith(RobolectricTestRunner.class)
+public class TagMirrorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final FakeSource source = new FakeSource();
+
+    @Test
+    public void writesAreReadBackAndSurviveARestart() throws IOException {
+        File file = new File(folder.getRoot(), TagMirror.FILE_NAME);
+        TagMirror mirror = started(file);
+        source.complete(Collections.<String, String>emptyMap());
+
+        mirror.onTagsSet(Collections.singletonMap("plan", "pro"));
+        assertEquals("pro", mirror.get("plan"));
+        assertNull(mirror.get("city"));
+
+        TagMirror restarted = started(file);
+        assertEquals("pro", restarted.get("plan"));
+        // Reconciled moments ago, so the restart does not go to the server again.
+        assertEquals(1, source.fetches);
+    }
+
+    @Test
+    public void reconcileReplacesTheMirrorWithTheServersTags() throws IOException {
+        TagMirror mirror = started(folder.newFile());
+        source.complete(Collections.<String, String>emptyMap());
+        mirror.onTagsSet(tags("plan", "free", "stale", "yes"));
+
+        mirror.reconcile();
+        source.complete(tags("plan", "pro", "Language", "en"));
+
+        assertEquals(tags("plan", "pro", "Language", "en"), mirror.getAll());
+    }
+
+    @Test
+    public void writesMadeWhileAReconcileIsInFlightWin() throws IOException {
+        TagMirror mirror = started(folder.newFile());
+        source.complete(Collections.<String, String>emptyMap());
+        mirror.onTagsSet(Collections.singletonMap("plan", "free"));
+
+        mirror.reconcile();
+        // The fetch started before this write; the server's answer cannot know about it.
+        mirror.onTagsSet(Collections.singletonMap("plan", "pro"));
+        source.complete(tags("plan", "free", "city", "Berlin"));
+
+        assertEquals("pro", mirror.get("plan"));
+        assertEquals("Berlin", mirror.get("city"));
+
+        // A later reconcile that started after the write is authoritative again.
+        mirror.reconcile();
+        source.complete(tags("plan", "team"));
+        assertEquals("team", mirror.get("plan"));
+    }
+
+    @Test
+    public void failedReconcileKeepsTheMirrorAndCanBeRetried() throws IOException {
+        TagMirror mirror = started(folder.newFile());
+        mirror.onTagsSet(Collections.singletonMap("plan", "pro"));
+
+        source.fail();
+        assertEquals("pro", mirror.get("plan"));
+
+        mirror.reconcile();
+        assertEquals(2, source.fetches);
+    }
+
+    @Test
+    public void readsDoNotWaitForTheLoadAndTheLoadedTagsArePosted() {
+        File file = new File(folder.getRoot(), TagMirror.FILE_NAME);
+        started(file).onTagsSet(Collections.singletonMap("plan", "pro"));
+
+        List<Runnable> queued = new ArrayList<>();
+        TagMirror mirror = new TagMirror(() -> file, source, queued::add);
+        mirror.start();
+
+        assertNull("Not loaded yet, and the read returns instead of blocking", mirror.get("plan"));
+        for (int i = 0; i < queued.size(); i++) {
+            queued.get(i).run();
+        }
+        shadowOf(Looper.getMainLooper()).idle();
+        assertEquals("pro", mirror.get("plan"));
+        assertEquals(Collections.singletonMap("plan", "pro"), mirror.getTags().getValue());
+    }
+
+    @Test
+    public void unreadableFileStartsEmpty() throws IOException {
+        File file = folder.newFile();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write("not a mirror".getBytes("UTF-8"));
+        }
+
+        TagMirror mirror = started(file);
+
+        assertEquals(Collections.<String, String>emptyMap(), mirror.getAll());
+        assertEquals(1, source.fetches);
+    }
+
+    @NonNull
+    private TagMirror started(@NonNull File file) {
+        TagMirror mirror = new TagMirror(() -> file, source, Runnable::run);
+        mirror.start();
+        return mirror;
+    }
+
+    @NonNull
+    private static Map<String, String> tags(@NonNull String... keysAndValues) {
+        Map<String, String> tags = new HashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            tags.put(keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return tags;
+    }
+
+    private static class FakeSource implements TagMirror.TagSource {
+        final List<TagMirror.TagCallback> pending = new ArrayList<>();
+        int fetches;
+
+        @Override
+        public void fetch(@NonNull TagMirror.TagCallback callback) {
+            fetches++;
+            pending.add(callback);
+        }
+
+        void complete(@NonNull Map<String, String> tags) {
+            pending.remove(0).onTags(tags, null);
+        }
+
+        void fail() {
+            pending.remove(0).onTags(null, new IOException("offline"));
+        }
+    }
+}
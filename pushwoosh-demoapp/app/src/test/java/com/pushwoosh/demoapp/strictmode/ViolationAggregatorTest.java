@@ -0,0 +1,88 @@
+package com.pushwoosh.demoapp.strictmode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+
+public class ViolationAggregatorTest {
+
+    private final ViolationAggregator aggregator = new ViolationAggregator("com.pushwoosh.demoapp");
+
+    @Test
+    public void repeatedPathsCollapseIntoOneSignature() {
+        StackTraceElement[] stack = stack(
+                frame("android.app.SharedPreferencesImpl", "getString", 10),
+                frame("com.pushwoosh.internal.Prefs", "read", 20),
+                frame("com.pushwoosh.demoapp.ui.home.HomeFragment", "onCreateView", 30),
+                frame("androidx.fragment.app.Fragment", "performCreateView", 40));
+
+        assertTrue(aggregator.record("DiskReadViolation", stack));
+        for (int i = 0; i < 99; i++) {
+            assertFalse(aggregator.record("DiskReadViolation", stack));
+        }
+
+        assertEquals(1, aggregator.reports().size());
+        assertEquals(100, aggregator.reports().get(0).count);
+        assertEquals(Collections.singletonMap("DiskReadViolation com.pushwoosh.demoapp.ui.home.HomeFragment.onCreateView", 100),
+                aggregator.countsByCallSite());
+    }
+
+    @Test
+    public void callSitesIgnoreLineNumbersAndLambdaSuffixes() {
+        aggregator.record("DiskWriteViolation", stack(
+                frame("java.io.FileOutputStream", "write", 1),
+                frame("com.pushwoosh.demoapp.ui.notifications.NotificationsFragment", "lambda$onCreateView$3", 120)));
+        aggregator.record("DiskWriteViolation", stack(
+                frame("java.io.FileOutputStream", "write", 1),
+                frame("com.pushwoosh.demoapp.ui.notifications.NotificationsFragment", "lambda$onCreateView$5", 180)));
+
+        assertEquals(Collections.singletonMap(
+                        "DiskWriteViolation com.pushwoosh.demoapp.ui.notifications.NotificationsFragment.onCreateView", 2),
+                aggregator.countsByCallSite());
+    }
+
+    @Test
+    public void differentPathsToTheSameCallSiteAreCountedTogether() {
+        StackTraceElement callSite = frame("com.pushwoosh.demoapp.MainActivity", "onCreate", 50);
+        aggregator.record("DiskReadViolation", stack(frame("java.io.File", "exists", 1), callSite));
+        aggregator.record("DiskReadViolation", stack(frame("java.io.FileInputStream", "open", 1), callSite));
+
+        assertEquals(2, aggregator.reports().size());
+        Map<String, Integer> counts = aggregator.countsByCallSite();
+        assertEquals(Integer.valueOf(2), counts.get("DiskReadViolation com.pushwoosh.demoapp.MainActivity.onCreate"));
+    }
+
+    @Test
+    public void monitorFramesAreNotCallSites() {
+        aggregator.record("NetworkViolation", stack(
+                frame("java.net.Socket", "connect", 1),
+                frame("com.pushwoosh.demoapp.strictmode.StrictModeMonitor", "onViolation", 2)));
+
+        assertEquals(Collections.singleton("NetworkViolation <outside app code>"), aggregator.countsByCallSite().keySet());
+    }
+
+    @Test
+    public void newCallSitesAreThoseMissingFromTheBaseline() {
+        aggregator.record("DiskReadViolation", stack(frame("com.pushwoosh.demoapp.MainActivity", "onCreate", 1)));
+        aggregator.record("LeakedClosableViolation", stack(frame("com.pushwoosh.demoapp.log.RotatingLogFile", "open", 1)));
+
+        assertEquals(Collections.singleton("LeakedClosableViolation com.pushwoosh.demoapp.log.RotatingLogFile.open"),
+                aggregator.newCallSites(new HashSet<>(Arrays.asList(
+                        "DiskReadViolation com.pushwoosh.demoapp.MainActivity.onCreate"))));
+    }
+
+    private static StackTraceElement[] stack(StackTraceElement... frames) {
+        return frames;
+    }
+
+    private static StackTraceElement frame(String className, String method, int line) {
+        return new StackTraceElement(className, method, className + ".java", line);
+    }
+}
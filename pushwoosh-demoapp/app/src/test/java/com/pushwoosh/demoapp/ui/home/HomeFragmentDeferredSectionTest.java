@@ -0,0 +1,67 @@
+package com.pushwoosh.demoapp.ui.home;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Looper;
+import android.view.View;
+import android.widget.ScrollView;
+
+import com.pushwoosh.demoapp.MainActivity;
+import com.pushwoosh.demoapp.R;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+
+@RunWith(RobolectricTestRunner.class)
+public class HomeFragmentDeferredSectionTest {
+
+    private ActivityController<MainActivity> host;
+
+    @Before
+    public void setUp() {
+        host = Robolectric.buildActivity(MainActivity.class).setup();
+    }
+
+    @After
+    public void tearDown() {
+        host.pause().stop().destroy();
+    }
+
+    @Test
+    public void inAppSectionIsNotPartOfTheFirstFrame() {
+        HomeFragment fragment = new HomeFragment();
+        host.get().getSupportFragmentManager().beginTransaction()
+                .add(android.R.id.content, fragment)
+                .commitNow();
+
+        View root = fragment.requireView();
+        assertNull(root.findViewById(R.id.inAppSection));
+        assertNull(root.findViewById(R.id.buttonInAppBanner));
+        assertNotNull(root.findViewById(R.id.stubInAppSection));
+    }
+
+    @Test
+    public void inAppSectionInflatesAndBindsWhenScrolledTo() {
+        HomeFragment fragment = new HomeFragment();
+        host.get().getSupportFragmentManager().beginTransaction()
+                .add(android.R.id.content, fragment)
+                .commitNow();
+        shadowOf(Looper.getMainLooper()).idle();
+
+        ScrollView root = (ScrollView) fragment.requireView();
+        root.scrollTo(0, root.getChildAt(0).getHeight());
+        shadowOf(Looper.getMainLooper()).idle();
+
+        View banner = root.findViewById(R.id.buttonInAppBanner);
+        assertNotNull(banner);
+        assertTrue(banner.hasOnClickListeners());
+    }
+}
@@ -0,0 +1,118 @@
+package com.pushwoosh.demoapp.ui.home;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class StoryTimelineTest {
+
+    private static final long VSYNC = 16_666_667L;
+    private static final long SECOND = 1_000_000_000L;
+
+    private final RecordingListener listener = new RecordingListener();
+
+    @Test
+    public void preloadsAheadAndReleasesWhatHasPlayed() {
+        StoryTimeline timeline = new StoryTimeline(new long[] {SECOND, SECOND, SECOND, SECOND}, 2, listener);
+
+        timeline.start(0);
+        assertEquals(Arrays.asList("preload 1", "preload 2"), listener.events);
+
+        listener.events.clear();
+        runUntil(timeline, 0, SECOND);
+        assertEquals(Arrays.asList("release 0", "advance 1", "preload 3"), listener.events);
+
+        listener.events.clear();
+        runUntil(timeline, SECOND, 4 * SECOND);
+        assertEquals(Arrays.asList("release 1", "advance 2", "release 2", "advance 3", "release 3", "finished"),
+                listener.events);
+    }
+
+    @Test
+    public void advancesLandOnTheFirstVsyncAfterTheDeadline() {
+        StoryTimeline timeline = new StoryTimeline(new long[] {SECOND, SECOND}, 1, listener);
+        timeline.start(0);
+
+        long firstVsyncAfterDeadline = (SECOND / VSYNC + 1) * VSYNC;
+        assertTrue(timeline.onFrame(firstVsyncAfterDeadline - VSYNC));
+        assertEquals(0, timeline.currentFrame());
+        assertTrue(timeline.onFrame(firstVsyncAfterDeadline));
+        assertEquals(1, timeline.currentFrame());
+    }
+
+    @Test
+    public void nextDeadlineFollowsTheCurrentFrame() {
+        StoryTimeline timeline = new StoryTimeline(new long[] {SECOND, 2 * SECOND, SECOND}, 1, listener);
+        timeline.start(VSYNC);
+        assertEquals(VSYNC + SECOND, timeline.nextDeadlineNanos());
+
+        timeline.onFrame(VSYNC + SECOND);
+        assertEquals(VSYNC + 3 * SECOND, timeline.nextDeadlineNanos());
+    }
+
+    @Test
+    public void deadlinesDoNotDriftAfterALateFrame() {
+        StoryTimeline timeline = new StoryTimeline(new long[] {SECOND, SECOND, SECOND}, 1, listener);
+        timeline.start(0);
+
+        timeline.onFrame(SECOND + 30 * VSYNC);
+        assertEquals(1, timeline.currentFrame());
+        // Frame 2 still starts at 2 s, not 2 s + the stall.
+        timeline.onFrame(2 * SECOND);
+        assertEquals(2, timeline.currentFrame());
+    }
+
+    @Test
+    public void oversleptFramesAreSkippedAndReleased() {
+        StoryTimeline timeline = new StoryTimeline(new long[] {SECOND, SECOND, SECOND, SECOND}, 1, listener);
+        timeline.start(0);
+        listener.events.clear();
+
+        assertTrue(timeline.onFrame(2 * SECOND + VSYNC));
+        assertEquals(2, timeline.currentFrame());
+        assertEquals(Arrays.asList("release 0", "release 1", "advance 2", "preload 2", "preload 3"), listener.events);
+
+        assertFalse(timeline.onFrame(10 * SECOND));
+        assertTrue(listener.events.contains("finished"));
+    }
+
+    private static void runUntil(@NonNull StoryTimeline timeline, long from, long to) {
+        for (long t = from; t <= to + VSYNC; t += VSYNC) {
+            if (!timeline.onFrame(t)) {
+                return;
+            }
+        }
+    }
+
+    private static class RecordingListener implements StoryTimeline.Listener {
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        public void onPreload(int frame) {
+            events.add("preload " + frame);
+        }
+
+        @Override
+        public void onRelease(int frame) {
+            events.add("release " + frame);
+        }
+
+        @Override
+        public void onAdvance(int frame) {
+            events.add("advance " + frame);
+        }
+
+        @Override
+        public void onFinished() {
+            events.add("finished");
+        }
+    }
+}
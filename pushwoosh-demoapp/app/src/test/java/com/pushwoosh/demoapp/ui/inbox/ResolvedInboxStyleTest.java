@@ -0,0 +1,95 @@
+package com.pushwoosh.demoapp.ui.inbox;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import android.widget.FrameLayout;
+import android.widget.TextView;
+
+import androidx.fragment.app.FragmentManager;
+
+import com.pushwoosh.demoapp.MainActivity;
+import com.pushwoosh.demoapp.metrics.MetricsRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.android.controller.ActivityController;
+
+@RunWith(RobolectricTestRunner.class)
+public class ResolvedInboxStyleTest {
+
+    private static final int RECREATIONS = 5;
+    private static final int BINDS = 1_000;
+
+    private ActivityController<MainActivity> host;
+
+    @Before
+    public void setUp() {
+        host = Robolectric.buildActivity(MainActivity.class).setup();
+    }
+
+    @After
+    public void tearDown() {
+        host.pause().stop().destroy();
+    }
+
+    @Test
+    public void recreatingTheActivityAndTheInboxReusesTheSnapshot() {
+        ResolvedInboxStyle style = ResolvedInboxStyle.get(host.get());
+        long resolves = resolves();
+
+        for (int i = 0; i < RECREATIONS; i++) {
+            host.recreate();
+            FragmentManager fragments = host.get().getSupportFragmentManager();
+            InboxWrapperFragment inbox = new InboxWrapperFragment();
+            fragments.beginTransaction().add(android.R.id.content, inbox).commitNow();
+            fragments.beginTransaction().remove(inbox).commitNow();
+            assertSame(style, ResolvedInboxStyle.get(host.get()));
+        }
+        assertEquals(resolves, resolves());
+    }
+
+    @Test
+    public void aNightModeChangeResolvesANewSnapshot() {
+        ResolvedInboxStyle day = ResolvedInboxStyle.get(host.get());
+        long resolves = resolves();
+
+        RuntimeEnvironment.setQualifiers("+night");
+        host.recreate();
+        ResolvedInboxStyle night = ResolvedInboxStyle.get(host.get());
+
+        assertNotSame(day, night);
+        assertNotEquals(ResolvedInboxStyle.unread(day.titleColors), ResolvedInboxStyle.unread(night.titleColors));
+        assertEquals(resolves + 1, resolves());
+        assertSame(night, ResolvedInboxStyle.get(host.get()));
+    }
+
+    @Test
+    public void rowsBindFromTheSnapshotWithoutResolvingAgain() {
+        ResolvedInboxStyle style = ResolvedInboxStyle.get(host.get());
+        long resolves = resolves();
+        InboxSearchAdapter.HitViewHolder row = InboxSearchAdapter.HitViewHolder.Companion.create(new FrameLayout(host.get()));
+
+        for (int i = 0; i < BINDS; i++) {
+            row.applyStyle(ResolvedInboxStyle.get(host.get()));
+        }
+
+        TextView title = row.getBinding().searchResultTitle;
+        assertSame(style.titleFont, title.getTypeface());
+        assertSame(style.titleColors, title.getTextColors());
+        assertEquals(style.titleTextSizePx, title.getTextSize(), 0.01f);
+        assertSame(style.descriptionColors, row.getBinding().searchResultBody.getTextColors());
+        assertEquals(resolves, resolves());
+    }
+
+    private static long resolves() {
+        return MetricsRegistry.getInstance().counter(MetricsRegistry.INBOX_STYLE_RESOLVE).sum();
+    }
+}
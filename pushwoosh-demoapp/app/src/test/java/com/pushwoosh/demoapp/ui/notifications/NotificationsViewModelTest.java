@@ -0,0 +1,109 @@
+package com.pushwoosh.demoapp.ui.notifications;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.NonNull;
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+
+import com.pushwoosh.inapp.view.config.enums.ModalRichMediaViewPosition;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+public class NotificationsViewModelTest {
+
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    private final FakeSource source = new FakeSource();
+    private final QueueExecutor executor = new QueueExecutor();
+
+    @Test
+    public void snapshotIsLoadedOnceInTheBackground() {
+        NotificationsViewModel viewModel = new NotificationsViewModel(source, executor);
+        assertNull("Nothing may be read on the constructing thread", viewModel.getSettings().getValue());
+        assertEquals(ModalRichMediaViewPosition.FULLSCREEN, viewModel.getModalPosition());
+        assertEquals(0, source.loads);
+
+        executor.runAll();
+        SettingsSnapshot loaded = viewModel.getSettings().getValue();
+        assertTrue(loaded.registered);
+        assertTrue(loaded.locationTracking);
+
+        // Re-entering the tab (and rotating) goes through the same activity-scoped view model.
+        assertSame(loaded, viewModel.getSettings().getValue());
+        executor.runAll();
+        assertEquals(1, source.loads);
+    }
+
+    @Test
+    public void settersPublishANewSnapshotAndPersistWhatTheSdkCannotReport() {
+        NotificationsViewModel viewModel = new NotificationsViewModel(source, executor);
+        executor.runAll();
+        SettingsSnapshot before = viewModel.getSettings().getValue();
+
+        viewModel.setModalPosition(ModalRichMediaViewPosition.TOP);
+        viewModel.setServerCommunicationEnabled(false);
+        viewModel.setLocationTracking(false);
+
+        SettingsSnapshot after = viewModel.getSettings().getValue();
+        assertEquals(ModalRichMediaViewPosition.TOP, after.modalPosition);
+        assertFalse(after.serverCommunicationEnabled);
+        assertFalse(after.locationTracking);
+        assertEquals("The earlier snapshot is immutable", ModalRichMediaViewPosition.FULLSCREEN, before.modalPosition);
+        assertEquals("A recreated activity re-applies this", ModalRichMediaViewPosition.TOP, viewModel.getModalPosition());
+
+        assertTrue("Persisting waits for the background thread", source.savedLocationTracking.isEmpty());
+        executor.runAll();
+        assertEquals(1, source.savedLocationTracking.size());
+        assertFalse(source.savedLocationTracking.get(0));
+        assertEquals(1, source.loads);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void settersBeforeTheLoadAreRejected() {
+        new NotificationsViewModel(source, executor).setModalRichMedia(true);
+    }
+
+    private static class FakeSource implements NotificationsViewModel.SettingsSource {
+        int loads;
+        final List<Boolean> savedLocationTracking = new ArrayList<>();
+
+        @NonNull
+        @Override
+        public SettingsSnapshot load() {
+            loads++;
+            return new SettingsSnapshot(true, true, false, ModalRichMediaViewPosition.FULLSCREEN, true);
+        }
+
+        @Override
+        public void saveLocationTracking(boolean tracking) {
+            savedLocationTracking.add(tracking);
+        }
+    }
+
+    /** Stands in for the background thread: work runs only when the test says so. */
+    private static class QueueExecutor implements Executor {
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(@NonNull Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.poll().run();
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.pushwoosh.demoapp.ui.notifications;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.NonNull;
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+
+import com.pushwoosh.demoapp.ui.notifications.PushRegistrationStateMachine.State;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+public class PushRegistrationStateMachineTest {
+
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    private final FakeScheduler scheduler = new FakeScheduler();
+    private final FakeRegistrar registrar = new FakeRegistrar();
+
+    @Test
+    public void hundredRapidToggles_collapseToFinalDesiredState() {
+        PushRegistrationStateMachine machine = new PushRegistrationStateMachine(false, registrar, scheduler);
+
+        // 100 flips, 10 ms apart — well inside the debounce window.
+        for (int i = 1; i <= 100; i++) {
+            machine.setDesired(i % 2 == 1);
+            scheduler.advance(10);
+        }
+        assertEquals("Nothing may go out while the switch is still moving", 0, machine.getRequestCount());
+
+        // 100 flips from "unregistered" end on "unregistered" — no request at all.
+        scheduler.advance(PushRegistrationStateMachine.DEBOUNCE_MS);
+        assertEquals(0, machine.getRequestCount());
+        assertEquals(State.UNREGISTERED, machine.getState().getValue());
+
+        machine.setDesired(true);
+        scheduler.advance(PushRegistrationStateMachine.DEBOUNCE_MS);
+        assertEquals(1, machine.getRequestCount());
+        assertEquals(State.REGISTERING, machine.getState().getValue());
+
+        registrar.completeNext(true);
+        scheduler.advance(0);
+        assertEquals(State.REGISTERED, machine.getState().getValue());
+        assertEquals(1, machine.getRequestCount());
+    }
+
+    @Test
+    public void togglesWhileInFlight_mergeIntoOneFollowUp() {
+        PushRegistrationStateMachine machine = new PushRegistrationStateMachine(false, registrar, scheduler);
+
+        machine.setDesired(true);
+        scheduler.advance(PushRegistrationStateMachine.DEBOUNCE_MS);
+        assertEquals(1, machine.getRequestCount());
+
+        // 100 toggles while "register" is in flight, ending on "unregister".
+        for (int i = 0; i < 100; i++) {
+            machine.setDesired(i % 2 == 0);
+            scheduler.advance(PushRegistrationStateMachine.DEBOUNCE_MS);
+        }
+        assertEquals("Toggles during a request must not be queued", 1, machine.getRequestCount());
+
+        registrar.completeNext(true);
+        scheduler.advance(0);
+        assertEquals("Exactly one follow-up for the merged desired state", 2, machine.getRequestCount());
+        assertEquals(State.UNREGISTERING, machine.getState().getValue());
+
+        registrar.completeNext(true);
+        scheduler.advance(0);
+        assertEquals(State.UNREGISTERED, machine.getState().getValue());
+        assertEquals(2, machine.getRequestCount());
+    }
+
+    @Test
+    public void togglesWhileInFlight_endingOnInFlightTarget_needNoFollowUp() {
+        PushRegistrationStateMachine machine = new PushRegistrationStateMachine(false, registrar, scheduler);
+
+        machine.setDesired(true);
+        scheduler.advance(PushRegistrationStateMachine.DEBOUNCE_MS);
+        machine.setDesired(false);
+        machine.setDesired(true);
+        scheduler.advance(PushRegistrationStateMachine.DEBOUNCE_MS);
+
+        registrar.completeNext(true);
+        scheduler.advance(0);
+        assertEquals(1, machine.getRequestCount());
+        assertEquals(State.REGISTERED, machine.getState().getValue());
+    }
+
+    @Test
+    public void failedRequest_snapsBackWithoutRetry() {
+        PushRegistrationStateMachine machine = new PushRegistrationStateMachine(true, registrar, scheduler);
+
+        machine.setDesired(false);
+        scheduler.advance(PushRegistrationStateMachine.DEBOUNCE_MS);
+        registrar.completeNext(false);
+        scheduler.advance(PushRegistrationStateMachine.DEBOUNCE_MS);
+
+        assertEquals(1, machine.getRequestCount());
+        assertEquals(State.REGISTERED, machine.getState().getValue());
+    }
+
+    @Test
+    public void flushPending_sendsAToggleStillInsideTheDebounceWindow() {
+        PushRegistrationStateMachine machine = new PushRegistrationStateMachine(false, registrar, scheduler);
+
+        machine.setDesired(true);
+        scheduler.advance(10);
+        assertTrue(machine.isDesiredRegistered());
+        assertEquals(State.UNREGISTERED, machine.getState().getValue());
+
+        machine.flushPending();
+        assertEquals(1, machine.getRequestCount());
+        assertEquals(State.REGISTERING, machine.getState().getValue());
+
+        // The debounced run was cancelled; nothing goes out twice, and a second flush is a no-op.
+        scheduler.advance(PushRegistrationStateMachine.DEBOUNCE_MS);
+        machine.flushPending();
+        assertEquals(1, machine.getRequestCount());
+    }
+
+    /** Virtual-time scheduler: tasks run only when {@link #advance} moves the clock past them. */
+    private static class FakeScheduler implements PushRegistrationStateMachine.Scheduler {
+        private final List<Task> tasks = new ArrayList<>();
+        private long now;
+
+        @Override
+        public void postDelayed(@NonNull Runnable task, long delayMs) {
+            tasks.add(new Task(task, now + delayMs));
+        }
+
+        @Override
+        public void cancel(@NonNull Runnable task) {
+            tasks.removeIf(t -> t.runnable == task);
+        }
+
+        void advance(long ms) {
+            long target = now + ms;
+            while (true) {
+                Task next = null;
+                for (Task t : tasks) {
+                    if (t.at <= target && (next == null || t.at < next.at)) {
+                        next = t;
+                    }
+                }
+                if (next == null) {
+                    break;
+                }
+                tasks.remove(next);
+                now = next.at;
+                next.runnable.run();
+            }
+            now = target;
+        }
+
+        private static class Task {
+            final Runnable runnable;
+            final long at;
+
+            Task(Runnable runnable, long at) {
+                this.runnable = runnable;
+                this.at = at;
+            }
+        }
+    }
+
+    /** Holds completions until the test decides how each request ends. */
+    private static class FakeRegistrar implements PushRegistrationStateMachine.Registrar {
+        private final ArrayDeque<PushRegistrationStateMachine.Completion> pending = new ArrayDeque<>();
+
+        @Override
+        public void register(@NonNull PushRegistrationStateMachine.Completion completion) {
+            pending.add(completion);
+        }
+
+        @Override
+        public void unregister(@NonNull PushRegistrationStateMachine.Completion completion) {
+            pending.add(completion);
+        }
+
+        void completeNext(boolean success) {
+            pending.remove().onComplete(success);
+        }
+    }
+}